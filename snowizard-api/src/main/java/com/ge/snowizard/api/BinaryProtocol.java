@@ -0,0 +1,48 @@
+package com.ge.snowizard.api;
+
+/**
+ * Framing of Snowizard's pipelined binary protocol. All integers are
+ * big-endian and every frame starts with the length of the rest of the frame.
+ *
+ * <pre>
+ * request:  int32 length | int32 request id | int32 count | UTF-8 user agent
+ * response: int32 length | int32 request id | int32 status | payload
+ * </pre>
+ *
+ * A response with status {@link #OK} carries the requested IDs as 64-bit
+ * values, any other status carries a UTF-8 error message. Status codes follow
+ * their HTTP equivalents. Responses on a connection come back in the order
+ * of the requests, but carry the request ID so that a client may keep many
+ * requests in flight without tracking their order.
+ */
+public final class BinaryProtocol {
+
+    /**
+     * Size of the length prefix of a frame
+     */
+    public static final int LENGTH_BYTES = 4;
+
+    /**
+     * Size of the request ID and count, or request ID and status, following
+     * the length prefix
+     */
+    public static final int HEADER_BYTES = 8;
+
+    /**
+     * Longest user agent a request may carry, in bytes
+     */
+    public static final int MAX_AGENT_BYTES = 256;
+
+    /**
+     * Longest error message a response may carry, in bytes
+     */
+    public static final int MAX_MESSAGE_BYTES = 1024;
+
+    public static final int OK = 200;
+    public static final int BAD_REQUEST = 400;
+    public static final int INTERNAL_SERVER_ERROR = 500;
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    private BinaryProtocol() {
+    }
+}
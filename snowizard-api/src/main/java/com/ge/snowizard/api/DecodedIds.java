@@ -0,0 +1,99 @@
+package com.ge.snowizard.api;
+
+import io.dropwizard.jackson.JsonSnakeCase;
+import java.util.Arrays;
+import javax.annotation.concurrent.Immutable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Components of a batch of decoded IDs, one array per component. Element
+ * {@code i} of each array belongs to the {@code i}-th ID of the batch.
+ */
+@Immutable
+@JsonSnakeCase
+public final class DecodedIds {
+
+    private final long[] timestamp;
+    private final int[] datacenterId;
+    private final int[] workerId;
+    private final int[] sequence;
+
+    /**
+     * Constructor
+     * 
+     * @param timestamp
+     *            Timestamps in milliseconds since the Unix epoch
+     * @param datacenterId
+     *            Datacenter IDs
+     * @param workerId
+     *            Worker IDs
+     * @param sequence
+     *            Sequence numbers
+     */
+    @JsonCreator
+    public DecodedIds(@JsonProperty("timestamp") final long[] timestamp,
+            @JsonProperty("datacenter_id") final int[] datacenterId,
+            @JsonProperty("worker_id") final int[] workerId,
+            @JsonProperty("sequence") final int[] sequence) {
+        this.timestamp = timestamp;
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+        this.sequence = sequence;
+    }
+
+    @JsonProperty
+    public long[] getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonProperty("datacenter_id")
+    public int[] getDatacenterId() {
+        return datacenterId;
+    }
+
+    @JsonProperty("worker_id")
+    public int[] getWorkerId() {
+        return workerId;
+    }
+
+    @JsonProperty
+    public int[] getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        final DecodedIds other = (DecodedIds) obj;
+        return Arrays.equals(timestamp, other.timestamp)
+                && Arrays.equals(datacenterId, other.datacenterId)
+                && Arrays.equals(workerId, other.workerId)
+                && Arrays.equals(sequence, other.sequence);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(timestamp);
+        result = 31 * result + Arrays.hashCode(datacenterId);
+        result = 31 * result + Arrays.hashCode(workerId);
+        result = 31 * result + Arrays.hashCode(sequence);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timestamp", Arrays.toString(timestamp))
+                .add("datacenterId", Arrays.toString(datacenterId))
+                .add("workerId", Arrays.toString(workerId))
+                .add("sequence", Arrays.toString(sequence)).toString();
+    }
+}
@@ -489,11 +489,1478 @@ public final class SnowizardProtos {
     // @@protoc_insertion_point(class_scope:snowizard.SnowizardResponse)
   }
 
+  public interface SnowizardDecodeRequestOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:snowizard.SnowizardDecodeRequest)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>repeated int64 id = 1 [packed = true];</code>
+     */
+    java.util.List<java.lang.Long> getIdList();
+    /**
+     * <code>repeated int64 id = 1 [packed = true];</code>
+     */
+    int getIdCount();
+    /**
+     * <code>repeated int64 id = 1 [packed = true];</code>
+     */
+    long getId(int index);
+  }
+  /**
+   * Protobuf type {@code snowizard.SnowizardDecodeRequest}
+   */
+  public static final class SnowizardDecodeRequest extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:snowizard.SnowizardDecodeRequest)
+      SnowizardDecodeRequestOrBuilder {
+    // Use SnowizardDecodeRequest.newBuilder() to construct.
+    private SnowizardDecodeRequest(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private SnowizardDecodeRequest(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final SnowizardDecodeRequest defaultInstance;
+    public static SnowizardDecodeRequest getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public SnowizardDecodeRequest getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private SnowizardDecodeRequest(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                id_ = new java.util.ArrayList<java.lang.Long>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              id_.add(input.readInt64());
+              break;
+            }
+            case 10: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001) && input.getBytesUntilLimit() > 0) {
+                id_ = new java.util.ArrayList<java.lang.Long>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                id_.add(input.readInt64());
+              }
+              input.popLimit(limit);
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+          id_ = java.util.Collections.unmodifiableList(id_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeRequest_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeRequest_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.class, com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<SnowizardDecodeRequest> PARSER =
+        new com.google.protobuf.AbstractParser<SnowizardDecodeRequest>() {
+      public SnowizardDecodeRequest parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new SnowizardDecodeRequest(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<SnowizardDecodeRequest> getParserForType() {
+      return PARSER;
+    }
+
+    public static final int ID_FIELD_NUMBER = 1;
+    private java.util.List<java.lang.Long> id_;
+    /**
+     * <code>repeated int64 id = 1 [packed = true];</code>
+     */
+    public java.util.List<java.lang.Long>
+        getIdList() {
+      return id_;
+    }
+    /**
+     * <code>repeated int64 id = 1 [packed = true];</code>
+     */
+    public int getIdCount() {
+      return id_.size();
+    }
+    /**
+     * <code>repeated int64 id = 1 [packed = true];</code>
+     */
+    public long getId(int index) {
+      return id_.get(index);
+    }
+    private int idMemoizedSerializedSize = -1;
+
+    private void initFields() {
+      id_ = java.util.Collections.emptyList();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (getIdList().size() > 0) {
+        output.writeRawVarint32(10);
+        output.writeRawVarint32(idMemoizedSerializedSize);
+      }
+      for (int i = 0; i < id_.size(); i++) {
+        output.writeInt64NoTag(id_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      {
+        int dataSize = 0;
+        for (int i = 0; i < id_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt64SizeNoTag(id_.get(i));
+        }
+        size += dataSize;
+        if (!getIdList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        idMemoizedSerializedSize = dataSize;
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code snowizard.SnowizardDecodeRequest}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:snowizard.SnowizardDecodeRequest)
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequestOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeRequest_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeRequest_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.class, com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.Builder.class);
+      }
+
+      // Construct using com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        id_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000001);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeRequest_descriptor;
+      }
+
+      public com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest getDefaultInstanceForType() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.getDefaultInstance();
+      }
+
+      public com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest build() {
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest buildPartial() {
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest result = new com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest(this);
+        int from_bitField0_ = bitField0_;
+        if (((bitField0_ & 0x00000001) == 0x00000001)) {
+          id_ = java.util.Collections.unmodifiableList(id_);
+          bitField0_ = (bitField0_ & ~0x00000001);
+        }
+        result.id_ = id_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest) {
+          return mergeFrom((com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest other) {
+        if (other == com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest.getDefaultInstance()) return this;
+        if (!other.id_.isEmpty()) {
+          if (id_.isEmpty()) {
+            id_ = other.id_;
+            bitField0_ = (bitField0_ & ~0x00000001);
+          } else {
+            ensureIdIsMutable();
+            id_.addAll(other.id_);
+          }
+          onChanged();
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<java.lang.Long> id_ = java.util.Collections.emptyList();
+      private void ensureIdIsMutable() {
+        if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+          id_ = new java.util.ArrayList<java.lang.Long>(id_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public java.util.List<java.lang.Long>
+          getIdList() {
+        return java.util.Collections.unmodifiableList(id_);
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public int getIdCount() {
+        return id_.size();
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public long getId(int index) {
+        return id_.get(index);
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public Builder setId(
+          int index, long value) {
+        ensureIdIsMutable();
+        id_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public Builder addId(long value) {
+        ensureIdIsMutable();
+        id_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public Builder addAllId(
+          java.lang.Iterable<? extends java.lang.Long> values) {
+        ensureIdIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, id_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int64 id = 1 [packed = true];</code>
+       */
+      public Builder clearId() {
+        id_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000001);
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:snowizard.SnowizardDecodeRequest)
+    }
+
+    static {
+      defaultInstance = new SnowizardDecodeRequest(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:snowizard.SnowizardDecodeRequest)
+  }
+
+  public interface SnowizardDecodeResponseOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:snowizard.SnowizardDecodeResponse)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>repeated int64 timestamp = 1 [packed = true];</code>
+     */
+    java.util.List<java.lang.Long> getTimestampList();
+    /**
+     * <code>repeated int64 timestamp = 1 [packed = true];</code>
+     */
+    int getTimestampCount();
+    /**
+     * <code>repeated int64 timestamp = 1 [packed = true];</code>
+     */
+    long getTimestamp(int index);
+
+    /**
+     * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+     */
+    java.util.List<java.lang.Integer> getDatacenterIdList();
+    /**
+     * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+     */
+    int getDatacenterIdCount();
+    /**
+     * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+     */
+    int getDatacenterId(int index);
+
+    /**
+     * <code>repeated int32 worker_id = 3 [packed = true];</code>
+     */
+    java.util.List<java.lang.Integer> getWorkerIdList();
+    /**
+     * <code>repeated int32 worker_id = 3 [packed = true];</code>
+     */
+    int getWorkerIdCount();
+    /**
+     * <code>repeated int32 worker_id = 3 [packed = true];</code>
+     */
+    int getWorkerId(int index);
+
+    /**
+     * <code>repeated int32 sequence = 4 [packed = true];</code>
+     */
+    java.util.List<java.lang.Integer> getSequenceList();
+    /**
+     * <code>repeated int32 sequence = 4 [packed = true];</code>
+     */
+    int getSequenceCount();
+    /**
+     * <code>repeated int32 sequence = 4 [packed = true];</code>
+     */
+    int getSequence(int index);
+  }
+  /**
+   * Protobuf type {@code snowizard.SnowizardDecodeResponse}
+   */
+  public static final class SnowizardDecodeResponse extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:snowizard.SnowizardDecodeResponse)
+      SnowizardDecodeResponseOrBuilder {
+    // Use SnowizardDecodeResponse.newBuilder() to construct.
+    private SnowizardDecodeResponse(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private SnowizardDecodeResponse(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final SnowizardDecodeResponse defaultInstance;
+    public static SnowizardDecodeResponse getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public SnowizardDecodeResponse getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private SnowizardDecodeResponse(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                timestamp_ = new java.util.ArrayList<java.lang.Long>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              timestamp_.add(input.readInt64());
+              break;
+            }
+            case 10: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001) && input.getBytesUntilLimit() > 0) {
+                timestamp_ = new java.util.ArrayList<java.lang.Long>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                timestamp_.add(input.readInt64());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 16: {
+              if (!((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
+                datacenterId_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              datacenterId_.add(input.readInt32());
+              break;
+            }
+            case 18: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000002) == 0x00000002) && input.getBytesUntilLimit() > 0) {
+                datacenterId_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                datacenterId_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 24: {
+              if (!((mutable_bitField0_ & 0x00000004) == 0x00000004)) {
+                workerId_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000004;
+              }
+              workerId_.add(input.readInt32());
+              break;
+            }
+            case 26: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000004) == 0x00000004) && input.getBytesUntilLimit() > 0) {
+                workerId_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000004;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                workerId_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 32: {
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                sequence_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              sequence_.add(input.readInt32());
+              break;
+            }
+            case 34: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008) && input.getBytesUntilLimit() > 0) {
+                sequence_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                sequence_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+          timestamp_ = java.util.Collections.unmodifiableList(timestamp_);
+        }
+        if (((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
+          datacenterId_ = java.util.Collections.unmodifiableList(datacenterId_);
+        }
+        if (((mutable_bitField0_ & 0x00000004) == 0x00000004)) {
+          workerId_ = java.util.Collections.unmodifiableList(workerId_);
+        }
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          sequence_ = java.util.Collections.unmodifiableList(sequence_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeResponse_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeResponse_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.class, com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<SnowizardDecodeResponse> PARSER =
+        new com.google.protobuf.AbstractParser<SnowizardDecodeResponse>() {
+      public SnowizardDecodeResponse parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new SnowizardDecodeResponse(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<SnowizardDecodeResponse> getParserForType() {
+      return PARSER;
+    }
+
+    public static final int TIMESTAMP_FIELD_NUMBER = 1;
+    private java.util.List<java.lang.Long> timestamp_;
+    /**
+     * <code>repeated int64 timestamp = 1 [packed = true];</code>
+     */
+    public java.util.List<java.lang.Long>
+        getTimestampList() {
+      return timestamp_;
+    }
+    /**
+     * <code>repeated int64 timestamp = 1 [packed = true];</code>
+     */
+    public int getTimestampCount() {
+      return timestamp_.size();
+    }
+    /**
+     * <code>repeated int64 timestamp = 1 [packed = true];</code>
+     */
+    public long getTimestamp(int index) {
+      return timestamp_.get(index);
+    }
+    private int timestampMemoizedSerializedSize = -1;
+
+    public static final int DATACENTER_ID_FIELD_NUMBER = 2;
+    private java.util.List<java.lang.Integer> datacenterId_;
+    /**
+     * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+     */
+    public java.util.List<java.lang.Integer>
+        getDatacenterIdList() {
+      return datacenterId_;
+    }
+    /**
+     * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+     */
+    public int getDatacenterIdCount() {
+      return datacenterId_.size();
+    }
+    /**
+     * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+     */
+    public int getDatacenterId(int index) {
+      return datacenterId_.get(index);
+    }
+    private int datacenterIdMemoizedSerializedSize = -1;
+
+    public static final int WORKER_ID_FIELD_NUMBER = 3;
+    private java.util.List<java.lang.Integer> workerId_;
+    /**
+     * <code>repeated int32 worker_id = 3 [packed = true];</code>
+     */
+    public java.util.List<java.lang.Integer>
+        getWorkerIdList() {
+      return workerId_;
+    }
+    /**
+     * <code>repeated int32 worker_id = 3 [packed = true];</code>
+     */
+    public int getWorkerIdCount() {
+      return workerId_.size();
+    }
+    /**
+     * <code>repeated int32 worker_id = 3 [packed = true];</code>
+     */
+    public int getWorkerId(int index) {
+      return workerId_.get(index);
+    }
+    private int workerIdMemoizedSerializedSize = -1;
+
+    public static final int SEQUENCE_FIELD_NUMBER = 4;
+    private java.util.List<java.lang.Integer> sequence_;
+    /**
+     * <code>repeated int32 sequence = 4 [packed = true];</code>
+     */
+    public java.util.List<java.lang.Integer>
+        getSequenceList() {
+      return sequence_;
+    }
+    /**
+     * <code>repeated int32 sequence = 4 [packed = true];</code>
+     */
+    public int getSequenceCount() {
+      return sequence_.size();
+    }
+    /**
+     * <code>repeated int32 sequence = 4 [packed = true];</code>
+     */
+    public int getSequence(int index) {
+      return sequence_.get(index);
+    }
+    private int sequenceMemoizedSerializedSize = -1;
+
+    private void initFields() {
+      timestamp_ = java.util.Collections.emptyList();
+      datacenterId_ = java.util.Collections.emptyList();
+      workerId_ = java.util.Collections.emptyList();
+      sequence_ = java.util.Collections.emptyList();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (getTimestampList().size() > 0) {
+        output.writeRawVarint32(10);
+        output.writeRawVarint32(timestampMemoizedSerializedSize);
+      }
+      for (int i = 0; i < timestamp_.size(); i++) {
+        output.writeInt64NoTag(timestamp_.get(i));
+      }
+      if (getDatacenterIdList().size() > 0) {
+        output.writeRawVarint32(18);
+        output.writeRawVarint32(datacenterIdMemoizedSerializedSize);
+      }
+      for (int i = 0; i < datacenterId_.size(); i++) {
+        output.writeInt32NoTag(datacenterId_.get(i));
+      }
+      if (getWorkerIdList().size() > 0) {
+        output.writeRawVarint32(26);
+        output.writeRawVarint32(workerIdMemoizedSerializedSize);
+      }
+      for (int i = 0; i < workerId_.size(); i++) {
+        output.writeInt32NoTag(workerId_.get(i));
+      }
+      if (getSequenceList().size() > 0) {
+        output.writeRawVarint32(34);
+        output.writeRawVarint32(sequenceMemoizedSerializedSize);
+      }
+      for (int i = 0; i < sequence_.size(); i++) {
+        output.writeInt32NoTag(sequence_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      {
+        int dataSize = 0;
+        for (int i = 0; i < timestamp_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt64SizeNoTag(timestamp_.get(i));
+        }
+        size += dataSize;
+        if (!getTimestampList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        timestampMemoizedSerializedSize = dataSize;
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < datacenterId_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(datacenterId_.get(i));
+        }
+        size += dataSize;
+        if (!getDatacenterIdList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        datacenterIdMemoizedSerializedSize = dataSize;
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < workerId_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(workerId_.get(i));
+        }
+        size += dataSize;
+        if (!getWorkerIdList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        workerIdMemoizedSerializedSize = dataSize;
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < sequence_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(sequence_.get(i));
+        }
+        size += dataSize;
+        if (!getSequenceList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        sequenceMemoizedSerializedSize = dataSize;
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code snowizard.SnowizardDecodeResponse}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:snowizard.SnowizardDecodeResponse)
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponseOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeResponse_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeResponse_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.class, com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.Builder.class);
+      }
+
+      // Construct using com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        timestamp_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000001);
+        datacenterId_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000002);
+        workerId_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000004);
+        sequence_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.internal_static_snowizard_SnowizardDecodeResponse_descriptor;
+      }
+
+      public com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse getDefaultInstanceForType() {
+        return com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.getDefaultInstance();
+      }
+
+      public com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse build() {
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse buildPartial() {
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse result = new com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse(this);
+        int from_bitField0_ = bitField0_;
+        if (((bitField0_ & 0x00000001) == 0x00000001)) {
+          timestamp_ = java.util.Collections.unmodifiableList(timestamp_);
+          bitField0_ = (bitField0_ & ~0x00000001);
+        }
+        result.timestamp_ = timestamp_;
+        if (((bitField0_ & 0x00000002) == 0x00000002)) {
+          datacenterId_ = java.util.Collections.unmodifiableList(datacenterId_);
+          bitField0_ = (bitField0_ & ~0x00000002);
+        }
+        result.datacenterId_ = datacenterId_;
+        if (((bitField0_ & 0x00000004) == 0x00000004)) {
+          workerId_ = java.util.Collections.unmodifiableList(workerId_);
+          bitField0_ = (bitField0_ & ~0x00000004);
+        }
+        result.workerId_ = workerId_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          sequence_ = java.util.Collections.unmodifiableList(sequence_);
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.sequence_ = sequence_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse) {
+          return mergeFrom((com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse other) {
+        if (other == com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse.getDefaultInstance()) return this;
+        if (!other.timestamp_.isEmpty()) {
+          if (timestamp_.isEmpty()) {
+            timestamp_ = other.timestamp_;
+            bitField0_ = (bitField0_ & ~0x00000001);
+          } else {
+            ensureTimestampIsMutable();
+            timestamp_.addAll(other.timestamp_);
+          }
+          onChanged();
+        }
+        if (!other.datacenterId_.isEmpty()) {
+          if (datacenterId_.isEmpty()) {
+            datacenterId_ = other.datacenterId_;
+            bitField0_ = (bitField0_ & ~0x00000002);
+          } else {
+            ensureDatacenterIdIsMutable();
+            datacenterId_.addAll(other.datacenterId_);
+          }
+          onChanged();
+        }
+        if (!other.workerId_.isEmpty()) {
+          if (workerId_.isEmpty()) {
+            workerId_ = other.workerId_;
+            bitField0_ = (bitField0_ & ~0x00000004);
+          } else {
+            ensureWorkerIdIsMutable();
+            workerId_.addAll(other.workerId_);
+          }
+          onChanged();
+        }
+        if (!other.sequence_.isEmpty()) {
+          if (sequence_.isEmpty()) {
+            sequence_ = other.sequence_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureSequenceIsMutable();
+            sequence_.addAll(other.sequence_);
+          }
+          onChanged();
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<java.lang.Long> timestamp_ = java.util.Collections.emptyList();
+      private void ensureTimestampIsMutable() {
+        if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+          timestamp_ = new java.util.ArrayList<java.lang.Long>(timestamp_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public java.util.List<java.lang.Long>
+          getTimestampList() {
+        return java.util.Collections.unmodifiableList(timestamp_);
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public int getTimestampCount() {
+        return timestamp_.size();
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public long getTimestamp(int index) {
+        return timestamp_.get(index);
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public Builder setTimestamp(
+          int index, long value) {
+        ensureTimestampIsMutable();
+        timestamp_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public Builder addTimestamp(long value) {
+        ensureTimestampIsMutable();
+        timestamp_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public Builder addAllTimestamp(
+          java.lang.Iterable<? extends java.lang.Long> values) {
+        ensureTimestampIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, timestamp_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int64 timestamp = 1 [packed = true];</code>
+       */
+      public Builder clearTimestamp() {
+        timestamp_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000001);
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<java.lang.Integer> datacenterId_ = java.util.Collections.emptyList();
+      private void ensureDatacenterIdIsMutable() {
+        if (!((bitField0_ & 0x00000002) == 0x00000002)) {
+          datacenterId_ = new java.util.ArrayList<java.lang.Integer>(datacenterId_);
+          bitField0_ |= 0x00000002;
+         }
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public java.util.List<java.lang.Integer>
+          getDatacenterIdList() {
+        return java.util.Collections.unmodifiableList(datacenterId_);
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public int getDatacenterIdCount() {
+        return datacenterId_.size();
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public int getDatacenterId(int index) {
+        return datacenterId_.get(index);
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public Builder setDatacenterId(
+          int index, int value) {
+        ensureDatacenterIdIsMutable();
+        datacenterId_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public Builder addDatacenterId(int value) {
+        ensureDatacenterIdIsMutable();
+        datacenterId_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public Builder addAllDatacenterId(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureDatacenterIdIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, datacenterId_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 datacenter_id = 2 [packed = true];</code>
+       */
+      public Builder clearDatacenterId() {
+        datacenterId_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000002);
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<java.lang.Integer> workerId_ = java.util.Collections.emptyList();
+      private void ensureWorkerIdIsMutable() {
+        if (!((bitField0_ & 0x00000004) == 0x00000004)) {
+          workerId_ = new java.util.ArrayList<java.lang.Integer>(workerId_);
+          bitField0_ |= 0x00000004;
+         }
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public java.util.List<java.lang.Integer>
+          getWorkerIdList() {
+        return java.util.Collections.unmodifiableList(workerId_);
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public int getWorkerIdCount() {
+        return workerId_.size();
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public int getWorkerId(int index) {
+        return workerId_.get(index);
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public Builder setWorkerId(
+          int index, int value) {
+        ensureWorkerIdIsMutable();
+        workerId_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public Builder addWorkerId(int value) {
+        ensureWorkerIdIsMutable();
+        workerId_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public Builder addAllWorkerId(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureWorkerIdIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, workerId_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 worker_id = 3 [packed = true];</code>
+       */
+      public Builder clearWorkerId() {
+        workerId_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000004);
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<java.lang.Integer> sequence_ = java.util.Collections.emptyList();
+      private void ensureSequenceIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          sequence_ = new java.util.ArrayList<java.lang.Integer>(sequence_);
+          bitField0_ |= 0x00000008;
+         }
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public java.util.List<java.lang.Integer>
+          getSequenceList() {
+        return java.util.Collections.unmodifiableList(sequence_);
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public int getSequenceCount() {
+        return sequence_.size();
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public int getSequence(int index) {
+        return sequence_.get(index);
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public Builder setSequence(
+          int index, int value) {
+        ensureSequenceIsMutable();
+        sequence_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public Builder addSequence(int value) {
+        ensureSequenceIsMutable();
+        sequence_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public Builder addAllSequence(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureSequenceIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, sequence_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 sequence = 4 [packed = true];</code>
+       */
+      public Builder clearSequence() {
+        sequence_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:snowizard.SnowizardDecodeResponse)
+    }
+
+    static {
+      defaultInstance = new SnowizardDecodeResponse(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:snowizard.SnowizardDecodeResponse)
+  }
+
   private static final com.google.protobuf.Descriptors.Descriptor
     internal_static_snowizard_SnowizardResponse_descriptor;
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_snowizard_SnowizardResponse_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_snowizard_SnowizardDecodeRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_snowizard_SnowizardDecodeRequest_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_snowizard_SnowizardDecodeResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_snowizard_SnowizardDecodeResponse_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor
       getDescriptor() {
@@ -504,8 +1971,12 @@ public final class SnowizardProtos {
   static {
     java.lang.String[] descriptorData = {
       "\n\017Snowizard.proto\022\tsnowizard\"#\n\021Snowizar" +
-      "dResponse\022\016\n\002id\030\001 \003(\003B\002\020\001B0\n\033com.ge.snow" +
-      "izard.api.protosB\017SnowizardProtosH\001"
+      "dResponse\022\016\n\002id\030\001 \003(\003B\002\020\001\"(\n\026SnowizardDe" +
+      "codeRequest\022\016\n\002id\030\001 \003(\003B\002\020\001\"x\n\027Snowizard" +
+      "DecodeResponse\022\025\n\ttimestamp\030\001 \003(\003B\002\020\001\022\031\n" +
+      "\rdatacenter_id\030\002 \003(\005B\002\020\001\022\025\n\tworker_id\030\003 " +
+      "\003(\005B\002\020\001\022\024\n\010sequence\030\004 \003(\005B\002\020\001B0\n\033com.ge." +
+      "snowizard.api.protosB\017SnowizardProtosH\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -525,6 +1996,18 @@ public final class SnowizardProtos {
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_snowizard_SnowizardResponse_descriptor,
         new java.lang.String[] { "Id", });
+    internal_static_snowizard_SnowizardDecodeRequest_descriptor =
+      getDescriptor().getMessageTypes().get(1);
+    internal_static_snowizard_SnowizardDecodeRequest_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_snowizard_SnowizardDecodeRequest_descriptor,
+        new java.lang.String[] { "Id", });
+    internal_static_snowizard_SnowizardDecodeResponse_descriptor =
+      getDescriptor().getMessageTypes().get(2);
+    internal_static_snowizard_SnowizardDecodeResponse_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_snowizard_SnowizardDecodeResponse_descriptor,
+        new java.lang.String[] { "Timestamp", "DatacenterId", "WorkerId", "Sequence", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
@@ -0,0 +1,45 @@
+package com.ge.snowizard.api;
+
+import static io.dropwizard.testing.FixtureHelpers.fixture;
+import static org.assertj.core.api.Assertions.assertThat;
+import io.dropwizard.jackson.Jackson;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DecodedIdsTest {
+
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+    private final DecodedIds decoded = new DecodedIds(new long[] {
+            1288834974658L, 1288834974668L }, new int[] { 1, 1 }, new int[] {
+            2, 3 }, new int[] { 0, 4095 });
+
+    @Test
+    public void serializesToJSON() throws Exception {
+        final String actual = MAPPER.writeValueAsString(decoded);
+        final String expected = MAPPER.writeValueAsString(MAPPER.readValue(
+                fixture("fixtures/decoded_ids.json"), DecodedIds.class));
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void deserializesFromJSON() throws Exception {
+        final DecodedIds actual = MAPPER.readValue(
+                fixture("fixtures/decoded_ids.json"), DecodedIds.class);
+        assertThat(actual).isEqualTo(decoded);
+    }
+
+    @Test
+    public void testEquals() {
+        final DecodedIds decoded2 = new DecodedIds(new long[] {
+                1288834974658L, 1288834974668L }, new int[] { 1, 1 },
+                new int[] { 2, 3 }, new int[] { 0, 4095 });
+        assertThat(decoded2).isEqualTo(decoded);
+        assertThat(decoded2.hashCode()).isEqualTo(decoded.hashCode());
+    }
+
+    @Test
+    public void testToString() {
+        final String expected = "DecodedIds{timestamp=[1288834974658, 1288834974668], datacenterId=[1, 1], workerId=[2, 3], sequence=[0, 4095]}";
+        assertThat(decoded.toString()).isEqualTo(expected);
+    }
+}
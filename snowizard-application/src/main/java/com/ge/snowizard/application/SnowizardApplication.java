@@ -1,34 +1,50 @@
 package com.ge.snowizard.application;
 
+import java.io.IOException;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import javax.servlet.DispatcherType;
 import javax.servlet.FilterRegistration;
 import org.eclipse.jetty.servlets.CrossOriginFilter;
 import io.dropwizard.Application;
-import io.dropwizard.discovery.DiscoveryBundle;
-import io.dropwizard.discovery.DiscoveryFactory;
 import io.dropwizard.jersey.protobuf.ProtocolBufferMessageBodyProvider;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.ge.snowizard.application.config.SnowizardConfiguration;
+import com.ge.snowizard.application.core.BinaryIdBatchWriter;
+import com.ge.snowizard.application.core.IdStreamWriter;
+import com.ge.snowizard.application.core.JsonIdBatchWriter;
+import com.ge.snowizard.application.core.LaneMetricSet;
+import com.ge.snowizard.application.core.ProtobufDecodeRequestReader;
+import com.ge.snowizard.application.core.ProtobufDecodeResponseWriter;
+import com.ge.snowizard.application.core.ProtobufIdBatchWriter;
+import com.ge.snowizard.application.core.SnowizardDiscoveryBundle;
+import com.ge.snowizard.application.core.TextIdBatchWriter;
+import com.ge.snowizard.application.core.WorkerIdConflictDetector;
 import com.ge.snowizard.application.exceptions.SnowizardExceptionMapper;
-import com.ge.snowizard.application.health.EmptyHealthCheck;
+import com.ge.snowizard.application.health.WorkerIdConflictHealthCheck;
 import com.ge.snowizard.application.resources.IdResource;
 import com.ge.snowizard.application.resources.PingResource;
 import com.ge.snowizard.application.resources.VersionResource;
+import com.ge.snowizard.core.IdDecoder;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdLayout;
 import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.ge.snowizard.core.TimeSource;
+import com.ge.snowizard.core.TopAgentTracker;
+import com.ge.snowizard.core.UserAgentValidator;
+import com.ge.snowizard.core.WorkerIdLease;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 public class SnowizardApplication extends Application<SnowizardConfiguration> {
 
-    private final DiscoveryBundle<SnowizardConfiguration> discoveryBundle = new DiscoveryBundle<SnowizardConfiguration>() {
-        @Override
-        public DiscoveryFactory getDiscoveryFactory(
-                final SnowizardConfiguration configuration) {
-            return configuration.getDiscoveryFactory();
-        }
-    };
+    private final SnowizardDiscoveryBundle discoveryBundle = new SnowizardDiscoveryBundle();
 
     public static void main(final String[] args) throws Exception {
         new SnowizardApplication().run(args);
@@ -50,6 +66,16 @@ public class SnowizardApplication extends Application<SnowizardConfiguration> {
 
         environment.jersey().register(new SnowizardExceptionMapper());
         environment.jersey().register(new ProtocolBufferMessageBodyProvider());
+        environment.jersey().register(new ProtobufIdBatchWriter());
+        environment.jersey().register(
+                new ProtobufDecodeRequestReader(config.getMaxCount()));
+        environment.jersey().register(new ProtobufDecodeResponseWriter());
+        environment.jersey().register(new BinaryIdBatchWriter());
+        environment.jersey().register(new TextIdBatchWriter());
+        environment.jersey().register(new IdStreamWriter());
+        environment.jersey().register(
+                new JsonIdBatchWriter(environment.getObjectMapper()
+                        .getFactory()));
 
         if (config.isCORSEnabled()) {
             final FilterRegistration.Dynamic filter = environment.servlets()
@@ -60,18 +86,40 @@ public class SnowizardApplication extends Application<SnowizardConfiguration> {
                     "GET");
         }
 
-        final IdWorker worker = new IdWorker(config.getWorkerId(),
-                config.getDatacenterId(), 0L, config.validateUserAgent(),
-                environment.metrics());
+        final TimeSource timeSource = config.getClockFactory().build(
+                environment);
+        final IdLayout layout = config.getLayoutFactory().build();
+        final UserAgentValidator agentValidator = new UserAgentValidator();
+
+        final Map<Integer, WorkerIdLease> leases = config
+                .getWorkerIdLeaseFactory().build(config.getDiscoveryFactory(),
+                        config.getDatacenterId(), layout, environment);
+        final List<Integer> workerIds = leases.isEmpty() ? config
+                .getWorkerIds() : ImmutableList.copyOf(leases.keySet());
+        final WorkerIdConflictDetector conflicts = discoveryBundle.claim(
+                config.getDiscoveryFactory(), config.getDatacenterId(),
+                workerIds, config.getConflictCheckInterval(), environment);
 
+        final List<IdGenerator> workers = Lists.newArrayList();
+        final List<TopAgentTracker> topAgents = Lists.newArrayList();
+        for (final int workerId : workerIds) {
+            final TopAgentTracker laneTopAgents = new TopAgentTracker(
+                    config.getTopAgents());
+            final IdWorker worker = newWorker(config, workerId, layout,
+                    leases.get(workerId), conflicts, laneTopAgents,
+                    agentValidator, timeSource, environment);
+            workers.add(config.getPregenerationFactory().build(worker,
+                    environment));
+            topAgents.add(laneTopAgents);
+        }
+        final IdWorkerLanes lanes = new IdWorkerLanes(workers);
         environment.metrics().register(
-                MetricRegistry.name(SnowizardApplication.class, "worker_id"),
-                new Gauge<Integer>() {
-                    @Override
-                    public Integer getValue() {
-                        return config.getWorkerId();
-                    }
-                });
+                MetricRegistry.name(IdWorker.class, "top_agents"),
+                TopAgentTracker.merged(topAgents));
+
+        environment.metrics().register(
+                MetricRegistry.name(SnowizardApplication.class, "lanes"),
+                new LaneMetricSet(lanes));
 
         environment.metrics()
         .register(
@@ -84,11 +132,69 @@ public class SnowizardApplication extends Application<SnowizardConfiguration> {
                 });
 
         // health check
-        environment.healthChecks().register("empty", new EmptyHealthCheck());
+        environment.healthChecks().register("worker_ids",
+                new WorkerIdConflictHealthCheck(conflicts));
 
         // resources
-        environment.jersey().register(new IdResource(worker));
+        environment.jersey().register(new IdResource(lanes, new IdDecoder(
+                layout), config.getMaxCount()));
         environment.jersey().register(new PingResource());
         environment.jersey().register(new VersionResource());
+
+        // listeners
+        config.getBinaryProtocolFactory().build(lanes, environment);
+        config.getThriftFactory().build(lanes, environment);
+        config.getMemcachedFactory().build(lanes, environment);
+        config.getUnixSocketFactory().build(lanes, environment);
+    }
+
+    /**
+     * Build the worker for a single lane
+     *
+     * @param config
+     *            Application configuration
+     * @param workerId
+     *            Worker ID owned by the lane
+     * @param layout
+     *            Bit layout of the generated IDs
+     * @param lease
+     *            Lease on the worker ID, or null when statically configured
+     * @param conflicts
+     *            Detector of other instances using the same worker IDs, or
+     *            null when discovery is disabled
+     * @param topAgents
+     *            User-Agent tracker of the lane
+     * @param agentValidator
+     *            User-Agent validator shared by every lane
+     * @param timeSource
+     *            Source of the current time
+     * @param environment
+     *            Application environment
+     * @return new worker
+     * @throws IOException
+     *             When the high-water mark file can't be opened
+     */
+    private static IdWorker newWorker(final SnowizardConfiguration config,
+            final int workerId, final IdLayout layout,
+            final WorkerIdLease lease,
+            final WorkerIdConflictDetector conflicts,
+            final TopAgentTracker topAgents,
+            final UserAgentValidator agentValidator,
+            final TimeSource timeSource,
+            final Environment environment) throws IOException {
+        final Duration maxRollbackWait = config.getClockFactory()
+                .getMaxRollbackWait();
+        return IdWorker.builder(workerId, config.getDatacenterId())
+                .validateUserAgent(config.validateUserAgent())
+                .agentValidator(agentValidator)
+                .registry(environment.metrics()).layout(layout)
+                .topAgents(topAgents)
+                .timeSource(timeSource)
+                .maxRollbackWait(maxRollbackWait.getQuantity(),
+                        maxRollbackWait.getUnit())
+                .waitStrategy(config.getWaitStrategyFactory().build())
+                .highWaterMark(config.getHighWaterMarkFactory().build(
+                        config.getDatacenterId(), workerId, environment))
+                .lease(lease).lease(conflicts).lockFree(config.isLockFree()).build();
     }
 }
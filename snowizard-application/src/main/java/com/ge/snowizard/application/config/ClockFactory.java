@@ -0,0 +1,135 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import javax.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.core.CachedTimeSource;
+import com.ge.snowizard.core.MonotonicTimeSource;
+import com.ge.snowizard.core.SystemTimeSource;
+import com.ge.snowizard.core.TimeSource;
+
+public class ClockFactory {
+
+    public enum Type {
+        /**
+         * Read the system clock for every timestamp
+         */
+        SYSTEM,
+
+        /**
+         * Read a millisecond value refreshed by a background ticker thread
+         */
+        CACHED,
+
+        /**
+         * Measure time with {@link System#nanoTime()}, never moving backwards
+         * and re-syncing gradually with the system clock
+         */
+        MONOTONIC
+    }
+
+    @NotNull
+    @JsonProperty
+    private Type type = Type.SYSTEM;
+
+    @NotNull
+    @JsonProperty
+    private Duration tick_interval = Duration.microseconds(250);
+
+    @NotNull
+    @JsonProperty
+    private Duration resync_interval = Duration.milliseconds(100);
+
+    @NotNull
+    @JsonProperty
+    private Duration max_slew = Duration.milliseconds(1);
+
+    @NotNull
+    @JsonProperty
+    private Duration max_rollback_wait = Duration.milliseconds(0);
+
+    @JsonProperty("type")
+    public Type getType() {
+        return type;
+    }
+
+    @JsonProperty("type")
+    public void setType(final Type type) {
+        this.type = type;
+    }
+
+    @JsonProperty("tick_interval")
+    public Duration getTickInterval() {
+        return tick_interval;
+    }
+
+    @JsonProperty("tick_interval")
+    public void setTickInterval(final Duration tickInterval) {
+        this.tick_interval = tickInterval;
+    }
+
+    @JsonProperty("resync_interval")
+    public Duration getResyncInterval() {
+        return resync_interval;
+    }
+
+    @JsonProperty("resync_interval")
+    public void setResyncInterval(final Duration resyncInterval) {
+        this.resync_interval = resyncInterval;
+    }
+
+    @JsonProperty("max_slew")
+    public Duration getMaxSlew() {
+        return max_slew;
+    }
+
+    @JsonProperty("max_slew")
+    public void setMaxSlew(final Duration maxSlew) {
+        this.max_slew = maxSlew;
+    }
+
+    @JsonProperty("max_rollback_wait")
+    public Duration getMaxRollbackWait() {
+        return max_rollback_wait;
+    }
+
+    @JsonProperty("max_rollback_wait")
+    public void setMaxRollbackWait(final Duration maxRollbackWait) {
+        this.max_rollback_wait = maxRollbackWait;
+    }
+
+    /**
+     * Build the configured {@link TimeSource}, tying any background thread it
+     * needs to the application lifecycle
+     *
+     * @param environment
+     *            Application environment
+     * @return new time source
+     */
+    public TimeSource build(final Environment environment) {
+        switch (type) {
+        case CACHED:
+            final CachedTimeSource source = new CachedTimeSource(
+                    tick_interval.getQuantity(), tick_interval.getUnit());
+            environment.lifecycle().manage(new Managed() {
+                @Override
+                public void start() throws Exception {
+                }
+
+                @Override
+                public void stop() throws Exception {
+                    source.close();
+                }
+            });
+            return source;
+        case MONOTONIC:
+            return new MonotonicTimeSource(resync_interval.getQuantity(),
+                    resync_interval.getUnit(), max_slew.toMilliseconds(),
+                    environment.metrics());
+        default:
+            return new SystemTimeSource();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import java.io.File;
+import java.io.IOException;
+import javax.validation.constraints.NotNull;
+import org.hibernate.validator.constraints.NotEmpty;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.core.HighWaterMark;
+
+public class HighWaterMarkFactory {
+
+    @JsonProperty
+    private boolean enabled = false;
+
+    @NotEmpty
+    @JsonProperty
+    private String directory = ".";
+
+    @NotNull
+    @JsonProperty
+    private Duration reservation = Duration.milliseconds(300);
+
+    @JsonProperty("enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty("enabled")
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty("directory")
+    public String getDirectory() {
+        return directory;
+    }
+
+    @JsonProperty("directory")
+    public void setDirectory(final String directory) {
+        this.directory = directory;
+    }
+
+    @JsonProperty("reservation")
+    public Duration getReservation() {
+        return reservation;
+    }
+
+    @JsonProperty("reservation")
+    public void setReservation(final Duration reservation) {
+        this.reservation = reservation;
+    }
+
+    /**
+     * Open the high-water mark file of a worker, closing it when the
+     * application stops
+     *
+     * @param datacenterId
+     *            Datacenter ID
+     * @param workerId
+     *            Worker ID
+     * @param environment
+     *            Application environment
+     * @return the high-water mark, or null when disabled
+     * @throws IOException
+     *             When the file can't be opened
+     */
+    public HighWaterMark build(final int datacenterId, final int workerId,
+            final Environment environment) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        final File file = new File(directory, String.format(
+                "snowizard-%d-%d.hwm", datacenterId, workerId));
+        final HighWaterMark highWaterMark = new HighWaterMark(file,
+                reservation.getQuantity(), reservation.getUnit());
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() throws Exception {
+            }
+
+            @Override
+            public void stop() throws Exception {
+                highWaterMark.close();
+            }
+        });
+        return highWaterMark;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.util.Duration;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.core.IdLayout;
+import com.ge.snowizard.core.IdWorker;
+
+public class IdLayoutFactory {
+
+    @Min(0)
+    @JsonProperty
+    private long epoch = IdWorker.TWEPOCH;
+
+    @NotNull
+    @JsonProperty
+    private Duration timestamp_unit = Duration.milliseconds(1);
+
+    @Min(0)
+    @JsonProperty
+    private int datacenter_id_bits = 5;
+
+    @Min(0)
+    @JsonProperty
+    private int worker_id_bits = 5;
+
+    @Min(1)
+    @JsonProperty
+    private int sequence_bits = 12;
+
+    @JsonProperty("epoch")
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @JsonProperty("epoch")
+    public void setEpoch(final long epoch) {
+        this.epoch = epoch;
+    }
+
+    @JsonProperty("timestamp_unit")
+    public Duration getTimestampUnit() {
+        return timestamp_unit;
+    }
+
+    @JsonProperty("timestamp_unit")
+    public void setTimestampUnit(final Duration timestampUnit) {
+        this.timestamp_unit = timestampUnit;
+    }
+
+    @JsonProperty("datacenter_id_bits")
+    public int getDatacenterIdBits() {
+        return datacenter_id_bits;
+    }
+
+    @JsonProperty("datacenter_id_bits")
+    public void setDatacenterIdBits(final int datacenterIdBits) {
+        this.datacenter_id_bits = datacenterIdBits;
+    }
+
+    @JsonProperty("worker_id_bits")
+    public int getWorkerIdBits() {
+        return worker_id_bits;
+    }
+
+    @JsonProperty("worker_id_bits")
+    public void setWorkerIdBits(final int workerIdBits) {
+        this.worker_id_bits = workerIdBits;
+    }
+
+    @JsonProperty("sequence_bits")
+    public int getSequenceBits() {
+        return sequence_bits;
+    }
+
+    @JsonProperty("sequence_bits")
+    public void setSequenceBits(final int sequenceBits) {
+        this.sequence_bits = sequenceBits;
+    }
+
+    /**
+     * Build the configured {@link IdLayout}
+     *
+     * @return new layout
+     * @throws IllegalArgumentException
+     *             When the layout is invalid
+     */
+    public IdLayout build() {
+        return IdLayout.builder().epoch(epoch)
+                .timestampUnit(timestamp_unit.toMilliseconds())
+                .datacenterIdBits(datacenter_id_bits)
+                .workerIdBits(worker_id_bits).sequenceBits(sequence_bits)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.setup.Environment;
+import java.net.InetSocketAddress;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import org.hibernate.validator.constraints.NotEmpty;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.application.server.MemcachedServer;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.base.Optional;
+
+public class MemcachedFactory {
+
+    @JsonProperty
+    private boolean enabled = false;
+
+    @JsonProperty
+    private String bind_host = null;
+
+    @Min(0)
+    @Max(65535)
+    @JsonProperty
+    private int port = 11211;
+
+    @Min(1)
+    @Max(1048576)
+    @JsonProperty
+    private int max_count = 4096;
+
+    @NotEmpty
+    @JsonProperty
+    private String user_agent = "memcached";
+
+    @JsonProperty("enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty("enabled")
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty("bind_host")
+    public String getBindHost() {
+        return bind_host;
+    }
+
+    @JsonProperty("bind_host")
+    public void setBindHost(final String bindHost) {
+        this.bind_host = bindHost;
+    }
+
+    @JsonProperty("port")
+    public int getPort() {
+        return port;
+    }
+
+    @JsonProperty("port")
+    public void setPort(final int port) {
+        this.port = port;
+    }
+
+    @JsonProperty("max_count")
+    public int getMaxCount() {
+        return max_count;
+    }
+
+    @JsonProperty("max_count")
+    public void setMaxCount(final int maxCount) {
+        this.max_count = maxCount;
+    }
+
+    @JsonProperty("user_agent")
+    public String getUserAgent() {
+        return user_agent;
+    }
+
+    @JsonProperty("user_agent")
+    public void setUserAgent(final String userAgent) {
+        this.user_agent = userAgent;
+    }
+
+    /**
+     * Build the memcached protocol listener when enabled, tying it to the
+     * application lifecycle
+     *
+     * @param lanes
+     *            ID generators to serve IDs from
+     * @param environment
+     *            Application environment
+     * @return the listener, if enabled
+     */
+    public Optional<MemcachedServer> build(final IdWorkerLanes lanes,
+            final Environment environment) {
+        if (!enabled) {
+            return Optional.absent();
+        }
+        final InetSocketAddress address = bind_host == null ? new InetSocketAddress(
+                port) : new InetSocketAddress(bind_host, port);
+        final MemcachedServer server = new MemcachedServer(address, lanes,
+                user_agent, max_count);
+        environment.lifecycle().manage(server);
+        return Optional.of(server);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.ValidationMethod;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.PregeneratedIdGenerator;
+
+public class PregenerationFactory {
+
+    @JsonProperty
+    private boolean enabled = false;
+
+    @Min(1)
+    @JsonProperty
+    private int capacity = 8192;
+
+    @NotNull
+    @JsonProperty
+    private Duration max_staleness = Duration.milliseconds(5);
+
+    @JsonProperty("enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty("enabled")
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty("capacity")
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @JsonProperty("capacity")
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    @JsonProperty("max_staleness")
+    public Duration getMaxStaleness() {
+        return max_staleness;
+    }
+
+    @JsonProperty("max_staleness")
+    public void setMaxStaleness(final Duration maxStaleness) {
+        this.max_staleness = maxStaleness;
+    }
+
+    @ValidationMethod(message = "capacity must be a power of two")
+    @JsonIgnore
+    public boolean isCapacityPowerOfTwo() {
+        return Integer.bitCount(capacity) == 1;
+    }
+
+    /**
+     * Wrap a worker with a pre-generation stage when enabled, tying its
+     * producer thread to the application lifecycle
+     *
+     * @param worker
+     *            Worker generating the IDs
+     * @param environment
+     *            Application environment
+     * @return the worker itself, or a generator pre-generating its IDs
+     */
+    public IdGenerator build(final IdWorker worker,
+            final Environment environment) {
+        if (!enabled) {
+            return worker;
+        }
+        final PregeneratedIdGenerator generator = new PregeneratedIdGenerator(
+                worker, capacity, max_staleness.getQuantity(),
+                max_staleness.getUnit(), environment.metrics());
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() throws Exception {
+            }
+
+            @Override
+            public void stop() throws Exception {
+                generator.close();
+            }
+        });
+        return generator;
+    }
+}
@@ -2,14 +2,24 @@ package com.ge.snowizard.application.config;
 
 import io.dropwizard.Configuration;
 import io.dropwizard.discovery.DiscoveryFactory;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.ValidationMethod;
+import java.util.List;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.application.resources.IdResource;
+import com.ge.snowizard.core.IdLayout;
+import com.ge.snowizard.core.TopAgentTracker;
+import com.google.common.collect.ImmutableList;
 
 public class SnowizardConfiguration extends Configuration {
     private static final int MAX_ID = 1024;
+    private static final int MAX_TOP_AGENTS = 256;
+    private static final int MAX_COUNT = 1048576;
 
     @Min(1)
     @Max(MAX_ID)
@@ -21,20 +31,94 @@ public class SnowizardConfiguration extends Configuration {
     @JsonProperty
     private int datacenter_id = 1;
 
+    @NotNull
+    @JsonProperty
+    private List<Integer> worker_ids = ImmutableList.of();
+
     @JsonProperty
     private boolean validate_user_agent = false;
 
     @JsonProperty
     private boolean enable_cors = false;
 
+    @JsonProperty
+    private boolean lock_free = false;
+
+    @Min(1)
+    @Max(MAX_TOP_AGENTS)
+    @JsonProperty
+    private int top_agents = TopAgentTracker.DEFAULT_CAPACITY;
+
+    @Min(1)
+    @Max(MAX_COUNT)
+    @JsonProperty
+    private int max_count = IdResource.DEFAULT_MAX_COUNT;
+
+    @NotNull
+    @JsonProperty
+    private Duration conflict_check_interval = Duration.seconds(1);
+
+    @Valid
+    @NotNull
+    private IdLayoutFactory layout = new IdLayoutFactory();
+
+    @Valid
+    @NotNull
+    private ClockFactory clock = new ClockFactory();
+
+    @Valid
+    @NotNull
+    private WaitStrategyFactory wait_strategy = new WaitStrategyFactory();
+
+    @Valid
+    @NotNull
+    private PregenerationFactory pregenerate = new PregenerationFactory();
+
+    @Valid
+    @NotNull
+    private HighWaterMarkFactory high_water_mark = new HighWaterMarkFactory();
+
+    @Valid
+    @NotNull
+    private WorkerIdLeaseFactory worker_id_lease = new WorkerIdLeaseFactory();
+
     @Valid
     @NotNull
     private DiscoveryFactory discovery = new DiscoveryFactory();
 
+    @Valid
+    @NotNull
+    private BinaryProtocolFactory binary_protocol = new BinaryProtocolFactory();
+
+    @Valid
+    @NotNull
+    private ThriftFactory thrift = new ThriftFactory();
+
+    @Valid
+    @NotNull
+    private MemcachedFactory memcached = new MemcachedFactory();
+
+    @Valid
+    @NotNull
+    private UnixSocketFactory unix_socket = new UnixSocketFactory();
+
     public int getWorkerId() {
         return worker_id;
     }
 
+    /**
+     * Return the worker IDs owned by this process, one per lane. Falls back
+     * to the single {@code worker_id} when no lanes are configured.
+     *
+     * @return Worker IDs
+     */
+    public List<Integer> getWorkerIds() {
+        if (worker_ids.isEmpty()) {
+            return ImmutableList.of(worker_id);
+        }
+        return worker_ids;
+    }
+
     public int getDatacenterId() {
         return datacenter_id;
     }
@@ -49,6 +133,132 @@ public class SnowizardConfiguration extends Configuration {
         return enable_cors;
     }
 
+    @JsonProperty("lock_free")
+    public boolean isLockFree() {
+        return lock_free;
+    }
+
+    /**
+     * Return how many User-Agents to publish ID counts for
+     *
+     * @return Number of tracked agents
+     */
+    @JsonProperty("top_agents")
+    public int getTopAgents() {
+        return top_agents;
+    }
+
+    /**
+     * Return the most IDs a single HTTP request may ask for
+     *
+     * @return Maximum count
+     */
+    @JsonProperty("max_count")
+    public int getMaxCount() {
+        return max_count;
+    }
+
+    /**
+     * Return how often to compare the worker IDs advertised by other
+     * instances with ours
+     *
+     * @return Conflict check interval
+     */
+    @JsonProperty("conflict_check_interval")
+    public Duration getConflictCheckInterval() {
+        return conflict_check_interval;
+    }
+
+    @JsonProperty("layout")
+    public IdLayoutFactory getLayoutFactory() {
+        return layout;
+    }
+
+    @JsonProperty("layout")
+    public void setLayoutFactory(final IdLayoutFactory layoutFactory) {
+        this.layout = layoutFactory;
+    }
+
+    /**
+     * Check that the ID layout is valid and that the worker and datacenter
+     * IDs fit in it
+     *
+     * @return true if the layout can be used
+     */
+    @ValidationMethod(message = "layout must be valid and have room for the worker and datacenter IDs")
+    @JsonIgnore
+    public boolean isLayoutValid() {
+        final IdLayout idLayout;
+        try {
+            idLayout = layout.build();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (datacenter_id > idLayout.getMaxDatacenterId()) {
+            return false;
+        }
+        for (final int workerId : getWorkerIds()) {
+            if (workerId < 0 || workerId > idLayout.getMaxWorkerId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @JsonProperty("clock")
+    public ClockFactory getClockFactory() {
+        return clock;
+    }
+
+    @JsonProperty("clock")
+    public void setClockFactory(final ClockFactory clockFactory) {
+        this.clock = clockFactory;
+    }
+
+    @JsonProperty("wait_strategy")
+    public WaitStrategyFactory getWaitStrategyFactory() {
+        return wait_strategy;
+    }
+
+    @JsonProperty("wait_strategy")
+    public void setWaitStrategyFactory(
+            final WaitStrategyFactory waitStrategyFactory) {
+        this.wait_strategy = waitStrategyFactory;
+    }
+
+    @JsonProperty("pregenerate")
+    public PregenerationFactory getPregenerationFactory() {
+        return pregenerate;
+    }
+
+    @JsonProperty("pregenerate")
+    public void setPregenerationFactory(
+            final PregenerationFactory pregenerationFactory) {
+        this.pregenerate = pregenerationFactory;
+    }
+
+    @JsonProperty("high_water_mark")
+    public HighWaterMarkFactory getHighWaterMarkFactory() {
+        return high_water_mark;
+    }
+
+    @JsonProperty("high_water_mark")
+    public void setHighWaterMarkFactory(
+            final HighWaterMarkFactory highWaterMarkFactory) {
+        this.high_water_mark = highWaterMarkFactory;
+    }
+
+    @JsonProperty("worker_id_lease")
+    public WorkerIdLeaseFactory getWorkerIdLeaseFactory() {
+        return worker_id_lease;
+    }
+
+    @JsonProperty("worker_id_lease")
+    public void setWorkerIdLeaseFactory(
+            final WorkerIdLeaseFactory workerIdLeaseFactory) {
+        this.worker_id_lease = workerIdLeaseFactory;
+    }
+
     @JsonProperty("discovery")
     public DiscoveryFactory getDiscoveryFactory() {
         return discovery;
@@ -58,4 +268,45 @@ public class SnowizardConfiguration extends Configuration {
     public void setDiscoveryFactory(final DiscoveryFactory discoveryFactory) {
         this.discovery = discoveryFactory;
     }
+
+    @JsonProperty("binary_protocol")
+    public BinaryProtocolFactory getBinaryProtocolFactory() {
+        return binary_protocol;
+    }
+
+    @JsonProperty("binary_protocol")
+    public void setBinaryProtocolFactory(
+            final BinaryProtocolFactory binaryProtocolFactory) {
+        this.binary_protocol = binaryProtocolFactory;
+    }
+
+    @JsonProperty("thrift")
+    public ThriftFactory getThriftFactory() {
+        return thrift;
+    }
+
+    @JsonProperty("thrift")
+    public void setThriftFactory(final ThriftFactory thriftFactory) {
+        this.thrift = thriftFactory;
+    }
+
+    @JsonProperty("memcached")
+    public MemcachedFactory getMemcachedFactory() {
+        return memcached;
+    }
+
+    @JsonProperty("memcached")
+    public void setMemcachedFactory(final MemcachedFactory memcachedFactory) {
+        this.memcached = memcachedFactory;
+    }
+
+    @JsonProperty("unix_socket")
+    public UnixSocketFactory getUnixSocketFactory() {
+        return unix_socket;
+    }
+
+    @JsonProperty("unix_socket")
+    public void setUnixSocketFactory(final UnixSocketFactory unixSocketFactory) {
+        this.unix_socket = unixSocketFactory;
+    }
 }
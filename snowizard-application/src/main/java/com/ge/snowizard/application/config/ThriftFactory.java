@@ -0,0 +1,76 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.setup.Environment;
+import java.net.InetSocketAddress;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.application.server.ThriftServer;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.base.Optional;
+
+public class ThriftFactory {
+
+    @JsonProperty
+    private boolean enabled = false;
+
+    @JsonProperty
+    private String bind_host = null;
+
+    @Min(0)
+    @Max(65535)
+    @JsonProperty
+    private int port = 7609;
+
+    @JsonProperty("enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty("enabled")
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty("bind_host")
+    public String getBindHost() {
+        return bind_host;
+    }
+
+    @JsonProperty("bind_host")
+    public void setBindHost(final String bindHost) {
+        this.bind_host = bindHost;
+    }
+
+    @JsonProperty("port")
+    public int getPort() {
+        return port;
+    }
+
+    @JsonProperty("port")
+    public void setPort(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Build the Snowflake-compatible Thrift listener when enabled, tying it to
+     * the application lifecycle
+     *
+     * @param lanes
+     *            ID generators to serve IDs from
+     * @param environment
+     *            Application environment
+     * @return the listener, if enabled
+     */
+    public Optional<ThriftServer> build(final IdWorkerLanes lanes,
+            final Environment environment) {
+        if (!enabled) {
+            return Optional.absent();
+        }
+        final InetSocketAddress address = bind_host == null ? new InetSocketAddress(
+                port) : new InetSocketAddress(bind_host, port);
+        final ThriftServer server = new ThriftServer(address, lanes);
+        environment.lifecycle().manage(server);
+        return Optional.of(server);
+    }
+}
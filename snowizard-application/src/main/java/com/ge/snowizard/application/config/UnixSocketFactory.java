@@ -0,0 +1,78 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.setup.Environment;
+import java.io.File;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import org.hibernate.validator.constraints.NotEmpty;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.application.server.BinaryProtocolServer;
+import com.ge.snowizard.application.server.UnixListener;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.base.Optional;
+
+public class UnixSocketFactory {
+
+    @JsonProperty
+    private boolean enabled = false;
+
+    @NotEmpty
+    @JsonProperty
+    private String path = "snowizard.sock";
+
+    @Min(1)
+    @Max(1048576)
+    @JsonProperty
+    private int max_count = 65536;
+
+    @JsonProperty("enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty("enabled")
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty("path")
+    public String getPath() {
+        return path;
+    }
+
+    @JsonProperty("path")
+    public void setPath(final String path) {
+        this.path = path;
+    }
+
+    @JsonProperty("max_count")
+    public int getMaxCount() {
+        return max_count;
+    }
+
+    @JsonProperty("max_count")
+    public void setMaxCount(final int maxCount) {
+        this.max_count = maxCount;
+    }
+
+    /**
+     * Build the binary protocol listener on a Unix domain socket when enabled,
+     * tying it to the application lifecycle
+     *
+     * @param lanes
+     *            ID generators to serve IDs from
+     * @param environment
+     *            Application environment
+     * @return the listener, if enabled
+     */
+    public Optional<BinaryProtocolServer> build(final IdWorkerLanes lanes,
+            final Environment environment) {
+        if (!enabled) {
+            return Optional.absent();
+        }
+        final BinaryProtocolServer server = new BinaryProtocolServer(
+                new UnixListener(new File(path)), lanes, max_count);
+        environment.lifecycle().manage(server);
+        return Optional.of(server);
+    }
+}
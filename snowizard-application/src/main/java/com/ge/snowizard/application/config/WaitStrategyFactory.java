@@ -0,0 +1,89 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.util.Duration;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.core.BusySpinWaitStrategy;
+import com.ge.snowizard.core.SpinParkWaitStrategy;
+import com.ge.snowizard.core.SpinYieldWaitStrategy;
+import com.ge.snowizard.core.WaitStrategy;
+
+public class WaitStrategyFactory {
+
+    public enum Type {
+        /**
+         * Read the clock in a tight loop
+         */
+        BUSY_SPIN,
+
+        /**
+         * Spin, then yield the core between clock reads
+         */
+        SPIN_YIELD,
+
+        /**
+         * Spin, then park for park_interval between clock reads
+         */
+        SPIN_PARK
+    }
+
+    @NotNull
+    @JsonProperty
+    private Type type = Type.BUSY_SPIN;
+
+    @Min(0)
+    @JsonProperty
+    private int spin_tries = 100;
+
+    @NotNull
+    @JsonProperty
+    private Duration park_interval = Duration.microseconds(50);
+
+    @JsonProperty("type")
+    public Type getType() {
+        return type;
+    }
+
+    @JsonProperty("type")
+    public void setType(final Type type) {
+        this.type = type;
+    }
+
+    @JsonProperty("spin_tries")
+    public int getSpinTries() {
+        return spin_tries;
+    }
+
+    @JsonProperty("spin_tries")
+    public void setSpinTries(final int spinTries) {
+        this.spin_tries = spinTries;
+    }
+
+    @JsonProperty("park_interval")
+    public Duration getParkInterval() {
+        return park_interval;
+    }
+
+    @JsonProperty("park_interval")
+    public void setParkInterval(final Duration parkInterval) {
+        this.park_interval = parkInterval;
+    }
+
+    /**
+     * Build the configured {@link WaitStrategy}
+     *
+     * @return new wait strategy
+     */
+    public WaitStrategy build() {
+        switch (type) {
+        case SPIN_YIELD:
+            return new SpinYieldWaitStrategy(spin_tries);
+        case SPIN_PARK:
+            return new SpinParkWaitStrategy(spin_tries,
+                    park_interval.getQuantity(), park_interval.getUnit());
+        default:
+            return new BusySpinWaitStrategy();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ge.snowizard.application.config;
+
+import io.dropwizard.discovery.DiscoveryFactory;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.validation.constraints.Min;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.hibernate.validator.constraints.NotEmpty;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ge.snowizard.application.core.ZooKeeperWorkerIdLease;
+import com.ge.snowizard.core.IdLayout;
+import com.ge.snowizard.core.WorkerIdLease;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class WorkerIdLeaseFactory {
+
+    @JsonProperty
+    private boolean enabled = false;
+
+    @NotEmpty
+    @JsonProperty
+    private String path = "/snowizard/workers";
+
+    @Min(1)
+    @JsonProperty
+    private int lanes = 1;
+
+    @JsonProperty("enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty("enabled")
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @JsonProperty("path")
+    public String getPath() {
+        return path;
+    }
+
+    @JsonProperty("path")
+    public void setPath(final String path) {
+        this.path = path;
+    }
+
+    @JsonProperty("lanes")
+    public int getLanes() {
+        return lanes;
+    }
+
+    @JsonProperty("lanes")
+    public void setLanes(final int lanes) {
+        this.lanes = lanes;
+    }
+
+    /**
+     * Lease one worker ID per lane from the ZooKeeper ensemble configured for
+     * discovery, releasing them when the application stops
+     *
+     * @param discovery
+     *            ZooKeeper connection settings
+     * @param datacenterId
+     *            Datacenter ID
+     * @param layout
+     *            Bit layout of the generated IDs
+     * @param environment
+     *            Application environment
+     * @return leases by worker ID, empty when disabled
+     * @throws Exception
+     *             When ZooKeeper can't be reached or no worker ID is free
+     */
+    public Map<Integer, WorkerIdLease> build(final DiscoveryFactory discovery,
+            final int datacenterId, final IdLayout layout,
+            final Environment environment) throws Exception {
+        if (!enabled) {
+            return ImmutableMap.of();
+        }
+
+        final CuratorFramework client = CuratorFrameworkFactory.builder()
+                .connectionTimeoutMs(
+                        (int) discovery.getConnectionTimeout()
+                                .toMilliseconds())
+                .sessionTimeoutMs(
+                        (int) discovery.getSessionTimeout().toMilliseconds())
+                .retryPolicy(discovery.getRetryPolicy())
+                .compressionProvider(discovery.getCompressionProvider())
+                .connectString(discovery.getQuorumSpec())
+                .namespace(discovery.getNamespace()).build();
+        client.start();
+
+        final Map<Integer, WorkerIdLease> leases = Maps.newLinkedHashMap();
+        final List<ZooKeeperWorkerIdLease> acquired = Lists.newArrayList();
+        try {
+            if (!client.blockUntilConnected((int) discovery
+                    .getConnectionTimeout().toMilliseconds(),
+                    TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(
+                        "couldn't connect to ZooKeeper at "
+                                + discovery.getQuorumSpec());
+            }
+            final byte[] owner = ManagementFactory.getRuntimeMXBean()
+                    .getName().getBytes(Charsets.UTF_8);
+            for (int i = 0; i < lanes; i++) {
+                final ZooKeeperWorkerIdLease lease = ZooKeeperWorkerIdLease
+                        .acquire(client, path, datacenterId,
+                                layout.getMaxWorkerId(), owner);
+                acquired.add(lease);
+                leases.put(lease.getWorkerId(), lease);
+            }
+        } catch (final Exception e) {
+            release(acquired, client);
+            throw e;
+        }
+
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() throws Exception {
+            }
+
+            @Override
+            public void stop() throws Exception {
+                release(acquired, client);
+            }
+        });
+        return leases;
+    }
+
+    private static void release(final List<ZooKeeperWorkerIdLease> leases,
+            final CuratorFramework client) {
+        for (final ZooKeeperWorkerIdLease lease : leases) {
+            lease.close();
+        }
+        client.close();
+    }
+}
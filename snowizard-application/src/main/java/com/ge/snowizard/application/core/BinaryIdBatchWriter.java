@@ -0,0 +1,65 @@
+package com.ge.snowizard.application.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import com.google.common.primitives.Longs;
+
+/**
+ * Writes an {@link IdBatch} as exactly 8 bytes per ID, each a big-endian
+ * long. Chunks are copied into a buffer kept by each server thread, so
+ * writing a response allocates nothing per ID or per chunk.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_OCTET_STREAM)
+public class BinaryIdBatchWriter implements MessageBodyWriter<IdBatch> {
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(IdBatch.CHUNK_SIZE * Longs.BYTES);
+        }
+    };
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return IdBatch.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return (long) batch.getCount() * Longs.BYTES;
+    }
+
+    @Override
+    public void writeTo(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+        httpHeaders.putSingle(HttpHeaders.CONTENT_LENGTH,
+                (long) batch.getCount() * Longs.BYTES);
+
+        final ByteBuffer buffer = BUFFERS.get();
+        final LongBuffer longs = buffer.asLongBuffer();
+        final long[] chunk = batch.getChunk();
+        for (int n = batch.next(); n > 0; n = batch.next()) {
+            longs.clear();
+            longs.put(chunk, 0, n);
+            entityStream.write(buffer.array(), 0, n * Longs.BYTES);
+            entityStream.flush();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ge.snowizard.application.core;
+
+/**
+ * Formats longs as decimal digits into caller-provided buffers, so writing
+ * many IDs doesn't create a string for each of them
+ */
+public final class Decimal {
+
+    /**
+     * Longest decimal representation of a long, that of
+     * {@link Long#MIN_VALUE}
+     */
+    public static final int MAX_LENGTH = 20;
+
+    private Decimal() {
+    }
+
+    /**
+     * Write the decimal digits of a value at the end of the first
+     * {@link #MAX_LENGTH} characters of a buffer
+     * 
+     * @param value
+     *            Value to format
+     * @param buffer
+     *            Buffer of at least {@link #MAX_LENGTH} characters
+     * @return index of the first character written
+     */
+    public static int format(final long value, final char[] buffer) {
+        int position = MAX_LENGTH;
+        long remaining = value;
+        do {
+            buffer[--position] = (char) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    /**
+     * Write the decimal digits of a value as ASCII at the end of the first
+     * {@link #MAX_LENGTH} bytes of a buffer
+     * 
+     * @param value
+     *            Value to format
+     * @param buffer
+     *            Buffer of at least {@link #MAX_LENGTH} bytes
+     * @return index of the first byte written
+     */
+    public static int format(final long value, final byte[] buffer) {
+        int position = MAX_LENGTH;
+        long remaining = value;
+        do {
+            buffer[--position] = (byte) ('0' + Math.abs(remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+}
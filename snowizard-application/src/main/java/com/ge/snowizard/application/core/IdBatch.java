@@ -0,0 +1,111 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * IDs requested in a single response, generated one fixed-size chunk at a
+ * time while a message body writer streams them out, so the memory a request
+ * holds doesn't grow with the number of IDs.
+ */
+public final class IdBatch {
+
+    /**
+     * Most IDs generated per chunk
+     */
+    public static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Generates the IDs of a batch
+     */
+    public interface Source {
+
+        /**
+         * Fill a range of an array with IDs
+         * 
+         * @param ids
+         *            Array to fill
+         * @param offset
+         *            First index to fill
+         * @param length
+         *            Number of IDs to generate
+         */
+        void fill(long[] ids, int offset, int length);
+    }
+
+    private final Source source;
+    private final int count;
+    private final long[] chunk;
+    private int remaining;
+    private int prefetched;
+
+    /**
+     * Constructor
+     * 
+     * @param source
+     *            Source of the IDs
+     * @param count
+     *            Number of IDs in the batch
+     */
+    public IdBatch(final Source source, final int count) {
+        checkArgument(count >= 0, "count can't be negative");
+        this.source = checkNotNull(source);
+        this.count = count;
+        this.remaining = count;
+        this.chunk = new long[Math.min(count, CHUNK_SIZE)];
+    }
+
+    /**
+     * Generate the first chunk right away, so that generation errors surface
+     * before the response is committed and can still become an error status
+     * 
+     * @return this batch
+     */
+    public IdBatch prefetch() {
+        if (prefetched == 0) {
+            prefetched = generate();
+        }
+        return this;
+    }
+
+    /**
+     * Generate the next chunk into {@link #getChunk()}
+     * 
+     * @return number of IDs in the chunk, 0 once the batch is exhausted
+     */
+    public int next() {
+        if (prefetched > 0) {
+            final int length = prefetched;
+            prefetched = 0;
+            return length;
+        }
+        return generate();
+    }
+
+    /**
+     * Return the array holding the current chunk at its start
+     * 
+     * @return current chunk
+     */
+    public long[] getChunk() {
+        return chunk;
+    }
+
+    /**
+     * Return the number of IDs in the whole batch
+     * 
+     * @return number of IDs
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private int generate() {
+        final int length = Math.min(remaining, chunk.length);
+        if (length > 0) {
+            source.fill(chunk, 0, length);
+            remaining -= length;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Unbounded sequence of IDs handed to a message body writer one frame at a
+ * time. A frame is only generated once the previous one has been written, so
+ * a stream never gets further ahead of its consumer than the connection's
+ * buffers.
+ */
+public final class IdStream {
+
+    /**
+     * Frame size used when the client doesn't ask for one
+     */
+    public static final int DEFAULT_FRAME_SIZE = 1024;
+
+    /**
+     * Largest frame a client can ask for
+     */
+    public static final int MAX_FRAME_SIZE = 4096;
+
+    private final IdBatch.Source source;
+    private final long[] frame;
+    private boolean prefetched;
+
+    /**
+     * Constructor
+     * 
+     * @param source
+     *            Source of the IDs
+     * @param frameSize
+     *            Number of IDs in each frame
+     */
+    public IdStream(final IdBatch.Source source, final int frameSize) {
+        checkArgument(frameSize > 0 && frameSize <= MAX_FRAME_SIZE,
+                "frame size must be between 1 and %s", MAX_FRAME_SIZE);
+        this.source = checkNotNull(source);
+        this.frame = new long[frameSize];
+    }
+
+    /**
+     * Generate the first frame right away, so that generation errors surface
+     * before the response is committed and can still become an error status
+     * 
+     * @return this stream
+     */
+    public IdStream prefetch() {
+        if (!prefetched) {
+            source.fill(frame, 0, frame.length);
+            prefetched = true;
+        }
+        return this;
+    }
+
+    /**
+     * Generate the next frame
+     * 
+     * @return array holding the frame, reused for every frame
+     */
+    public long[] next() {
+        if (prefetched) {
+            prefetched = false;
+        } else {
+            source.fill(frame, 0, frame.length);
+        }
+        return frame;
+    }
+
+    /**
+     * Return the number of IDs in each frame
+     * 
+     * @return frame size
+     */
+    public int getFrameSize() {
+        return frame.length;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ge.snowizard.application.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.primitives.Longs;
+
+/**
+ * Writes an {@link IdStream} as big-endian 64-bit IDs, flushing after every
+ * frame, until the client goes away. Writes block while the client isn't
+ * reading, which holds back generation of the next frame.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_OCTET_STREAM)
+public class IdStreamWriter implements MessageBodyWriter<IdStream> {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(IdStreamWriter.class);
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return IdStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final IdStream stream, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final IdStream stream, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(stream.getFrameSize()
+                * Longs.BYTES);
+        final LongBuffer longs = buffer.asLongBuffer();
+        try {
+            while (true) {
+                longs.clear();
+                longs.put(stream.next());
+                entityStream.write(buffer.array());
+                entityStream.flush();
+            }
+        } catch (final IOException e) {
+            LOGGER.debug("ID stream closed by the client", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.ge.snowizard.api.Id;
+
+/**
+ * Writes an {@link IdBatch} as a JSON array of {@link Id} objects, straight
+ * from the batch's chunks with a {@link JsonGenerator}, flushing after every
+ * chunk. The decimal {@code id_str} of each ID is formatted into a reused
+ * buffer instead of a new string. JSONP responses are wrapped in their
+ * callback by Jersey around this writer.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_JSON,
+    MediaTypeAdditional.APPLICATION_JAVASCRIPT })
+public class JsonIdBatchWriter implements MessageBodyWriter<IdBatch> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString ID_STR = new SerializedString(
+            "id_str");
+
+    private final JsonFactory factory;
+
+    /**
+     * Constructor
+     * 
+     * @param factory
+     *            Factory of the generators writing the responses
+     */
+    public JsonIdBatchWriter(final JsonFactory factory) {
+        this.factory = checkNotNull(factory);
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return IdBatch.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+        final JsonGenerator generator = factory.createGenerator(entityStream,
+                JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        final long[] chunk = batch.getChunk();
+        final char[] digits = new char[Decimal.MAX_LENGTH];
+        generator.writeStartArray();
+        for (int n = batch.next(); n > 0; n = batch.next()) {
+            for (int i = 0; i < n; i++) {
+                final long id = chunk[i];
+                generator.writeStartObject();
+                generator.writeFieldName(ID);
+                generator.writeNumber(id);
+                generator.writeFieldName(ID_STR);
+                final int start = Decimal.format(id, digits);
+                generator.writeString(digits, start, Decimal.MAX_LENGTH
+                        - start);
+                generator.writeEndObject();
+            }
+            generator.flush();
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+}
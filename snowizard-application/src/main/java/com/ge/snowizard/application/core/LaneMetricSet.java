@@ -0,0 +1,72 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.Map;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.ge.snowizard.core.PregeneratedIdGenerator;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Worker ID and sequence gauges for every lane of an {@link IdWorkerLanes}.
+ * Lanes fed by a {@link PregeneratedIdGenerator} report the sequence of the
+ * worker behind it.
+ */
+public class LaneMetricSet implements MetricSet {
+
+    private final IdWorkerLanes lanes;
+
+    /**
+     * Constructor
+     *
+     * @param lanes
+     *            Lanes to report on
+     */
+    public LaneMetricSet(final IdWorkerLanes lanes) {
+        this.lanes = checkNotNull(lanes);
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        final ImmutableMap.Builder<String, Metric> metrics = ImmutableMap
+                .builder();
+        int index = 0;
+        for (final IdGenerator lane : lanes.getLanes()) {
+            final String prefix = MetricRegistry.name("lane",
+                    String.valueOf(index++));
+            metrics.put(MetricRegistry.name(prefix, "worker_id"),
+                    new Gauge<Integer>() {
+                        @Override
+                        public Integer getValue() {
+                            return lane.getWorkerId();
+                        }
+                    });
+            final IdWorker worker = workerOf(lane);
+            if (worker != null) {
+                metrics.put(MetricRegistry.name(prefix, "sequence"),
+                        new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return worker.getSequence();
+                            }
+                        });
+            }
+        }
+        return metrics.build();
+    }
+
+    private static IdWorker workerOf(final IdGenerator lane) {
+        if (lane instanceof IdWorker) {
+            return (IdWorker) lane;
+        }
+        if (lane instanceof PregeneratedIdGenerator) {
+            return ((PregeneratedIdGenerator) lane).getWorker();
+        }
+        return null;
+    }
+}
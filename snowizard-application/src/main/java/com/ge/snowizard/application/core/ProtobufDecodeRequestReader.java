@@ -0,0 +1,114 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import io.dropwizard.jersey.protobuf.ProtocolBufferMediaType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest;
+import com.ge.snowizard.application.exceptions.SnowizardException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Reads the IDs of a {@link SnowizardDecodeRequest} straight into a
+ * {@code long[]}, varint by varint, without boxing the IDs or building the
+ * message. A request holding more than {@code max_count} IDs is rejected
+ * with {@code 400} as soon as the limit is crossed, so a single request
+ * can't make the server hold an unbounded batch.
+ */
+@Provider
+@Consumes(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+public class ProtobufDecodeRequestReader implements MessageBodyReader<long[]> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int PACKED_ID_TAG = tag(
+            SnowizardDecodeRequest.ID_FIELD_NUMBER,
+            WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int ID_TAG = tag(
+            SnowizardDecodeRequest.ID_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+
+    private final int maxCount;
+
+    /**
+     * Constructor
+     *
+     * @param maxCount
+     *            Most IDs a single request may hold
+     */
+    public ProtobufDecodeRequestReader(final int maxCount) {
+        checkArgument(maxCount > 0, "max count must be positive");
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    public boolean isReadable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return type == long[].class;
+    }
+
+    @Override
+    public long[] readFrom(final Class<long[]> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType,
+            final MultivaluedMap<String, String> httpHeaders,
+            final InputStream entityStream) throws IOException {
+        final CodedInputStream input = CodedInputStream
+                .newInstance(entityStream);
+        input.setSizeLimit(Integer.MAX_VALUE);
+        long[] ids = new long[Math.min(INITIAL_CAPACITY, maxCount)];
+        int count = 0;
+
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (tag == PACKED_ID_TAG) {
+                final int limit = input.pushLimit(input.readRawVarint32());
+                while (input.getBytesUntilLimit() > 0) {
+                    ids = ensureCapacity(ids, count);
+                    ids[count++] = input.readInt64();
+                }
+                input.popLimit(limit);
+            } else if (tag == ID_TAG) {
+                ids = ensureCapacity(ids, count);
+                ids[count++] = input.readInt64();
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Return an array with room for one more ID, growing it if needed
+     *
+     * @param ids
+     *            IDs read so far
+     * @param count
+     *            Number of IDs read so far
+     * @return array to store the next ID in
+     * @throws SnowizardException
+     *             When the request holds more than the maximum
+     */
+    private long[] ensureCapacity(final long[] ids, final int count) {
+        if (count < ids.length) {
+            return ids;
+        }
+        if (count >= maxCount) {
+            throw new SnowizardException(Response.Status.BAD_REQUEST,
+                    String.format("at most %d IDs can be decoded at once",
+                            maxCount));
+        }
+        return Arrays.copyOf(ids,
+                (int) Math.min((long) ids.length * 2, maxCount));
+    }
+
+    private static int tag(final int fieldNumber, final int wireType) {
+        return (fieldNumber << 3) | wireType;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ge.snowizard.application.core;
+
+import io.dropwizard.jersey.protobuf.ProtocolBufferMediaType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse;
+import com.ge.snowizard.core.IdDecoder;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Writes decoded {@link IdDecoder.Columns} in the encoding of a
+ * {@link SnowizardDecodeResponse}, one packed field per column, straight
+ * from the column arrays without boxing the values or building the message.
+ */
+@Provider
+@Produces(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+public class ProtobufDecodeResponseWriter implements
+        MessageBodyWriter<IdDecoder.Columns> {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return IdDecoder.Columns.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final IdDecoder.Columns columns, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final IdDecoder.Columns columns, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+        final CodedOutputStream output = CodedOutputStream.newInstance(
+                entityStream, BUFFER_SIZE);
+        writeLongs(output, SnowizardDecodeResponse.TIMESTAMP_FIELD_NUMBER,
+                columns.getTimestamps());
+        writeInts(output, SnowizardDecodeResponse.DATACENTER_ID_FIELD_NUMBER,
+                columns.getDatacenterIds());
+        writeInts(output, SnowizardDecodeResponse.WORKER_ID_FIELD_NUMBER,
+                columns.getWorkerIds());
+        writeInts(output, SnowizardDecodeResponse.SEQUENCE_FIELD_NUMBER,
+                columns.getSequences());
+        output.flush();
+    }
+
+    /**
+     * Write a packed {@code int64} field
+     *
+     * @param output
+     *            Stream to write to
+     * @param fieldNumber
+     *            Number of the field
+     * @param values
+     *            Values of the field
+     * @throws IOException
+     *             If writing fails
+     */
+    private static void writeLongs(final CodedOutputStream output,
+            final int fieldNumber, final long[] values) throws IOException {
+        if (values.length == 0) {
+            return;
+        }
+        int dataSize = 0;
+        for (final long value : values) {
+            dataSize += CodedOutputStream.computeInt64SizeNoTag(value);
+        }
+        writeHeader(output, fieldNumber, dataSize);
+        for (final long value : values) {
+            output.writeInt64NoTag(value);
+        }
+    }
+
+    /**
+     * Write a packed {@code int32} field
+     *
+     * @param output
+     *            Stream to write to
+     * @param fieldNumber
+     *            Number of the field
+     * @param values
+     *            Values of the field
+     * @throws IOException
+     *             If writing fails
+     */
+    private static void writeInts(final CodedOutputStream output,
+            final int fieldNumber, final int[] values) throws IOException {
+        if (values.length == 0) {
+            return;
+        }
+        int dataSize = 0;
+        for (final int value : values) {
+            dataSize += CodedOutputStream.computeInt32SizeNoTag(value);
+        }
+        writeHeader(output, fieldNumber, dataSize);
+        for (final int value : values) {
+            output.writeInt32NoTag(value);
+        }
+    }
+
+    private static void writeHeader(final CodedOutputStream output,
+            final int fieldNumber, final int dataSize) throws IOException {
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(dataSize);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ge.snowizard.application.core;
+
+import io.dropwizard.jersey.protobuf.ProtocolBufferMediaType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Writes an {@link IdBatch} in the encoding of a {@link SnowizardResponse},
+ * varint by varint from the batch's chunks, without boxing the IDs or
+ * building the message.
+ * <p>
+ * The packed {@code id} field is prefixed with its length, so the size of
+ * every varint has to be known before the first one is written. Rather than
+ * holding the whole batch to measure it, each chunk is written as a packed
+ * field of its own as soon as it's generated. Parsers concatenate repeated
+ * occurrences of a packed field, so the response decodes to the same
+ * message while memory stays bounded to one chunk whatever the IDs encode
+ * to.
+ */
+@Provider
+@Produces(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+public class ProtobufIdBatchWriter implements MessageBodyWriter<IdBatch> {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return IdBatch.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+        final CodedOutputStream output = CodedOutputStream.newInstance(
+                entityStream, BUFFER_SIZE);
+        final long[] chunk = batch.getChunk();
+        for (int n = batch.next(); n > 0; n = batch.next()) {
+            writeIds(output, chunk, n);
+            output.flush();
+            entityStream.flush();
+        }
+    }
+
+    /**
+     * Write the packed {@code id} field holding the given IDs
+     * 
+     * @param output
+     *            Stream to write to
+     * @param ids
+     *            IDs to write
+     * @param length
+     *            Number of IDs to write from the start of the array
+     * @throws IOException
+     *             If writing fails
+     */
+    private static void writeIds(final CodedOutputStream output,
+            final long[] ids, final int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        int dataSize = 0;
+        for (int i = 0; i < length; i++) {
+            dataSize += CodedOutputStream.computeInt64SizeNoTag(ids[i]);
+        }
+        writeHeader(output, dataSize);
+        for (int i = 0; i < length; i++) {
+            output.writeInt64NoTag(ids[i]);
+        }
+    }
+
+    private static void writeHeader(final CodedOutputStream output,
+            final int dataSize) throws IOException {
+        output.writeTag(SnowizardResponse.ID_FIELD_NUMBER,
+                WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeRawVarint32(dataSize);
+    }
+}
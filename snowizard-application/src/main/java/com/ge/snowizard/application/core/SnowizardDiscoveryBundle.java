@@ -0,0 +1,129 @@
+package com.ge.snowizard.application.core;
+
+import io.dropwizard.discovery.AbstractDiscoveryBundle;
+import io.dropwizard.discovery.DiscoveryFactory;
+import io.dropwizard.discovery.client.DiscoveryClient;
+import io.dropwizard.discovery.core.CuratorAdvertiser;
+import io.dropwizard.discovery.core.ServiceInstanceFactory;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.curator.x.discovery.ServiceDiscovery;
+import org.apache.curator.x.discovery.ServiceInstance;
+import com.ge.snowizard.application.config.SnowizardConfiguration;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Discovery bundle registering each instance with its {@link WorkerClaim} as
+ * the payload, so instances can detect others using the same worker IDs
+ */
+public class SnowizardDiscoveryBundle extends
+        AbstractDiscoveryBundle<SnowizardConfiguration, WorkerClaim> {
+
+    private CuratorAdvertiser<WorkerClaim> advertiser;
+    private volatile int datacenterId;
+    private volatile List<Integer> workerIds = ImmutableList.of();
+
+    private final ServiceInstanceFactory<WorkerClaim> instanceFactory = new ServiceInstanceFactory<WorkerClaim>() {
+        @Override
+        public Class<WorkerClaim> getPayloadClass() {
+            return WorkerClaim.class;
+        }
+
+        @Override
+        public ServiceInstance<WorkerClaim> build(final String serviceName,
+                final CuratorAdvertiser<WorkerClaim> curatorAdvertiser)
+                throws Exception {
+            final WorkerClaim claim = new WorkerClaim(
+                    curatorAdvertiser.getInstanceId(),
+                    curatorAdvertiser.getListenAddress(),
+                    curatorAdvertiser.getListenPort(), datacenterId, workerIds);
+            return ServiceInstance.<WorkerClaim> builder().name(serviceName)
+                    .address(curatorAdvertiser.getListenAddress())
+                    .port(curatorAdvertiser.getListenPort())
+                    .id(curatorAdvertiser.getInstanceId().toString())
+                    .payload(claim).build();
+        }
+    };
+
+    @Override
+    public DiscoveryFactory getDiscoveryFactory(
+            final SnowizardConfiguration configuration) {
+        return configuration.getDiscoveryFactory();
+    }
+
+    @Override
+    public Class<WorkerClaim> getPayloadClass() {
+        return WorkerClaim.class;
+    }
+
+    @Override
+    public CuratorAdvertiser<WorkerClaim> getCuratorAdvertiser(
+            final DiscoveryFactory factory,
+            final ServiceDiscovery<WorkerClaim> discovery) {
+        advertiser = new CuratorAdvertiser<>(factory, discovery,
+                instanceFactory);
+        return advertiser;
+    }
+
+    /**
+     * Advertise the worker IDs owned by this instance and start watching the
+     * claims of the other instances. Must be called from the application's
+     * {@code run()}, after the bundle ran.
+     *
+     * @param factory
+     *            Discovery settings
+     * @param datacenterId
+     *            Datacenter ID
+     * @param workerIds
+     *            Worker IDs owned by this instance
+     * @param interval
+     *            How often to compare claims
+     * @param environment
+     *            Application environment
+     * @return conflict detector, or null when discovery is disabled
+     */
+    public WorkerIdConflictDetector claim(final DiscoveryFactory factory,
+            final int datacenterId, final List<Integer> workerIds,
+            final Duration interval, final Environment environment) {
+        this.datacenterId = datacenterId;
+        this.workerIds = ImmutableList.copyOf(workerIds);
+        if (advertiser == null) {
+            return null;
+        }
+
+        final DiscoveryClient<WorkerClaim> client = newDiscoveryClient(factory
+                .getServiceName());
+        final WorkerIdConflictDetector detector = new WorkerIdConflictDetector(
+                new WorkerClaim(advertiser.getInstanceId(), null, 0,
+                        datacenterId, workerIds),
+                new Supplier<Collection<ServiceInstance<WorkerClaim>>>() {
+                    @Override
+                    public Collection<ServiceInstance<WorkerClaim>> get() {
+                        return client.getInstances();
+                    }
+                }, environment.getObjectMapper());
+        final ScheduledExecutorService executor = environment.lifecycle()
+                .scheduledExecutorService("snowizard-worker-claims-%d")
+                .build();
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() throws Exception {
+                client.start();
+                executor.scheduleWithFixedDelay(detector, 0L,
+                        interval.toMilliseconds(), TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void stop() throws Exception {
+                client.close();
+            }
+        });
+        return detector;
+    }
+}
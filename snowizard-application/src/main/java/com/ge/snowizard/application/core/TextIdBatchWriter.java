@@ -0,0 +1,65 @@
+package com.ge.snowizard.application.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Writes an {@link IdBatch} as decimal IDs, each followed by a newline. Every
+ * chunk is formatted into a buffer kept by each server thread and flushed, so
+ * consumers can start on the first IDs while the rest are generated.
+ */
+@Provider
+@Produces(MediaType.TEXT_PLAIN)
+public class TextIdBatchWriter implements MessageBodyWriter<IdBatch> {
+
+    private static final int LINE_LENGTH = Decimal.MAX_LENGTH + 1;
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[IdBatch.CHUNK_SIZE * LINE_LENGTH];
+        }
+    };
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return IdBatch.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final IdBatch batch, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+        final byte[] buffer = BUFFERS.get();
+        final byte[] digits = new byte[Decimal.MAX_LENGTH];
+        final long[] chunk = batch.getChunk();
+        for (int n = batch.next(); n > 0; n = batch.next()) {
+            int length = 0;
+            for (int i = 0; i < n; i++) {
+                final int start = Decimal.format(chunk[i], digits);
+                final int size = Decimal.MAX_LENGTH - start;
+                System.arraycopy(digits, start, buffer, length, size);
+                length += size;
+                buffer[length++] = '\n';
+            }
+            entityStream.write(buffer, 0, length);
+            entityStream.flush();
+        }
+    }
+}
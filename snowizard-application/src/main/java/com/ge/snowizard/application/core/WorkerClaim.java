@@ -0,0 +1,131 @@
+package com.ge.snowizard.application.core;
+
+import io.dropwizard.jackson.JsonSnakeCase;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import javax.annotation.concurrent.Immutable;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Worker IDs claimed by a Snowizard instance, advertised as the payload of
+ * its service discovery registration
+ */
+@Immutable
+@JsonSnakeCase
+public final class WorkerClaim {
+
+    private final UUID instanceId;
+    private final String listenAddress;
+    private final int listenPort;
+    private final int datacenterId;
+    private final List<Integer> workerIds;
+
+    /**
+     * Constructor
+     * 
+     * @param instanceId
+     *            Unique ID of the instance
+     * @param listenAddress
+     *            Address the instance listens on
+     * @param listenPort
+     *            Port the instance listens on
+     * @param datacenterId
+     *            Datacenter ID
+     * @param workerIds
+     *            Worker IDs owned by the instance
+     */
+    @JsonCreator
+    public WorkerClaim(@JsonProperty("instance_id") final UUID instanceId,
+            @JsonProperty("listen_address") final String listenAddress,
+            @JsonProperty("listen_port") final int listenPort,
+            @JsonProperty("datacenter_id") final int datacenterId,
+            @JsonProperty("worker_ids") final List<Integer> workerIds) {
+        this.instanceId = instanceId;
+        this.listenAddress = listenAddress;
+        this.listenPort = listenPort;
+        this.datacenterId = datacenterId;
+        this.workerIds = workerIds == null ? ImmutableList.<Integer> of()
+                : ImmutableList.copyOf(workerIds);
+    }
+
+    @JsonProperty
+    public UUID getInstanceId() {
+        return instanceId;
+    }
+
+    @JsonProperty
+    public String getListenAddress() {
+        return listenAddress;
+    }
+
+    @JsonProperty
+    public int getListenPort() {
+        return listenPort;
+    }
+
+    @JsonProperty
+    public int getDatacenterId() {
+        return datacenterId;
+    }
+
+    @JsonProperty
+    public List<Integer> getWorkerIds() {
+        return workerIds;
+    }
+
+    /**
+     * Check whether another instance claims any of the same worker IDs
+     * 
+     * @param other
+     *            Claim of another instance
+     * @return true if both claims share a worker ID in the same datacenter
+     */
+    public boolean conflictsWith(final WorkerClaim other) {
+        if (Objects.equals(instanceId, other.instanceId)
+                || datacenterId != other.datacenterId) {
+            return false;
+        }
+        for (final Integer workerId : other.workerIds) {
+            if (workerIds.contains(workerId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        final WorkerClaim other = (WorkerClaim) obj;
+        return Objects.equals(instanceId, other.instanceId)
+                && Objects.equals(listenAddress, other.listenAddress)
+                && Objects.equals(listenPort, other.listenPort)
+                && Objects.equals(datacenterId, other.datacenterId)
+                && Objects.equals(workerIds, other.workerIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instanceId, listenAddress, listenPort,
+                datacenterId, workerIds);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("instanceId", instanceId)
+                .add("listenAddress", listenAddress)
+                .add("listenPort", listenPort)
+                .add("datacenterId", datacenterId)
+                .add("workerIds", workerIds).toString();
+    }
+}
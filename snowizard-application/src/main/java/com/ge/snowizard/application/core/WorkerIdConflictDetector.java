@@ -0,0 +1,150 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.Collection;
+import java.util.List;
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ge.snowizard.core.WorkerIdLease;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Watches the worker claims other instances advertise through service
+ * discovery and withdraws the right to generate IDs while any of them claims
+ * one of our worker IDs. Peers are read from the locally cached discovery
+ * view, so no coordination happens on the request path.
+ * 
+ * <p>
+ * The detector fails closed: IDs may only be generated once a check read a
+ * discovery view that includes our own registration, so that our claim is
+ * visible to the other instances as theirs are to us, and only for as long
+ * as the checks keep succeeding.
+ */
+public class WorkerIdConflictDetector implements WorkerIdLease, Runnable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(WorkerIdConflictDetector.class);
+
+    private final WorkerClaim claim;
+    private final Supplier<Collection<ServiceInstance<WorkerClaim>>> peers;
+    private final ObjectMapper mapper;
+    private volatile List<WorkerClaim> conflicts = ImmutableList.of();
+    private volatile boolean verified = false;
+
+    /**
+     * Constructor
+     * 
+     * @param claim
+     *            Claim of this instance
+     * @param peers
+     *            Registered instances of the service, including this one
+     * @param mapper
+     *            Object mapper converting payloads the discovery serializer
+     *            left as maps
+     */
+    public WorkerIdConflictDetector(final WorkerClaim claim,
+            final Supplier<Collection<ServiceInstance<WorkerClaim>>> peers,
+            final ObjectMapper mapper) {
+        this.claim = checkNotNull(claim);
+        this.peers = checkNotNull(peers);
+        this.mapper = checkNotNull(mapper);
+    }
+
+    /**
+     * Return the claim of this instance
+     * 
+     * @return Worker claim
+     */
+    public WorkerClaim getClaim() {
+        return claim;
+    }
+
+    /**
+     * Return the claims of other instances conflicting with ours, as of the
+     * last check
+     * 
+     * @return conflicting claims
+     */
+    public List<WorkerClaim> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Return whether the last check succeeded and found our own
+     * registration among the registered instances
+     * 
+     * @return whether our claim is verified
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    @Override
+    public boolean isValid() {
+        return verified && conflicts.isEmpty();
+    }
+
+    /**
+     * Compare our claim with the currently registered instances
+     */
+    @Override
+    public void run() {
+        final ImmutableList.Builder<WorkerClaim> found = ImmutableList
+                .builder();
+        boolean registered = false;
+        try {
+            for (final ServiceInstance<?> instance : peers.get()) {
+                final WorkerClaim other = toClaim(instance.getPayload());
+                if (other == null) {
+                    continue;
+                }
+                if (claim.getInstanceId().equals(other.getInstanceId())) {
+                    registered = true;
+                } else if (claim.conflictsWith(other)) {
+                    found.add(other);
+                }
+            }
+        } catch (final RuntimeException e) {
+            if (verified) {
+                LOGGER.warn("couldn't read worker claims", e);
+            }
+            verified = false;
+            return;
+        }
+
+        if (registered != verified) {
+            if (registered) {
+                LOGGER.info("worker claim registered");
+            } else {
+                LOGGER.warn("worker claim isn't registered");
+            }
+        }
+        verified = registered;
+        final List<WorkerClaim> current = found.build();
+        if (!current.isEmpty() && !current.equals(conflicts)) {
+            LOGGER.error("worker ids {} also claimed by {}",
+                    claim.getWorkerIds(), current);
+        } else if (current.isEmpty() && !conflicts.isEmpty()) {
+            LOGGER.info("worker id conflict resolved");
+        }
+        conflicts = current;
+    }
+
+    /**
+     * Return an instance's payload as a claim. The discovery serializer
+     * doesn't know the payload type and deserializes it as a map.
+     * 
+     * @param payload
+     *            Payload of a registered instance
+     * @return the claim, or null for instances without one
+     */
+    private WorkerClaim toClaim(final Object payload) {
+        if (payload == null || payload instanceof WorkerClaim) {
+            return (WorkerClaim) payload;
+        }
+        return mapper.convertValue(payload, WorkerClaim.class);
+    }
+}
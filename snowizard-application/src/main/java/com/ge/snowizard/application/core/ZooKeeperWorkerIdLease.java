@@ -0,0 +1,218 @@
+package com.ge.snowizard.application.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.core.WorkerIdLease;
+
+/**
+ * Lease on a worker ID held as an ephemeral ZooKeeper node at
+ * {@code <path>/<datacenter id>/<worker id>}. ZooKeeper keeps the node for as
+ * long as the client's session is alive, so the lease is renewed by the
+ * session heartbeats. It is invalid as soon as the connection is suspended,
+ * and reclaimed on reconnection if the node is still, or again, ours.
+ */
+public class ZooKeeperWorkerIdLease implements WorkerIdLease,
+        ConnectionStateListener, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ZooKeeperWorkerIdLease.class);
+
+    private final CuratorFramework client;
+    private final String path;
+    private final int workerId;
+    private final byte[] owner;
+    private final CuratorWatcher watcher = new CuratorWatcher() {
+        @Override
+        public void process(final WatchedEvent event) throws Exception {
+            if (event.getType() != Watcher.Event.EventType.None) {
+                reclaim();
+            }
+        }
+    };
+    private volatile boolean valid;
+    private boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param client
+     *            Started ZooKeeper client
+     * @param path
+     *            Path of the lease node
+     * @param workerId
+     *            Leased worker ID
+     * @param owner
+     *            Data identifying this process, stored in the node
+     */
+    private ZooKeeperWorkerIdLease(final CuratorFramework client,
+            final String path, final int workerId, final byte[] owner) {
+        this.client = client;
+        this.path = path;
+        this.workerId = workerId;
+        this.owner = owner;
+    }
+
+    /**
+     * Lease the lowest worker ID of a datacenter that isn't leased yet
+     *
+     * @param client
+     *            Started ZooKeeper client
+     * @param basePath
+     *            Parent path of the lease nodes
+     * @param datacenterId
+     *            Datacenter ID
+     * @param maxWorkerId
+     *            Highest worker ID which may be leased
+     * @param owner
+     *            Data identifying this process, stored in the node
+     * @return the lease
+     * @throws IllegalStateException
+     *             When every worker ID is already leased
+     * @throws Exception
+     *             When ZooKeeper can't be reached
+     */
+    public static ZooKeeperWorkerIdLease acquire(
+            final CuratorFramework client, final String basePath,
+            final int datacenterId, final long maxWorkerId, final byte[] owner)
+            throws Exception {
+        checkNotNull(client);
+        checkNotNull(owner);
+        final String parent = ZKPaths.makePath(basePath,
+                String.valueOf(datacenterId));
+        for (int workerId = 0; workerId <= maxWorkerId; workerId++) {
+            final String path = ZKPaths.makePath(parent,
+                    String.valueOf(workerId));
+            try {
+                client.create().creatingParentsIfNeeded()
+                        .withMode(CreateMode.EPHEMERAL).forPath(path, owner);
+            } catch (final KeeperException.NodeExistsException e) {
+                continue;
+            }
+            final ZooKeeperWorkerIdLease lease = new ZooKeeperWorkerIdLease(
+                    client, path, workerId, owner);
+            lease.start();
+            return lease;
+        }
+        throw new IllegalStateException(String.format(
+                "every worker ID in datacenter %d is leased", datacenterId));
+    }
+
+    /**
+     * Return the leased worker ID
+     *
+     * @return Worker ID
+     */
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Return the path of the lease node
+     *
+     * @return ZooKeeper path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public void stateChanged(final CuratorFramework curator,
+            final ConnectionState newState) {
+        switch (newState) {
+        case SUSPENDED:
+        case LOST:
+            valid = false;
+            LOGGER.warn("worker id {} lease suspended: connection {}",
+                    workerId, newState);
+            break;
+        case RECONNECTED:
+            reclaim();
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Release the worker ID
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        valid = false;
+        client.getConnectionStateListenable().removeListener(this);
+        try {
+            if (isOwner(client.checkExists().forPath(path))) {
+                client.delete().guaranteed().forPath(path);
+            }
+        } catch (final Exception e) {
+            LOGGER.warn("couldn't release worker id {}", workerId, e);
+        }
+        LOGGER.info("released worker id {}", workerId);
+    }
+
+    private synchronized void start() throws Exception {
+        client.getConnectionStateListenable().addListener(this);
+        valid = isOwner(client.checkExists().usingWatcher(watcher)
+                .forPath(path));
+        LOGGER.info("leased worker id {} at {}", workerId, path);
+    }
+
+    /**
+     * Check the lease node again, re-creating it when it's gone, and watch
+     * it for changes
+     */
+    private synchronized void reclaim() {
+        if (closed) {
+            return;
+        }
+        try {
+            Stat stat = client.checkExists().usingWatcher(watcher)
+                    .forPath(path);
+            if (stat == null) {
+                try {
+                    client.create().creatingParentsIfNeeded()
+                            .withMode(CreateMode.EPHEMERAL)
+                            .forPath(path, owner);
+                } catch (final KeeperException.NodeExistsException e) {
+                    // taken by someone else in the meantime
+                }
+                stat = client.checkExists().forPath(path);
+            }
+            valid = isOwner(stat);
+        } catch (final Exception e) {
+            valid = false;
+            LOGGER.warn("couldn't check worker id {} lease", workerId, e);
+            return;
+        }
+        if (valid) {
+            LOGGER.info("worker id {} lease held", workerId);
+        } else {
+            LOGGER.error("worker id {} is leased to another process",
+                    workerId);
+        }
+    }
+
+    private boolean isOwner(final Stat stat) throws Exception {
+        return stat != null
+                && stat.getEphemeralOwner() == client.getZookeeperClient()
+                        .getZooKeeper().getSessionId();
+    }
+}
@@ -0,0 +1,36 @@
+package com.ge.snowizard.application.health;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.ge.snowizard.application.core.WorkerIdConflictDetector;
+
+public class WorkerIdConflictHealthCheck extends HealthCheck {
+
+    private final WorkerIdConflictDetector detector;
+
+    /**
+     * Constructor
+     *
+     * @param detector
+     *            Conflict detector, or null when discovery is disabled
+     */
+    public WorkerIdConflictHealthCheck(final WorkerIdConflictDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    protected Result check() throws Exception {
+        if (detector == null) {
+            return Result.healthy("conflict detection disabled");
+        }
+        if (detector.isValid()) {
+            return Result.healthy();
+        }
+        if (!detector.isVerified()) {
+            return Result.unhealthy(
+                    "worker ids %s not yet seen registered in discovery",
+                    detector.getClaim().getWorkerIds());
+        }
+        return Result.unhealthy("worker ids %s also claimed by %s", detector
+                .getClaim().getWorkerIds(), detector.getConflicts());
+    }
+}
@@ -1,12 +1,15 @@
 package com.ge.snowizard.application.resources;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import io.dropwizard.jersey.caching.CacheControl;
 import io.dropwizard.jersey.params.IntParam;
 import io.dropwizard.jersey.protobuf.ProtocolBufferMediaType;
-import java.util.List;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
@@ -17,30 +20,76 @@ import org.glassfish.jersey.server.JSONP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.codahale.metrics.annotation.Timed;
+import com.ge.snowizard.api.DecodedIds;
 import com.ge.snowizard.api.Id;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse;
 import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
+import com.ge.snowizard.application.core.BinaryIdBatchWriter;
+import com.ge.snowizard.application.core.IdBatch;
+import com.ge.snowizard.application.core.IdStream;
+import com.ge.snowizard.application.core.IdStreamWriter;
+import com.ge.snowizard.application.core.JsonIdBatchWriter;
 import com.ge.snowizard.application.core.MediaTypeAdditional;
+import com.ge.snowizard.application.core.ProtobufDecodeRequestReader;
+import com.ge.snowizard.application.core.ProtobufDecodeResponseWriter;
+import com.ge.snowizard.application.core.ProtobufIdBatchWriter;
+import com.ge.snowizard.application.core.TextIdBatchWriter;
 import com.ge.snowizard.application.exceptions.SnowizardException;
-import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdDecoder;
+import com.ge.snowizard.core.IdGenerator;
 import com.ge.snowizard.exceptions.InvalidSystemClock;
 import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
 import com.google.common.base.Optional;
-import com.google.common.collect.Lists;
 
 @Path("/")
 public class IdResource {
 
     private static final Logger LOGGER = LoggerFactory
             .getLogger(IdResource.class);
-    private final IdWorker worker;
+
+    /**
+     * Server-side quality of the representations other than plain text, so
+     * that plain text stays the answer to requests accepting any type
+     */
+    private static final String SECONDARY = ";qs=0.9";
+
+    /**
+     * Default for the most IDs a single request may ask for
+     */
+    public static final int DEFAULT_MAX_COUNT = 65536;
+
+    private final IdGenerator worker;
+    private final IdDecoder decoder;
+    private final int maxCount;
+
+    /**
+     * Constructor, decoding IDs in the default layout
+     *
+     * @param worker
+     *            ID generator to serve IDs from
+     */
+    public IdResource(final IdGenerator worker) {
+        this(worker, new IdDecoder(), DEFAULT_MAX_COUNT);
+    }
 
     /**
      * Constructor
      *
      * @param worker
+     *            ID generator to serve IDs from
+     * @param decoder
+     *            Decoder for the layout of the generated IDs
+     * @param maxCount
+     *            Most IDs a single request may ask for
      */
-    public IdResource(final IdWorker worker) {
+    public IdResource(final IdGenerator worker, final IdDecoder decoder,
+            final int maxCount) {
+        checkArgument(maxCount > 0, "max count must be positive");
         this.worker = checkNotNull(worker);
+        this.decoder = checkNotNull(decoder);
+        this.maxCount = maxCount;
     }
 
     /**
@@ -54,53 +103,167 @@ public class IdResource {
     public long getId(final String agent) {
         try {
             return worker.getId(agent);
-        } catch (final InvalidUserAgentError e) {
+        } catch (final InvalidUserAgentError | InvalidSystemClock
+                | WorkerIdUnavailable e) {
+            throw generationFailed(agent, e);
+        }
+    }
+
+    /**
+     * Get a batch of new IDs and handle any thrown exceptions
+     *
+     * @param agent
+     *            User Agent
+     * @param count
+     *            Number of IDs to generate
+     * @return generated IDs
+     * @throws SnowizardException
+     */
+    public long[] getIds(final String agent, final int count) {
+        try {
+            return worker.getIds(agent, count);
+        } catch (final InvalidUserAgentError | InvalidSystemClock
+                | WorkerIdUnavailable e) {
+            throw generationFailed(agent, e);
+        }
+    }
+
+    /**
+     * Fill a range of an array with new IDs and handle any thrown exceptions
+     *
+     * @param agent
+     *            User Agent
+     * @param ids
+     *            Array to fill
+     * @param offset
+     *            First index to fill
+     * @param length
+     *            Number of IDs to generate
+     * @throws SnowizardException
+     */
+    public void getIds(final String agent, final long[] ids, final int offset,
+            final int length) {
+        try {
+            worker.getIds(agent, ids, offset, length);
+        } catch (final InvalidUserAgentError | InvalidSystemClock
+                | WorkerIdUnavailable e) {
+            throw generationFailed(agent, e);
+        }
+    }
+
+    /**
+     * Log a failure to generate IDs and turn it into the matching error
+     * response
+     *
+     * @param agent
+     *            User Agent
+     * @param e
+     *            Failure thrown by the ID generator
+     * @return exception to throw
+     */
+    private static SnowizardException generationFailed(final String agent,
+            final Exception e) {
+        if (e instanceof InvalidUserAgentError) {
             LOGGER.error("Invalid user agent ({})", agent);
-            throw new SnowizardException(Response.Status.BAD_REQUEST,
+            return new SnowizardException(Response.Status.BAD_REQUEST,
                     "Invalid User-Agent header", e);
-        } catch (final InvalidSystemClock e) {
-            LOGGER.error("Invalid system clock", e);
-            throw new SnowizardException(Response.Status.INTERNAL_SERVER_ERROR,
+        }
+        if (e instanceof WorkerIdUnavailable) {
+            LOGGER.error("Worker ID unavailable", e);
+            return new SnowizardException(Response.Status.SERVICE_UNAVAILABLE,
                     e.getMessage(), e);
         }
+        LOGGER.error("Invalid system clock", e);
+        return new SnowizardException(Response.Status.INTERNAL_SERVER_ERROR,
+                e.getMessage(), e);
     }
 
     /**
-     * Get a new ID as plain text
+     * Start a batch of IDs to be written out in chunks. The first chunk is
+     * generated right away, so errors still turn into an error response.
      *
      * @param agent
      *            User Agent
-     * @return generated ID
+     * @param count
+     *            Number of IDs to return, a single ID when absent
+     * @return batch of IDs
+     * @throws SnowizardException
+     *             When the count is above the maximum
+     */
+    public IdBatch getBatch(final String agent, final Optional<IntParam> count) {
+        if (count.isPresent() && count.get().get() > maxCount) {
+            throw new SnowizardException(Response.Status.BAD_REQUEST,
+                    String.format("count must be at most %d", maxCount));
+        }
+        if (!count.isPresent()) {
+            return new IdBatch(new IdBatch.Source() {
+                @Override
+                public void fill(final long[] ids, final int offset,
+                        final int length) {
+                    ids[offset] = getId(agent);
+                }
+            }, 1).prefetch();
+        }
+        return new IdBatch(new IdBatch.Source() {
+            @Override
+            public void fill(final long[] ids, final int offset,
+                    final int length) {
+                getIds(agent, ids, offset, length);
+            }
+        }, Math.max(0, count.get().get())).prefetch();
+    }
+
+    /**
+     * Get a new ID as plain text, or with a count, newline-delimited IDs
+     * written by the {@link TextIdBatchWriter}
+     *
+     * @param agent
+     *            User Agent
+     * @param count
+     *            Number of IDs to return
+     * @return response holding the generated ID, or an {@link IdBatch} of IDs
      */
     @GET
     @Timed
     @Produces(MediaType.TEXT_PLAIN)
     @CacheControl(mustRevalidate = true, noCache = true, noStore = true)
-    public String getIdAsString(
-            @HeaderParam(HttpHeaders.USER_AGENT) final String agent) {
-        return String.valueOf(getId(agent));
+    public Response getIdAsString(
+            @HeaderParam(HttpHeaders.USER_AGENT) final String agent,
+            @QueryParam("count") final Optional<IntParam> count) {
+        if (count.isPresent()) {
+            return Response.ok(getBatch(agent, count)).build();
+        }
+        return Response.ok(String.valueOf(getId(agent))).build();
     }
 
     /**
-     * Get a new ID as JSON
+     * Get a new ID as JSON, or with a count, an array of IDs written by the
+     * {@link JsonIdBatchWriter}
      *
      * @param agent
      *            User Agent
-     * @return generated ID
+     * @param count
+     *            Number of IDs to return
+     * @return generated ID, or {@link IdBatch} of IDs
      */
     @GET
     @Timed
     @JSONP(callback = "callback", queryParam = "callback")
-    @Produces({ MediaType.APPLICATION_JSON,
-        MediaTypeAdditional.APPLICATION_JAVASCRIPT })
+    @Produces({ MediaType.APPLICATION_JSON + SECONDARY,
+        MediaTypeAdditional.APPLICATION_JAVASCRIPT + SECONDARY })
     @CacheControl(mustRevalidate = true, noCache = true, noStore = true)
-    public Id getIdAsJSON(
-            @HeaderParam(HttpHeaders.USER_AGENT) final String agent) {
+    public Object getIdAsJSON(
+            @HeaderParam(HttpHeaders.USER_AGENT) final String agent,
+            @QueryParam("count") final Optional<IntParam> count) {
+        if (count.isPresent()) {
+            return getBatch(agent, count);
+        }
         return new Id(getId(agent));
     }
 
     /**
-     * Get one or more IDs as a Google Protocol Buffer response
+     * Get one or more IDs as a Google Protocol Buffer response, encoded as a
+     * {@link SnowizardResponse} by the {@link ProtobufIdBatchWriter}
      *
      * @param agent
      *            User Agent
@@ -110,20 +273,123 @@ public class IdResource {
      */
     @GET
     @Timed
-    @Produces(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+    @Produces(ProtocolBufferMediaType.APPLICATION_PROTOBUF + SECONDARY)
     @CacheControl(mustRevalidate = true, noCache = true, noStore = true)
-    public SnowizardResponse getIdAsProtobuf(
+    public IdBatch getIdAsProtobuf(
             @HeaderParam(HttpHeaders.USER_AGENT) final String agent,
             @QueryParam("count") final Optional<IntParam> count) {
+        return getBatch(agent, count);
+    }
 
-        final List<Long> ids = Lists.newArrayList();
-        if (count.isPresent()) {
-            for (int i = 0; i < count.get().get(); i++) {
-                ids.add(getId(agent));
+    /**
+     * Get one or more IDs as big-endian 64-bit values, written by the
+     * {@link BinaryIdBatchWriter}
+     *
+     * @param agent
+     *            User Agent
+     * @param count
+     *            Number of IDs to return
+     * @return generated IDs
+     */
+    @GET
+    @Timed
+    @Produces(MediaType.APPLICATION_OCTET_STREAM + SECONDARY)
+    @CacheControl(mustRevalidate = true, noCache = true, noStore = true)
+    public IdBatch getIdAsBinary(
+            @HeaderParam(HttpHeaders.USER_AGENT) final String agent,
+            @QueryParam("count") final Optional<IntParam> count) {
+        return getBatch(agent, count);
+    }
+
+    /**
+     * Stream IDs as big-endian 64-bit values until the client disconnects,
+     * written by the {@link IdStreamWriter} one frame at a time. A frame is
+     * only generated once the previous one has been written, so a client
+     * that stops reading stops generation.
+     *
+     * @param agent
+     *            User Agent
+     * @param frame
+     *            Number of IDs in each frame
+     * @return stream of IDs
+     */
+    @GET
+    @Timed
+    @Path("/stream")
+    @Produces(MediaType.APPLICATION_OCTET_STREAM)
+    @CacheControl(mustRevalidate = true, noCache = true, noStore = true)
+    public IdStream getIdStream(
+            @HeaderParam(HttpHeaders.USER_AGENT) final String agent,
+            @QueryParam("frame") final Optional<IntParam> frame) {
+        final int frameSize = frame.isPresent() ? frame.get().get()
+                : IdStream.DEFAULT_FRAME_SIZE;
+        if (frameSize < 1 || frameSize > IdStream.MAX_FRAME_SIZE) {
+            throw new SnowizardException(Response.Status.BAD_REQUEST,
+                    String.format("frame must be between 1 and %d",
+                            IdStream.MAX_FRAME_SIZE));
+        }
+        return new IdStream(new IdBatch.Source() {
+            @Override
+            public void fill(final long[] ids, final int offset,
+                    final int length) {
+                getIds(agent, ids, offset, length);
             }
-        } else {
-            ids.add(getId(agent));
+        }, frameSize).prefetch();
+    }
+
+    /**
+     * Decode a batch of IDs posted as a JSON array
+     *
+     * @param ids
+     *            IDs to decode, at most the maximum count
+     * @return decoded components of the IDs
+     */
+    @POST
+    @Timed
+    @Path("/decode")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public DecodedIds decodeAsJSON(@NotNull final long[] ids) {
+        final IdDecoder.Columns columns = decode(ids);
+        return new DecodedIds(columns.getTimestamps(),
+                columns.getDatacenterIds(), columns.getWorkerIds(),
+                columns.getSequences());
+    }
+
+    /**
+     * Decode a batch of IDs posted as a {@link SnowizardDecodeRequest}, read
+     * by the {@link ProtobufDecodeRequestReader} and answered with a
+     * {@link SnowizardDecodeResponse} written by the
+     * {@link ProtobufDecodeResponseWriter}
+     *
+     * @param ids
+     *            IDs to decode, at most the maximum count
+     * @return decoded components of the IDs
+     */
+    @POST
+    @Timed
+    @Path("/decode")
+    @Consumes(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+    @Produces(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+    public IdDecoder.Columns decodeAsProtobuf(@NotNull final long[] ids) {
+        return decode(ids);
+    }
+
+    /**
+     * Decode a batch of IDs
+     *
+     * @param ids
+     *            IDs to decode
+     * @return decoded components of the IDs
+     * @throws SnowizardException
+     *             When there are more IDs than the maximum count
+     */
+    private IdDecoder.Columns decode(final long[] ids) {
+        if (ids.length > maxCount) {
+            throw new SnowizardException(Response.Status.BAD_REQUEST,
+                    String.format("at most %d IDs can be decoded at once",
+                            maxCount));
         }
-        return SnowizardResponse.newBuilder().addAllId(ids).build();
+        return decoder.decode(ids);
     }
 }
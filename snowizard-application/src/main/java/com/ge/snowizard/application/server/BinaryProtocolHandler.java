@@ -0,0 +1,193 @@
+package com.ge.snowizard.application.server;
+
+import static com.ge.snowizard.api.BinaryProtocol.BAD_REQUEST;
+import static com.ge.snowizard.api.BinaryProtocol.HEADER_BYTES;
+import static com.ge.snowizard.api.BinaryProtocol.INTERNAL_SERVER_ERROR;
+import static com.ge.snowizard.api.BinaryProtocol.LENGTH_BYTES;
+import static com.ge.snowizard.api.BinaryProtocol.MAX_AGENT_BYTES;
+import static com.ge.snowizard.api.BinaryProtocol.MAX_MESSAGE_BYTES;
+import static com.ge.snowizard.api.BinaryProtocol.OK;
+import static com.ge.snowizard.api.BinaryProtocol.SERVICE_UNAVAILABLE;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.api.BinaryProtocol;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
+import com.google.common.primitives.Longs;
+
+/**
+ * Handler of a single connection speaking the {@link BinaryProtocol}. IDs are
+ * generated straight into the connection's output buffer, and the user agent
+ * of the previous request is reused while a client keeps sending the same
+ * one.
+ */
+final class BinaryProtocolHandler implements ProtocolHandler {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(BinaryProtocolHandler.class);
+
+    private final IdGenerator worker;
+    private final int maxCount;
+    private final byte[] agentBytes = new byte[MAX_AGENT_BYTES];
+    private int agentLength = -1;
+    private String agent;
+
+    /**
+     * Constructor
+     *
+     * @param worker
+     *            ID generator to serve IDs from
+     * @param maxCount
+     *            Most IDs a single request may ask for
+     */
+    BinaryProtocolHandler(final IdGenerator worker, final int maxCount) {
+        this.worker = worker;
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    public boolean handle(final ByteBuffer input, final Connection connection) {
+        while (input.remaining() >= LENGTH_BYTES && !connection.isBackedUp()) {
+            final int start = input.position();
+            final int length = input.getInt(start);
+            if (length < HEADER_BYTES || length > HEADER_BYTES + MAX_AGENT_BYTES) {
+                LOGGER.debug("Closing connection after a frame of {} bytes",
+                        length);
+                return false;
+            }
+            if (input.remaining() < LENGTH_BYTES + length) {
+                break;
+            }
+            final int requestId = input.getInt(start + LENGTH_BYTES);
+            final int count = input.getInt(start + LENGTH_BYTES + 4);
+            final String requestAgent = agent(input, start + LENGTH_BYTES
+                    + HEADER_BYTES, length - HEADER_BYTES);
+            input.position(start + LENGTH_BYTES + length);
+            respond(connection, requestId, requestAgent, count);
+        }
+        return true;
+    }
+
+    /**
+     * Decode the user agent of a request, unless it matches the previous one
+     *
+     * @param input
+     *            Request bytes
+     * @param offset
+     *            Position of the user agent
+     * @param length
+     *            Length of the user agent in bytes
+     * @return user agent
+     */
+    private String agent(final ByteBuffer input, final int offset,
+            final int length) {
+        boolean same = length == agentLength;
+        for (int i = 0; same && i < length; i++) {
+            same = input.get(offset + i) == agentBytes[i];
+        }
+        if (!same) {
+            for (int i = 0; i < length; i++) {
+                agentBytes[i] = input.get(offset + i);
+            }
+            agentLength = length;
+            agent = new String(agentBytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return agent;
+    }
+
+    /**
+     * Write the response to a single request
+     *
+     * @param connection
+     *            Connection to write to
+     * @param requestId
+     *            ID of the request
+     * @param agent
+     *            User agent of the request
+     * @param count
+     *            Number of IDs requested
+     */
+    private void respond(final Connection connection, final int requestId,
+            final String agent, final int count) {
+        if (count < 0 || count > maxCount) {
+            error(connection, requestId, BAD_REQUEST, String.format(
+                    "count must be between 0 and %d", maxCount));
+            return;
+        }
+        final int bytes = count * Longs.BYTES;
+        final ByteBuffer output = connection.reserve(LENGTH_BYTES
+                + HEADER_BYTES + bytes);
+        final int start = output.position();
+        output.putInt(HEADER_BYTES + bytes).putInt(requestId).putInt(OK);
+        final LongBuffer ids = output.slice().asLongBuffer();
+        ids.limit(count);
+        try {
+            worker.getIds(agent, ids);
+            output.position(output.position() + bytes);
+        } catch (final InvalidUserAgentError e) {
+            LOGGER.error("Invalid user agent ({})", agent);
+            output.position(start);
+            error(connection, requestId, BAD_REQUEST, "Invalid user agent");
+        } catch (final InvalidSystemClock e) {
+            LOGGER.error("Invalid system clock", e);
+            output.position(start);
+            error(connection, requestId, INTERNAL_SERVER_ERROR, e.getMessage());
+        } catch (final WorkerIdUnavailable e) {
+            LOGGER.error("Worker ID unavailable", e);
+            output.position(start);
+            error(connection, requestId, SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * Write an error response
+     *
+     * @param connection
+     *            Connection to write to
+     * @param requestId
+     *            ID of the failed request
+     * @param status
+     *            Status code
+     * @param message
+     *            Error message, cut to {@link BinaryProtocol#MAX_MESSAGE_BYTES}
+     *            at a character boundary
+     */
+    private static void error(final Connection connection,
+            final int requestId, final int status, final String message) {
+        final byte[] encoded = String.valueOf(message).getBytes(
+                StandardCharsets.UTF_8);
+        final byte[] bytes = Arrays.copyOf(encoded,
+                truncatedLength(encoded, MAX_MESSAGE_BYTES));
+        connection.reserve(LENGTH_BYTES + HEADER_BYTES + bytes.length)
+                .putInt(HEADER_BYTES + bytes.length).putInt(requestId)
+                .putInt(status).put(bytes);
+    }
+
+    /**
+     * Return the length of the longest prefix of UTF-8 encoded bytes that
+     * fits in a limit without splitting a character
+     *
+     * @param utf8
+     *            UTF-8 encoded bytes
+     * @param limit
+     *            Most bytes to keep
+     * @return number of bytes to keep
+     */
+    static int truncatedLength(final byte[] utf8, final int limit) {
+        if (utf8.length <= limit) {
+            return utf8.length;
+        }
+        int end = limit;
+        // back off over continuation bytes (10xxxxxx) to a character start
+        while (end > 0 && (utf8[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return end;
+    }
+}
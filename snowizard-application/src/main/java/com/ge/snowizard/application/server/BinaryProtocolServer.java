@@ -0,0 +1,56 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.net.InetSocketAddress;
+import java.util.List;
+import com.ge.snowizard.api.BinaryProtocol;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdWorkerLanes;
+
+/**
+ * Listener speaking the pipelined {@link BinaryProtocol}, with the
+ * connections spread across the lanes of an {@link IdWorkerLanes}
+ */
+public class BinaryProtocolServer extends SelectorServer {
+
+    private final List<IdGenerator> lanes;
+    private final int maxCount;
+
+    /**
+     * Constructor
+     *
+     * @param address
+     *            Address to listen on
+     * @param lanes
+     *            ID generators to serve IDs from
+     * @param maxCount
+     *            Most IDs a single request may ask for
+     */
+    public BinaryProtocolServer(final InetSocketAddress address,
+            final IdWorkerLanes lanes, final int maxCount) {
+        this(new TcpListener(address), lanes, maxCount);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param listener
+     *            Server socket to accept connections from
+     * @param lanes
+     *            ID generators to serve IDs from
+     * @param maxCount
+     *            Most IDs a single request may ask for
+     */
+    public BinaryProtocolServer(final Listener listener,
+            final IdWorkerLanes lanes, final int maxCount) {
+        super("binary", listener, lanes.getLanes().size());
+        checkArgument(maxCount > 0, "max count must be positive");
+        this.lanes = lanes.getLanes();
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    protected ProtocolHandler newHandler(final int lane) {
+        return new BinaryProtocolHandler(lanes.get(lane), maxCount);
+    }
+}
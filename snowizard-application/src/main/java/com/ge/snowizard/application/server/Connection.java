@@ -0,0 +1,233 @@
+package com.ge.snowizard.application.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.Executor;
+
+/**
+ * Buffered state of a single non-blocking connection of a
+ * {@link SelectorServer}. Requests are read into a fixed input buffer and
+ * responses are appended to an output buffer that grows as needed. Once the
+ * unwritten output passes a limit the connection stops reading, so a client
+ * that does not read its responses holds back its own requests instead of
+ * the server's memory.
+ *
+ * <p>
+ * Buffered requests are handled on the connection's lane thread. While they
+ * are, the connection is not selected for any event, so its buffers only
+ * ever belong to one thread at a time.
+ */
+public final class Connection {
+
+    private static final int INPUT_BUFFER_SIZE = 8192;
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+    private static final int MAX_PENDING_BYTES = 1 << 20;
+
+    private final ByteChannel channel;
+    private final SelectionKey key;
+    private final ProtocolHandler handler;
+    private final Executor lane;
+    private final SelectorServer server;
+    private final ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+    private final Runnable handle = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                closing = !handler.handle(input, Connection.this);
+            } catch (final RuntimeException e) {
+                failure = e;
+            } finally {
+                input.compact();
+                server.handled(Connection.this);
+            }
+        }
+    };
+    private ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+    private RuntimeException failure;
+    private boolean unhandled;
+    private boolean handling;
+    private boolean eof;
+    private boolean closing;
+
+    /**
+     * Constructor
+     *
+     * @param channel
+     *            Non-blocking channel of the connection
+     * @param key
+     *            Registration of the channel with the server's selector
+     * @param handler
+     *            Protocol spoken on the connection
+     * @param lane
+     *            Thread handling the connection's requests
+     * @param server
+     *            Server the connection belongs to until closed
+     */
+    Connection(final ByteChannel channel, final SelectionKey key,
+            final ProtocolHandler handler, final Executor lane,
+            final SelectorServer server) {
+        this.channel = channel;
+        this.key = key;
+        this.handler = handler;
+        this.lane = lane;
+        this.server = server;
+        server.getConnections().add(this);
+    }
+
+    /**
+     * Return the output buffer with room for at least the given number of
+     * bytes. Responses are written at its current position.
+     *
+     * @param bytes
+     *            Number of bytes about to be written
+     * @return output buffer
+     */
+    public ByteBuffer reserve(final int bytes) {
+        if (output.remaining() < bytes) {
+            final int capacity = Math.max(output.capacity() * 2,
+                    output.position() + bytes);
+            final ByteBuffer grown = ByteBuffer.allocate(capacity);
+            output.flip();
+            grown.put(output);
+            output = grown;
+        }
+        return output;
+    }
+
+    /**
+     * Return whether enough output is waiting to be written that no further
+     * requests should be handled until the client catches up
+     *
+     * @return whether the connection is backed up
+     */
+    public boolean isBackedUp() {
+        return output.position() >= MAX_PENDING_BYTES;
+    }
+
+    /**
+     * Read whatever the client has sent and hand it to the lane thread
+     *
+     * @throws IOException
+     *             When the connection fails
+     */
+    void read() throws IOException {
+        if (handling) {
+            return;
+        }
+        final int read = channel.read(input);
+        if (read == -1) {
+            eof = true;
+        } else if (read > 0) {
+            unhandled = true;
+        }
+        process();
+    }
+
+    /**
+     * Write pending output now that the client has room for it, handling any
+     * requests held back while the connection was backed up
+     *
+     * @throws IOException
+     *             When the connection fails
+     */
+    void write() throws IOException {
+        if (!handling) {
+            process();
+        }
+    }
+
+    /**
+     * Write the responses of the requests just handled on the lane thread,
+     * and carry on with the connection
+     *
+     * @throws IOException
+     *             When the connection fails or handling the requests failed
+     */
+    void resume() throws IOException {
+        handling = false;
+        if (!key.isValid()) {
+            return;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        // the handler stops early only once the connection is backed up
+        unhandled = isBackedUp() && input.position() > 0;
+        process();
+    }
+
+    /**
+     * Write as much output as the client accepts, then either hand requests
+     * that have not been handled yet to the lane thread or select the events
+     * to wait for next
+     *
+     * @throws IOException
+     *             When the connection fails or a request does not fit in the
+     *             input buffer
+     */
+    private void process() throws IOException {
+        flush();
+        if (unhandled && !closing && !isBackedUp()) {
+            unhandled = false;
+            handling = true;
+            key.interestOps(0);
+            input.flip();
+            lane.execute(handle);
+            return;
+        }
+        if (!input.hasRemaining() && !isBackedUp()) {
+            throw new IOException(String.format(
+                    "Request exceeds %d bytes", input.capacity()));
+        }
+        if (eof && !isBackedUp()) {
+            closing = true;
+        }
+
+        if (closing && output.position() == 0) {
+            close();
+            return;
+        }
+        int ops = 0;
+        if (!closing && !isBackedUp()) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (output.position() > 0) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    /**
+     * Write as much pending output as the channel accepts, releasing a grown
+     * output buffer once it is empty
+     *
+     * @throws IOException
+     *             When the connection fails
+     */
+    private void flush() throws IOException {
+        if (output.position() == 0) {
+            return;
+        }
+        output.flip();
+        channel.write(output);
+        output.compact();
+        if (output.position() == 0 && output.capacity() > OUTPUT_BUFFER_SIZE) {
+            output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Close the connection, discarding any pending output
+     */
+    void close() {
+        server.getConnections().remove(this);
+        key.cancel();
+        try {
+            channel.close();
+        } catch (final IOException ignore) {
+            // already closing
+        }
+    }
+}
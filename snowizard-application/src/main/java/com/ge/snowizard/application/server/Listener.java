@@ -0,0 +1,51 @@
+package com.ge.snowizard.application.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+
+/**
+ * Server socket a {@link SelectorServer} accepts its connections from
+ */
+public interface Listener extends Closeable {
+
+    /**
+     * Bind the server socket
+     *
+     * @return non-blocking server channel to select accepts on
+     * @throws IOException
+     *             When unable to bind
+     */
+    SelectableChannel bind() throws IOException;
+
+    /**
+     * Open a selector able to select the channels of this listener
+     *
+     * @return selector
+     * @throws IOException
+     *             When unable to open a selector
+     */
+    Selector openSelector() throws IOException;
+
+    /**
+     * Accept a single pending connection
+     *
+     * @return non-blocking channel of the connection, which is both a
+     *         {@link SelectableChannel} and a {@link ByteChannel}
+     * @throws IOException
+     *             When unable to accept a connection
+     */
+    SelectableChannel accept() throws IOException;
+
+    /**
+     * Return the address the listener is bound to
+     *
+     * @return local address
+     * @throws IOException
+     *             When the listener isn't bound
+     */
+    SocketAddress getLocalAddress() throws IOException;
+}
@@ -0,0 +1,339 @@
+package com.ge.snowizard.application.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.application.core.Decimal;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
+
+/**
+ * Handler of a single connection speaking the retrieval subset of the
+ * memcached text protocol. Key {@code id} is a single fresh ID and key
+ * {@code id:<count>} is {@code count} fresh IDs separated by newlines; other
+ * keys are misses. Every key of a multi-key get gets its own IDs, all
+ * generated in one call to the worker, and the keys are echoed from the
+ * input without being decoded.
+ */
+final class MemcachedHandler implements ProtocolHandler {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(MemcachedHandler.class);
+    private static final int MAX_KEY_LENGTH = 250;
+    private static final int MISS = -1;
+    private static final int INVALID = -2;
+    private static final byte[] GET = ascii("get");
+    private static final byte[] GETS = ascii("gets");
+    private static final byte[] VERSION = ascii("version");
+    private static final byte[] QUIT = ascii("quit");
+    private static final byte[] KEY = ascii("id");
+    private static final byte[] VALUE = ascii("VALUE ");
+    private static final byte[] FLAGS = ascii(" 0 ");
+    private static final byte[] CAS = ascii(" 0");
+    private static final byte[] CRLF = ascii("\r\n");
+    private static final byte[] END = ascii("END\r\n");
+    private static final byte[] ERROR = ascii("ERROR\r\n");
+
+    private final IdGenerator worker;
+    private final String agent;
+    private final int maxCount;
+    private final byte[] version;
+    private final byte[] digits = new byte[Decimal.MAX_LENGTH];
+    private int[] keyStarts = new int[16];
+    private int[] keyEnds = new int[16];
+    private int[] counts = new int[16];
+    private long[] ids = new long[16];
+    private byte[] value = new byte[256];
+
+    /**
+     * Constructor
+     *
+     * @param worker
+     *            ID generator to serve IDs from
+     * @param agent
+     *            User agent to generate IDs for
+     * @param maxCount
+     *            Most IDs a single get may ask for across all of its keys
+     * @param version
+     *            Version reported by the {@code version} command
+     */
+    MemcachedHandler(final IdGenerator worker, final String agent,
+            final int maxCount, final String version) {
+        this.worker = worker;
+        this.agent = agent;
+        this.maxCount = maxCount;
+        this.version = ascii("VERSION " + version + "\r\n");
+    }
+
+    @Override
+    public boolean handle(final ByteBuffer input, final Connection connection) {
+        while (!connection.isBackedUp()) {
+            final int start = input.position();
+            int end = start;
+            while (end < input.limit() && input.get(end) != '\n') {
+                end++;
+            }
+            if (end == input.limit()) {
+                break;
+            }
+            input.position(end + 1);
+            if (end > start && input.get(end - 1) == '\r') {
+                end--;
+            }
+            if (!command(input, start, end, connection)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Execute a single command line
+     *
+     * @param input
+     *            Request bytes
+     * @param start
+     *            Position of the line
+     * @param end
+     *            Position of the end of the line, excluding its terminator
+     * @param connection
+     *            Connection to write to
+     * @return whether to keep the connection open
+     */
+    private boolean command(final ByteBuffer input, final int start,
+            final int end, final Connection connection) {
+        final int commandEnd = tokenEnd(input, start, end);
+        if (matches(input, start, commandEnd, GET)) {
+            get(input, commandEnd, end, false, connection);
+        } else if (matches(input, start, commandEnd, GETS)) {
+            get(input, commandEnd, end, true, connection);
+        } else if (matches(input, start, commandEnd, VERSION)) {
+            connection.reserve(version.length).put(version);
+        } else if (matches(input, start, commandEnd, QUIT)) {
+            return false;
+        } else {
+            connection.reserve(ERROR.length).put(ERROR);
+        }
+        return true;
+    }
+
+    /**
+     * Answer a get of one or more keys
+     *
+     * @param input
+     *            Request bytes
+     * @param start
+     *            Position following the command name
+     * @param end
+     *            Position of the end of the line
+     * @param cas
+     *            whether to include a CAS value, for {@code gets}
+     * @param connection
+     *            Connection to write to
+     */
+    private void get(final ByteBuffer input, final int start, final int end,
+            final boolean cas, final Connection connection) {
+        int keys = 0;
+        int total = 0;
+        int position = start;
+        while (true) {
+            while (position < end && input.get(position) == ' ') {
+                position++;
+            }
+            if (position == end) {
+                break;
+            }
+            final int keyEnd = tokenEnd(input, position, end);
+            if (keyEnd - position > MAX_KEY_LENGTH) {
+                clientError(connection, "bad command line format");
+                return;
+            }
+            final int count = count(input, position, keyEnd);
+            if (count == INVALID || total + Math.max(count, 0) > maxCount) {
+                clientError(connection, String.format(
+                        "count must be between 1 and %d in total", maxCount));
+                return;
+            }
+            if (keys == keyStarts.length) {
+                keyStarts = Arrays.copyOf(keyStarts, keys * 2);
+                keyEnds = Arrays.copyOf(keyEnds, keys * 2);
+                counts = Arrays.copyOf(counts, keys * 2);
+            }
+            keyStarts[keys] = position;
+            keyEnds[keys] = keyEnd;
+            counts[keys] = count;
+            keys++;
+            total += Math.max(count, 0);
+            position = keyEnd;
+        }
+        if (keys == 0) {
+            connection.reserve(ERROR.length).put(ERROR);
+            return;
+        }
+
+        if (ids.length < total) {
+            ids = new long[Math.max(total, ids.length * 2)];
+        }
+        try {
+            if (total > 0) {
+                worker.getIds(agent, ids, 0, total);
+            }
+        } catch (final InvalidUserAgentError e) {
+            LOGGER.error("Invalid user agent ({})", agent);
+            serverError(connection, "Invalid user agent");
+            return;
+        } catch (final InvalidSystemClock e) {
+            LOGGER.error("Invalid system clock", e);
+            serverError(connection, e.getMessage());
+            return;
+        } catch (final WorkerIdUnavailable e) {
+            LOGGER.error("Worker ID unavailable", e);
+            serverError(connection, e.getMessage());
+            return;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < keys; i++) {
+            if (counts[i] > 0) {
+                writeValue(input, keyStarts[i], keyEnds[i], offset,
+                        counts[i], cas, connection);
+                offset += counts[i];
+            }
+        }
+        connection.reserve(END.length).put(END);
+    }
+
+    /**
+     * Return the number of IDs a key asks for
+     *
+     * @param input
+     *            Request bytes
+     * @param start
+     *            Position of the key
+     * @param end
+     *            Position of the end of the key
+     * @return number of IDs, {@link #MISS} for a key that isn't an ID key, or
+     *         {@link #INVALID} for an ID key with an invalid count
+     */
+    private int count(final ByteBuffer input, final int start, final int end) {
+        if (end - start < KEY.length
+                || !matches(input, start, start + KEY.length, KEY)) {
+            return MISS;
+        }
+        if (end - start == KEY.length) {
+            return 1;
+        }
+        if (input.get(start + KEY.length) != ':') {
+            return MISS;
+        }
+        long count = 0;
+        for (int i = start + KEY.length + 1; i < end; i++) {
+            final byte b = input.get(i);
+            if (b < '0' || b > '9' || count > maxCount) {
+                return INVALID;
+            }
+            count = count * 10 + (b - '0');
+        }
+        if (count < 1 || count > maxCount) {
+            return INVALID;
+        }
+        return (int) count;
+    }
+
+    /**
+     * Write a single {@code VALUE} block of newline-separated IDs
+     *
+     * @param input
+     *            Request bytes holding the key
+     * @param keyStart
+     *            Position of the key
+     * @param keyEnd
+     *            Position of the end of the key
+     * @param offset
+     *            Index of the first ID of the block
+     * @param count
+     *            Number of IDs in the block
+     * @param cas
+     *            whether to include a CAS value
+     * @param connection
+     *            Connection to write to
+     */
+    private void writeValue(final ByteBuffer input, final int keyStart,
+            final int keyEnd, final int offset, final int count,
+            final boolean cas, final Connection connection) {
+        final int capacity = count * (Decimal.MAX_LENGTH + 1);
+        if (value.length < capacity) {
+            value = new byte[Math.max(capacity, value.length * 2)];
+        }
+        int length = 0;
+        for (int i = offset; i < offset + count; i++) {
+            if (length > 0) {
+                value[length++] = '\n';
+            }
+            final int first = Decimal.format(ids[i], digits);
+            final int size = Decimal.MAX_LENGTH - first;
+            System.arraycopy(digits, first, value, length, size);
+            length += size;
+        }
+
+        final int lengthFirst = Decimal.format(length, digits);
+        final int keyLength = keyEnd - keyStart;
+        final ByteBuffer output = connection.reserve(VALUE.length + keyLength
+                + FLAGS.length + Decimal.MAX_LENGTH + CAS.length
+                + CRLF.length + length + CRLF.length);
+        output.put(VALUE);
+        for (int i = keyStart; i < keyEnd; i++) {
+            output.put(input.get(i));
+        }
+        output.put(FLAGS);
+        output.put(digits, lengthFirst, Decimal.MAX_LENGTH - lengthFirst);
+        if (cas) {
+            output.put(CAS);
+        }
+        output.put(CRLF);
+        output.put(value, 0, length);
+        output.put(CRLF);
+    }
+
+    private static void clientError(final Connection connection,
+            final String message) {
+        final byte[] bytes = ascii("CLIENT_ERROR " + message + "\r\n");
+        connection.reserve(bytes.length).put(bytes);
+    }
+
+    private static void serverError(final Connection connection,
+            final String message) {
+        final byte[] bytes = ascii("SERVER_ERROR " + message + "\r\n");
+        connection.reserve(bytes.length).put(bytes);
+    }
+
+    private static int tokenEnd(final ByteBuffer input, final int start,
+            final int end) {
+        int position = start;
+        while (position < end && input.get(position) != ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean matches(final ByteBuffer input, final int start,
+            final int end, final byte[] token) {
+        if (end - start != token.length) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (input.get(start + i) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
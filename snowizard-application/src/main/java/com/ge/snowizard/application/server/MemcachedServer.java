@@ -0,0 +1,52 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.net.InetSocketAddress;
+import java.util.List;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Listener answering gets of the {@code id} and {@code id:<count>} keys in the
+ * memcached text protocol, so that existing pipelining memcached clients can
+ * fetch IDs. Connections are spread across the lanes of an
+ * {@link IdWorkerLanes}.
+ */
+public class MemcachedServer extends SelectorServer {
+
+    private final List<IdGenerator> lanes;
+    private final String agent;
+    private final int maxCount;
+    private final String version;
+
+    /**
+     * Constructor
+     *
+     * @param address
+     *            Address to listen on
+     * @param lanes
+     *            ID generators to serve IDs from
+     * @param agent
+     *            User agent to generate IDs for
+     * @param maxCount
+     *            Most IDs a single get may ask for across all of its keys
+     */
+    public MemcachedServer(final InetSocketAddress address,
+            final IdWorkerLanes lanes, final String agent, final int maxCount) {
+        super("memcached", new TcpListener(address), lanes.getLanes().size());
+        checkArgument(maxCount > 0, "max count must be positive");
+        this.lanes = lanes.getLanes();
+        this.agent = checkNotNull(agent);
+        this.maxCount = maxCount;
+        this.version = MoreObjects.firstNonNull(getClass().getPackage()
+                .getImplementationVersion(), "unknown");
+    }
+
+    @Override
+    protected ProtocolHandler newHandler(final int lane) {
+        return new MemcachedHandler(lanes.get(lane), agent, maxCount,
+                version);
+    }
+}
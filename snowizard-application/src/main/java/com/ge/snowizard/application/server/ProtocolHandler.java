@@ -0,0 +1,28 @@
+package com.ge.snowizard.application.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Protocol spoken on a single connection of a {@link SelectorServer}. Each
+ * connection gets its own handler, called from the thread of the
+ * connection's lane only, so a handler may generate IDs without holding up
+ * the server's other lanes.
+ */
+public interface ProtocolHandler {
+
+    /**
+     * Handle the complete requests at the start of the input, writing their
+     * responses to the connection and leaving any incomplete request in
+     * place. Handlers should stop early, leaving the remaining requests in
+     * the input, once the connection is backed up; they are called again as
+     * soon as it drains.
+     *
+     * @param input
+     *            Bytes received and not yet handled
+     * @param connection
+     *            Connection to write responses to
+     * @return whether to keep the connection open once the responses are
+     *         written
+     */
+    boolean handle(ByteBuffer input, Connection connection);
+}
@@ -0,0 +1,316 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import io.dropwizard.lifecycle.Managed;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Non-blocking server serving every connection of a {@link Listener} from a
+ * single selector thread, so a client can pipeline any number of requests
+ * over one connection without a thread per connection or per request.
+ * Requests are handled off the selector thread, by one thread per lane:
+ * connections are spread across the lanes as they are accepted, and
+ * whatever a connection has buffered is handled in one go on its lane's
+ * thread. A large request, or a lane waiting for its clock, then only holds
+ * back the connections of that lane. The protocol is supplied by subclasses.
+ */
+public abstract class SelectorServer implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SelectorServer.class);
+    private static final long ACCEPT_BACKOFF_MS = 100L;
+
+    private final String name;
+    private final Listener listener;
+    private final int lanes;
+    private final Set<Connection> connections = Sets.newIdentityHashSet();
+    private final Queue<Connection> handled = new ConcurrentLinkedQueue<>();
+    private ExecutorService[] executors;
+    private int nextLane;
+    private Selector selector;
+    private SelectionKey acceptKey;
+    private long acceptPausedUntil;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Constructor
+     *
+     * @param name
+     *            Name of the protocol, used for the threads and in logs
+     * @param listener
+     *            Server socket to accept connections from
+     * @param lanes
+     *            Number of lanes, each handling requests on its own thread
+     */
+    protected SelectorServer(final String name, final Listener listener,
+            final int lanes) {
+        checkArgument(lanes > 0, "at least one lane is required");
+        this.name = checkNotNull(name);
+        this.listener = checkNotNull(listener);
+        this.lanes = lanes;
+    }
+
+    /**
+     * Create the protocol handler for a newly accepted connection
+     *
+     * @param lane
+     *            Lane the connection is handled by, from 0 to the number of
+     *            lanes
+     * @return protocol handler
+     */
+    protected abstract ProtocolHandler newHandler(int lane);
+
+    @Override
+    public void start() throws IOException {
+        checkState(thread == null, "%s server already started", name);
+        selector = listener.openSelector();
+        try {
+            acceptKey = listener.bind().register(selector,
+                    SelectionKey.OP_ACCEPT);
+        } catch (final IOException e) {
+            selector.close();
+            throw e;
+        }
+
+        executors = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            executors[i] = Executors
+                    .newSingleThreadExecutor(new ThreadFactoryBuilder()
+                            .setNameFormat("snowizard-" + name + "-lane-" + i)
+                            .setDaemon(true).build());
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "snowizard-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Serving {} protocol on {}", name,
+                listener.getLocalAddress());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        thread.join();
+        thread = null;
+        for (final ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (final ExecutorService executor : executors) {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Return the port the server is listening on
+     *
+     * @return local port
+     * @throws IOException
+     *             When the server is not listening
+     */
+    public int getLocalPort() throws IOException {
+        checkState(thread != null, "%s server not started", name);
+        final SocketAddress address = listener.getLocalAddress();
+        checkState(address instanceof InetSocketAddress,
+                "%s server is not listening on a port", name);
+        return ((InetSocketAddress) address).getPort();
+    }
+
+    /**
+     * Return the open connections, which belong to the selector thread
+     *
+     * @return open connections
+     */
+    Set<Connection> getConnections() {
+        return connections;
+    }
+
+    /**
+     * Dispatch selected events and handled connections until stopped or the
+     * selector fails, then close every connection
+     */
+    private void serve() {
+        try {
+            while (running) {
+                select();
+                final Iterator<SelectionKey> keys = selector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    dispatch(key);
+                }
+                Connection connection;
+                while ((connection = handled.poll()) != null) {
+                    resume(connection);
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Stopped serving {} protocol", name, e);
+        } finally {
+            for (final Connection connection : ImmutableList
+                    .copyOf(connections)) {
+                connection.close();
+            }
+            try {
+                listener.close();
+                selector.close();
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to close {} listener", name, e);
+            }
+        }
+    }
+
+    /**
+     * Wait for selected events. While accepts are paused after a failed
+     * accept, the wait is bounded so accepts resume once the back-off is
+     * over.
+     *
+     * @throws IOException
+     *             When the selector fails
+     */
+    private void select() throws IOException {
+        if (acceptKey.interestOps() != 0) {
+            selector.select();
+            return;
+        }
+        final long remaining = TimeUnit.NANOSECONDS
+                .toMillis(acceptPausedUntil - System.nanoTime());
+        if (remaining > 0) {
+            selector.select(remaining);
+        } else {
+            acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+            selector.selectNow();
+        }
+    }
+
+    /**
+     * Accept a connection or hand a ready connection its event. A failing
+     * connection is closed without affecting the others.
+     *
+     * @param key
+     *            Selected key
+     */
+    private void dispatch(final SelectionKey key) {
+        if (key.isValid() && key.isAcceptable()) {
+            accept();
+            return;
+        }
+        final Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+        } catch (final IOException e) {
+            LOGGER.debug("Closing {} connection", name, e);
+            connection.close();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Closing {} connection after unexpected error", name,
+                    e);
+            connection.close();
+        }
+    }
+
+    /**
+     * Hand a connection back to the selector thread once its lane has
+     * handled its requests
+     *
+     * @param connection
+     *            Connection whose requests were handled
+     */
+    void handled(final Connection connection) {
+        if (running) {
+            handled.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Write the responses of a connection whose requests were handled and
+     * carry on with any requests still buffered. A failing connection is
+     * closed without affecting the others.
+     *
+     * @param connection
+     *            Connection whose requests were handled
+     */
+    private void resume(final Connection connection) {
+        try {
+            connection.resume();
+        } catch (final IOException e) {
+            LOGGER.debug("Closing {} connection", name, e);
+            connection.close();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Closing {} connection after unexpected error", name,
+                    e);
+            connection.close();
+        }
+    }
+
+    /**
+     * Accept a pending connection, assign it to the next lane and register
+     * it for reads. When the accept fails, for instance because the process
+     * ran out of file descriptors, only the half-accepted connection is
+     * closed, and accepts pause for a short back-off rather than failing in
+     * a loop while the cause persists.
+     */
+    private void accept() {
+        SelectableChannel channel = null;
+        try {
+            channel = listener.accept();
+            if (channel != null) {
+                final SelectionKey key = channel.register(selector,
+                        SelectionKey.OP_READ);
+                final int lane = nextLane;
+                nextLane = (nextLane + 1) % lanes;
+                key.attach(new Connection((ByteChannel) channel, key,
+                        newHandler(lane), executors[lane], this));
+            }
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Unable to accept {} connection, pausing accepts "
+                    + "for {} ms", name, ACCEPT_BACKOFF_MS, e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (final IOException closeError) {
+                    LOGGER.debug("Unable to close {} connection", name,
+                            closeError);
+                }
+            }
+            acceptKey.interestOps(0);
+            acceptPausedUntil = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(ACCEPT_BACKOFF_MS);
+        }
+    }
+}
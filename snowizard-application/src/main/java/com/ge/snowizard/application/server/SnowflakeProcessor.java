@@ -0,0 +1,167 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
+
+/**
+ * Thrift processor for Twitter Snowflake's service, answering clients
+ * generated from its IDL:
+ *
+ * <pre>
+ * service Snowflake {
+ *   i64 get_worker_id()
+ *   i64 get_timestamp()
+ *   i64 get_id(1:string useragent)
+ *   i64 get_datacenter_id()
+ * }
+ * </pre>
+ *
+ * The four calls only ever exchange a string and an i64, so they are read
+ * and written directly instead of through generated argument and result
+ * classes. Failures are reported as a {@link TApplicationException}.
+ */
+public class SnowflakeProcessor implements TProcessor {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SnowflakeProcessor.class);
+    private static final String GET_ID = "get_id";
+    private static final String GET_WORKER_ID = "get_worker_id";
+    private static final String GET_DATACENTER_ID = "get_datacenter_id";
+    private static final String GET_TIMESTAMP = "get_timestamp";
+    private static final short USERAGENT_FIELD_ID = 1;
+    private static final TField SUCCESS_FIELD = new TField("success",
+            TType.I64, (short) 0);
+
+    private final IdGenerator worker;
+
+    /**
+     * Constructor
+     *
+     * @param worker
+     *            ID generator to serve IDs from
+     */
+    public SnowflakeProcessor(final IdGenerator worker) {
+        this.worker = checkNotNull(worker);
+    }
+
+    @Override
+    public boolean process(final TProtocol in, final TProtocol out)
+            throws TException {
+        final TMessage message = in.readMessageBegin();
+        final String agent = readArguments(in);
+        in.readMessageEnd();
+
+        final long result;
+        try {
+            result = call(message.name, agent);
+        } catch (final TApplicationException e) {
+            if (message.type != TMessageType.ONEWAY) {
+                out.writeMessageBegin(new TMessage(message.name,
+                        TMessageType.EXCEPTION, message.seqid));
+                e.write(out);
+                out.writeMessageEnd();
+                out.getTransport().flush();
+            }
+            return true;
+        }
+        if (message.type == TMessageType.ONEWAY) {
+            return true;
+        }
+        out.writeMessageBegin(new TMessage(message.name, TMessageType.REPLY,
+                message.seqid));
+        out.writeStructBegin(new TStruct(message.name + "_result"));
+        out.writeFieldBegin(SUCCESS_FIELD);
+        out.writeI64(result);
+        out.writeFieldEnd();
+        out.writeFieldStop();
+        out.writeStructEnd();
+        out.writeMessageEnd();
+        out.getTransport().flush();
+        return true;
+    }
+
+    /**
+     * Read the argument struct of a call, skipping every field but the user
+     * agent
+     *
+     * @param in
+     *            Protocol to read from
+     * @return user agent, or null if the call carried none
+     * @throws TException
+     *             When the arguments can't be read
+     */
+    private static String readArguments(final TProtocol in) throws TException {
+        String agent = null;
+        in.readStructBegin();
+        TField field = in.readFieldBegin();
+        while (field.type != TType.STOP) {
+            if (field.id == USERAGENT_FIELD_ID && field.type == TType.STRING) {
+                agent = in.readString();
+            } else {
+                TProtocolUtil.skip(in, field.type);
+            }
+            in.readFieldEnd();
+            field = in.readFieldBegin();
+        }
+        in.readStructEnd();
+        return agent;
+    }
+
+    /**
+     * Dispatch a call to the worker and handle any thrown exceptions
+     *
+     * @param method
+     *            Name of the called method
+     * @param agent
+     *            User agent passed to {@code get_id}
+     * @return result of the call
+     * @throws TApplicationException
+     *             When the method is unknown or the call fails
+     */
+    private long call(final String method, final String agent)
+            throws TApplicationException {
+        try {
+            switch (method) {
+            case GET_ID:
+                return worker.getId(agent);
+            case GET_WORKER_ID:
+                return worker.getWorkerId();
+            case GET_DATACENTER_ID:
+                return worker.getDatacenterId();
+            case GET_TIMESTAMP:
+                return worker.getTimestamp();
+            default:
+                throw new TApplicationException(
+                        TApplicationException.UNKNOWN_METHOD, String.format(
+                                "Invalid method name: '%s'", method));
+            }
+        } catch (final InvalidUserAgentError e) {
+            LOGGER.error("Invalid user agent ({})", agent);
+            throw new TApplicationException(
+                    TApplicationException.INTERNAL_ERROR, "Invalid user agent");
+        } catch (final InvalidSystemClock e) {
+            LOGGER.error("Invalid system clock", e);
+            throw new TApplicationException(
+                    TApplicationException.INTERNAL_ERROR, e.getMessage());
+        } catch (final WorkerIdUnavailable e) {
+            LOGGER.error("Worker ID unavailable", e);
+            throw new TApplicationException(
+                    TApplicationException.INTERNAL_ERROR, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Listener on a TCP port, with Nagle's algorithm disabled on every
+ * connection
+ */
+public class TcpListener implements Listener {
+
+    private final InetSocketAddress address;
+    private ServerSocketChannel server;
+
+    /**
+     * Constructor
+     *
+     * @param address
+     *            Address to listen on, with port 0 picking any free port
+     */
+    public TcpListener(final InetSocketAddress address) {
+        this.address = checkNotNull(address);
+    }
+
+    @Override
+    public SelectableChannel bind() throws IOException {
+        server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.socket().setReuseAddress(true);
+        server.bind(address);
+        return server;
+    }
+
+    @Override
+    public Selector openSelector() throws IOException {
+        return Selector.open();
+    }
+
+    @Override
+    public SelectableChannel accept() throws IOException {
+        final SocketChannel channel = server.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+        }
+        return channel;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() throws IOException {
+        checkState(server != null, "not bound");
+        return server.getLocalAddress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import io.dropwizard.lifecycle.Managed;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.thrift.TProcessor;
+import org.apache.thrift.TProcessorFactory;
+import org.apache.thrift.server.TNonblockingServer;
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Framed, non-blocking Thrift listener reading and writing every connection
+ * from a single selector thread. Calls are answered off the selector thread,
+ * by one thread per lane of an {@link IdWorkerLanes}: connections are spread
+ * across the lanes on their first call and stay on that lane, so a lane
+ * waiting for its clock only holds back the connections of that lane.
+ */
+public class ThriftServer implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(ThriftServer.class);
+
+    /**
+     * Largest frame accepted, so that a corrupt frame size can't make the
+     * server allocate a huge read buffer
+     */
+    private static final long MAX_READ_BUFFER_BYTES = 1 << 20;
+
+    private final InetSocketAddress address;
+    private final TProcessor[] processors;
+    private final ThreadLocal<TProcessor> laneProcessor = new ThreadLocal<>();
+    private ExecutorService[] executors;
+    private TNonblockingServerSocket socket;
+    private LaneServer server;
+    private Thread thread;
+
+    /**
+     * Constructor
+     *
+     * @param address
+     *            Address to listen on, with port 0 picking any free port
+     * @param lanes
+     *            ID generators to serve IDs from
+     */
+    public ThriftServer(final InetSocketAddress address,
+            final IdWorkerLanes lanes) {
+        this.address = checkNotNull(address);
+        final List<IdGenerator> generators = lanes.getLanes();
+        this.processors = new TProcessor[generators.size()];
+        for (int i = 0; i < processors.length; i++) {
+            processors[i] = new SnowflakeProcessor(generators.get(i));
+        }
+    }
+
+    @Override
+    public void start() throws TTransportException {
+        checkState(thread == null, "thrift server already started");
+        socket = new TNonblockingServerSocket(address);
+        final TNonblockingServer.Args args = new TNonblockingServer.Args(
+                socket).processorFactory(new TProcessorFactory(processors[0]) {
+            @Override
+            public TProcessor getProcessor(final TTransport transport) {
+                return laneProcessor.get();
+            }
+        });
+        args.maxReadBufferBytes = MAX_READ_BUFFER_BYTES;
+
+        executors = new ExecutorService[processors.length];
+        for (int i = 0; i < executors.length; i++) {
+            executors[i] = Executors
+                    .newSingleThreadExecutor(new ThreadFactoryBuilder()
+                            .setNameFormat("snowizard-thrift-lane-" + i)
+                            .setDaemon(true).build());
+        }
+        server = new LaneServer(args);
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.serve();
+            }
+        }, "snowizard-thrift");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Serving thrift protocol on port {}", socket.getPort());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (thread == null) {
+            return;
+        }
+        server.stop();
+        thread.join();
+        thread = null;
+        for (final ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (final ExecutorService executor : executors) {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Return the port the server is listening on
+     *
+     * @return local port
+     */
+    public int getLocalPort() {
+        checkState(socket != null, "thrift server not started");
+        return socket.getPort();
+    }
+
+    /**
+     * Non-blocking server handing each call to the thread of its
+     * connection's lane, which answers it with that lane's processor
+     */
+    private final class LaneServer extends TNonblockingServer {
+
+        /** Lane of each connection, only used by the selector thread */
+        private final Map<FrameBuffer, Integer> connectionLanes =
+                new WeakHashMap<>();
+        private int nextLane;
+
+        LaneServer(final Args args) {
+            super(args);
+        }
+
+        @Override
+        protected boolean requestInvoke(final FrameBuffer frameBuffer) {
+            Integer lane = connectionLanes.get(frameBuffer);
+            if (lane == null) {
+                lane = nextLane;
+                nextLane = (nextLane + 1) % processors.length;
+                connectionLanes.put(frameBuffer, lane);
+            }
+            final TProcessor processor = processors[lane];
+            try {
+                executors[lane].execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        laneProcessor.set(processor);
+                        try {
+                            frameBuffer.invoke();
+                        } finally {
+                            laneProcessor.remove();
+                        }
+                    }
+                });
+                return true;
+            } catch (final RejectedExecutionException e) {
+                LOGGER.warn("Unable to answer thrift call while stopping", e);
+                return false;
+            }
+        }
+    }
+}
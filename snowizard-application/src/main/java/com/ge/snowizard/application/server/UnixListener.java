@@ -0,0 +1,137 @@
+package com.ge.snowizard.application.server;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.Selector;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import jnr.constants.platform.Errno;
+import jnr.enxio.channels.NativeSelectorProvider;
+import jnr.ffi.LastError;
+import jnr.ffi.Runtime;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listener on a Unix domain socket, for clients on the same host. A socket
+ * file left behind by a previous process, which refuses connections, is
+ * replaced, and the file is removed again when the listener closes. Any
+ * other file at the path, including the socket of a live process, fails the
+ * bind instead.
+ */
+public class UnixListener implements Listener {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(UnixListener.class);
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final File path;
+    private UnixServerSocketChannel server;
+
+    /**
+     * Constructor
+     *
+     * @param path
+     *            Path of the socket file
+     */
+    public UnixListener(final File path) {
+        this.path = checkNotNull(path);
+    }
+
+    @Override
+    public SelectableChannel bind() throws IOException {
+        if (Files.exists(path.toPath(), LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket()) {
+                throw new IOException(String.format(
+                        "%s exists and is not a socket", path));
+            }
+            if (isListening()) {
+                throw new IOException(String.format(
+                        "%s is in use by another process", path));
+            }
+            LOGGER.info("Replacing stale socket file {}", path);
+            Files.delete(path.toPath());
+        }
+        server = UnixServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.socket().bind(new UnixSocketAddress(path));
+        return server;
+    }
+
+    /**
+     * Return whether the file at the path is a socket
+     *
+     * @return whether the file is a socket
+     * @throws IOException
+     *             When the file type can't be read
+     */
+    private boolean isSocket() throws IOException {
+        final int mode = (Integer) Files.getAttribute(path.toPath(),
+                "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        return (mode & S_IFMT) == S_IFSOCK;
+    }
+
+    /**
+     * Return whether a process accepts connections on the socket file
+     *
+     * @return true if a connection succeeds, false if it is refused
+     * @throws IOException
+     *             When the connection fails for any other reason, so the
+     *             socket can't be known to be stale
+     */
+    private boolean isListening() throws IOException {
+        final UnixSocketChannel channel = UnixSocketChannel.open();
+        try {
+            channel.connect(new UnixSocketAddress(path));
+            return true;
+        } catch (final IOException e) {
+            // read the errno of the failed connect before closing the
+            // channel makes another native call
+            final int errno = LastError.getLastError(Runtime
+                    .getSystemRuntime());
+            if (errno == Errno.ECONNREFUSED.intValue()) {
+                return false;
+            }
+            throw new IOException(String.format(
+                    "Unable to check whether %s is in use", path), e);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public Selector openSelector() throws IOException {
+        return NativeSelectorProvider.getInstance().openSelector();
+    }
+
+    @Override
+    public SelectableChannel accept() throws IOException {
+        final UnixSocketChannel channel = server.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+        }
+        return channel;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+        return new UnixSocketAddress(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.close();
+            if (!path.delete()) {
+                LOGGER.warn("Unable to delete socket file {}", path);
+            }
+        }
+    }
+}
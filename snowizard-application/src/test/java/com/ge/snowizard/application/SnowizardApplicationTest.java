@@ -3,6 +3,7 @@ package com.ge.snowizard.application;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 import io.dropwizard.client.JerseyClientBuilder;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.jersey.setup.JerseyEnvironment;
 import io.dropwizard.setup.Environment;
 import io.dropwizard.testing.ResourceHelpers;
@@ -39,6 +40,8 @@ public class SnowizardApplicationTest {
         when(environment.jersey()).thenReturn(jersey);
         when(environment.metrics()).thenReturn(metrics);
         when(environment.healthChecks()).thenReturn(healthChecks);
+        when(environment.getObjectMapper()).thenReturn(
+                Jackson.newObjectMapper());
     }
 
     @Test
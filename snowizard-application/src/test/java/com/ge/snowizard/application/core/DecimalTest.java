@@ -0,0 +1,36 @@
+package com.ge.snowizard.application.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class DecimalTest {
+
+    private static String format(final long value) {
+        final char[] buffer = new char[Decimal.MAX_LENGTH];
+        final int start = Decimal.format(value, buffer);
+        return new String(buffer, start, Decimal.MAX_LENGTH - start);
+    }
+
+    @Test
+    public void testFormat() {
+        for (final long value : new long[] { 0L, 7L, 10L, 99L,
+                1234567890123L, 585479282566873088L, -1L, -42L,
+                Long.MAX_VALUE, Long.MIN_VALUE }) {
+            assertThat(format(value)).isEqualTo(String.valueOf(value));
+        }
+    }
+
+    @Test
+    public void testFormatBytes() {
+        final byte[] buffer = new byte[Decimal.MAX_LENGTH];
+        for (final long value : new long[] { 0L, 9L, 585479282566873088L,
+                -7L, Long.MAX_VALUE, Long.MIN_VALUE }) {
+            final int start = Decimal.format(value, buffer);
+            assertThat(
+                    new String(buffer, start, Decimal.MAX_LENGTH - start,
+                            StandardCharsets.US_ASCII)).isEqualTo(
+                    String.valueOf(value));
+        }
+    }
+}
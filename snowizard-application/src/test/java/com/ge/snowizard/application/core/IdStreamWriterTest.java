@@ -0,0 +1,56 @@
+package com.ge.snowizard.application.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class IdStreamWriterTest {
+
+    private final IdStreamWriter writer = new IdStreamWriter();
+
+    /**
+     * Stream accepting a fixed number of frames before the client "goes away"
+     */
+    private static final class ClosingStream extends ByteArrayOutputStream {
+        private final int frames;
+        private int flushes = 0;
+
+        ClosingStream(final int frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (++flushes == frames) {
+                throw new IOException("closed");
+            }
+        }
+    }
+
+    @Test
+    public void testWritesFramesUntilClientCloses() throws Exception {
+        final IdStream stream = new IdStream(new IdBatch.Source() {
+            private long next = 0L;
+
+            @Override
+            public void fill(final long[] ids, final int offset,
+                    final int length) {
+                for (int i = 0; i < length; i++) {
+                    ids[offset + i] = next++;
+                }
+            }
+        }, 4).prefetch();
+        final ClosingStream output = new ClosingStream(3);
+
+        writer.writeTo(stream, IdStream.class, IdStream.class, null, null,
+                null, output);
+
+        final ByteBuffer written = ByteBuffer.wrap(output.toByteArray());
+        assertThat(written.remaining()).isEqualTo(3 * 4 * 8);
+        for (long expected = 0L; written.hasRemaining(); expected++) {
+            assertThat(written.getLong()).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ge.snowizard.application.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
+import com.ge.snowizard.core.IdLayout;
+import com.ge.snowizard.core.IdWorker;
+import com.google.common.primitives.Longs;
+import com.google.protobuf.CodedOutputStream;
+
+public class ProtobufIdBatchWriterTest {
+
+    private final ProtobufIdBatchWriter writer = new ProtobufIdBatchWriter();
+
+    private static IdBatch batch(final long[] ids) {
+        return new IdBatch(new IdBatch.Source() {
+            private int position = 0;
+
+            @Override
+            public void fill(final long[] chunk, final int offset,
+                    final int length) {
+                System.arraycopy(ids, position, chunk, offset, length);
+                position += length;
+            }
+        }, ids.length);
+    }
+
+    private byte[] write(final long[] ids) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.writeTo(batch(ids).prefetch(), IdBatch.class, IdBatch.class,
+                null, null, null, output);
+        return output.toByteArray();
+    }
+
+    private static byte[] expected(final long[] ids) {
+        return SnowizardResponse.newBuilder().addAllId(Longs.asList(ids))
+                .build().toByteArray();
+    }
+
+    private static void assertDecodes(final byte[] bytes, final long[] ids)
+            throws IOException {
+        assertThat(SnowizardResponse.parseFrom(bytes).getIdList())
+                .isEqualTo(Longs.asList(ids));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertThat(write(new long[0])).isEmpty();
+    }
+
+    @Test
+    public void testSingleChunk() throws Exception {
+        final long[] ids = new long[] { 1L, 300L, 1L << 40, Long.MAX_VALUE };
+        assertThat(write(ids)).isEqualTo(expected(ids));
+    }
+
+    @Test
+    public void testStreamedChunks() throws Exception {
+        final long[] ids = new IdWorker(1, 1)
+                .nextIds(IdBatch.CHUNK_SIZE * 5 + 7);
+        assertDecodes(write(ids), ids);
+    }
+
+    @Test
+    public void testSmallIdsAcrossChunks() throws Exception {
+        final long[] ids = new long[IdBatch.CHUNK_SIZE * 3 + 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i * 97L;
+        }
+        assertDecodes(write(ids), ids);
+    }
+
+    @Test
+    public void testIdsChangingSizeAcrossChunks() throws Exception {
+        final long[] ids = new long[IdBatch.CHUNK_SIZE * 2];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i < IdBatch.CHUNK_SIZE ? (1L << 60) + i : i;
+        }
+        assertDecodes(write(ids), ids);
+    }
+
+    @Test
+    public void testYoungEpochLayout() throws Exception {
+        final IdLayout layout = IdLayout.builder()
+                .epoch(System.currentTimeMillis() - 60000L).build();
+        final long[] ids = IdWorker.builder(1, 1).layout(layout).build()
+                .nextIds(IdBatch.CHUNK_SIZE * 3 + 5);
+        // far fewer than 9 bytes per ID, so nothing can be predicted
+        assertThat(CodedOutputStream.computeInt64SizeNoTag(ids[0]))
+                .isLessThan(9);
+        assertDecodes(write(ids), ids);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ge.snowizard.application.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import io.dropwizard.jackson.Jackson;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.curator.x.discovery.ServiceInstance;
+import org.junit.Test;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class WorkerIdConflictDetectorTest {
+    private final UUID self = UUID.randomUUID();
+    private final WorkerClaim claim = new WorkerClaim(self, null, 0, 1,
+            ImmutableList.of(1, 2));
+    private final List<ServiceInstance<WorkerClaim>> instances = Lists
+            .newArrayList();
+    private final WorkerIdConflictDetector detector = new WorkerIdConflictDetector(
+            claim, new Supplier<Collection<ServiceInstance<WorkerClaim>>>() {
+                @Override
+                public Collection<ServiceInstance<WorkerClaim>> get() {
+                    return instances;
+                }
+            }, Jackson.newObjectMapper());
+
+    @Test
+    public void testIgnoresOwnRegistration() throws Exception {
+        registerSelf();
+        detector.run();
+        assertThat(detector.isValid()).isTrue();
+        assertThat(detector.isVerified()).isTrue();
+        assertThat(detector.getConflicts()).isEmpty();
+    }
+
+    @Test
+    public void testInvalidUntilChecked() throws Exception {
+        registerSelf();
+        assertThat(detector.isValid()).isFalse();
+    }
+
+    @Test
+    public void testInvalidUntilRegistered() throws Exception {
+        detector.run();
+        assertThat(detector.isValid()).isFalse();
+        assertThat(detector.isVerified()).isFalse();
+
+        registerSelf();
+        detector.run();
+        assertThat(detector.isValid()).isTrue();
+
+        instances.clear();
+        detector.run();
+        assertThat(detector.isValid()).isFalse();
+    }
+
+    @Test
+    public void testIgnoresOtherWorkersAndDatacenters() throws Exception {
+        registerSelf();
+        register(new WorkerClaim(UUID.randomUUID(), "host1", 8080, 1,
+                ImmutableList.of(3, 4)));
+        register(new WorkerClaim(UUID.randomUUID(), "host2", 8080, 2,
+                ImmutableList.of(1, 2)));
+        detector.run();
+        assertThat(detector.isValid()).isTrue();
+    }
+
+    @Test
+    public void testDetectsAndClearsConflict() throws Exception {
+        final WorkerClaim other = new WorkerClaim(UUID.randomUUID(), "host1",
+                8080, 1, ImmutableList.of(2, 3));
+        registerSelf();
+        register(other);
+        detector.run();
+        assertThat(detector.isValid()).isFalse();
+        assertThat(detector.getConflicts()).containsExactly(other);
+
+        instances.remove(1);
+        detector.run();
+        assertThat(detector.isValid()).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testReadsDeserializedPayload() throws Exception {
+        final Map<String, Object> payload = Maps.newLinkedHashMap();
+        payload.put("instance_id", UUID.randomUUID().toString());
+        payload.put("listen_address", "host1");
+        payload.put("listen_port", 8080);
+        payload.put("datacenter_id", 1);
+        payload.put("worker_ids", ImmutableList.of(1));
+        final ServiceInstance<Object> instance = ServiceInstance
+                .<Object> builder().name("snowizard").id("host1")
+                .payload(payload).build();
+        instances.add((ServiceInstance) instance);
+
+        detector.run();
+        assertThat(detector.isValid()).isFalse();
+        assertThat(detector.getConflicts().get(0).getListenAddress())
+                .isEqualTo("host1");
+    }
+
+    @Test
+    public void testFailsClosedWhenPeersUnreadable() throws Exception {
+        final AtomicBoolean readable = new AtomicBoolean(true);
+        final WorkerIdConflictDetector flaky = new WorkerIdConflictDetector(
+                claim,
+                new Supplier<Collection<ServiceInstance<WorkerClaim>>>() {
+                    @Override
+                    public Collection<ServiceInstance<WorkerClaim>> get() {
+                        if (!readable.get()) {
+                            throw new IllegalStateException("not started");
+                        }
+                        return instances;
+                    }
+                }, Jackson.newObjectMapper());
+        registerSelf();
+        flaky.run();
+        assertThat(flaky.isValid()).isTrue();
+
+        readable.set(false);
+        flaky.run();
+        assertThat(flaky.isValid()).isFalse();
+        assertThat(flaky.isVerified()).isFalse();
+    }
+
+    private void registerSelf() throws Exception {
+        register(new WorkerClaim(self, "localhost", 8080, 1, ImmutableList
+                .of(1, 2)));
+    }
+
+    private void register(final WorkerClaim other) throws Exception {
+        instances.add(ServiceInstance.<WorkerClaim> builder()
+                .name("snowizard").id(other.getInstanceId().toString())
+                .payload(other).build());
+    }
+}
@@ -0,0 +1,135 @@
+package com.ge.snowizard.application.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
+import com.google.common.base.Charsets;
+
+public class ZooKeeperWorkerIdLeaseTest {
+    private static final String PATH = "/snowizard/workers";
+    private static final byte[] OWNER = "test".getBytes(Charsets.UTF_8);
+
+    private TestingServer server;
+    private CuratorFramework client;
+    private CuratorFramework other;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestingServer();
+        client = newClient();
+        other = newClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        other.close();
+        server.close();
+    }
+
+    @Test
+    public void testLeasesLowestFreeWorkerId() throws Exception {
+        final ZooKeeperWorkerIdLease first = ZooKeeperWorkerIdLease.acquire(
+                client, PATH, 1, 31, OWNER);
+        final ZooKeeperWorkerIdLease second = ZooKeeperWorkerIdLease
+                .acquire(other, PATH, 1, 31, OWNER);
+        final ZooKeeperWorkerIdLease otherDatacenter = ZooKeeperWorkerIdLease
+                .acquire(other, PATH, 2, 31, OWNER);
+
+        assertThat(first.getWorkerId()).isEqualTo(0);
+        assertThat(first.getPath()).isEqualTo("/snowizard/workers/1/0");
+        assertThat(first.isValid()).isTrue();
+        assertThat(second.getWorkerId()).isEqualTo(1);
+        assertThat(second.isValid()).isTrue();
+        assertThat(otherDatacenter.getWorkerId()).isEqualTo(0);
+    }
+
+    @Test
+    public void testReleasedWorkerIdIsReused() throws Exception {
+        final ZooKeeperWorkerIdLease first = ZooKeeperWorkerIdLease.acquire(
+                client, PATH, 1, 31, OWNER);
+        first.close();
+        assertThat(first.isValid()).isFalse();
+
+        final ZooKeeperWorkerIdLease second = ZooKeeperWorkerIdLease
+                .acquire(other, PATH, 1, 31, OWNER);
+        assertThat(second.getWorkerId()).isEqualTo(0);
+    }
+
+    @Test
+    public void testAllWorkerIdsLeased() throws Exception {
+        ZooKeeperWorkerIdLease.acquire(client, PATH, 1, 1, OWNER);
+        ZooKeeperWorkerIdLease.acquire(client, PATH, 1, 1, OWNER);
+        try {
+            ZooKeeperWorkerIdLease.acquire(other, PATH, 1, 1, OWNER);
+            failBecauseExceptionWasNotThrown(IllegalStateException.class);
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testDeletedNodeIsReclaimed() throws Exception {
+        final ZooKeeperWorkerIdLease lease = ZooKeeperWorkerIdLease.acquire(
+                client, PATH, 1, 31, OWNER);
+        other.delete().forPath(lease.getPath());
+
+        awaitNode(lease.getPath());
+        await(lease, true);
+    }
+
+    @Test
+    public void testWorkerStopsWhenConnectionIsLost() throws Exception {
+        final ZooKeeperWorkerIdLease lease = ZooKeeperWorkerIdLease.acquire(
+                client, PATH, 1, 31, OWNER);
+        final IdWorker worker = IdWorker.builder(lease.getWorkerId(), 1)
+                .lease(lease).build();
+        assertThat(worker.nextId()).isGreaterThan(0L);
+
+        server.stop();
+        await(lease, false);
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(WorkerIdUnavailable.class);
+        } catch (WorkerIdUnavailable e) {
+        }
+
+        server.restart();
+        await(lease, true);
+        assertThat(worker.nextId()).isGreaterThan(0L);
+    }
+
+    private CuratorFramework newClient() {
+        final CuratorFramework curator = CuratorFrameworkFactory.builder()
+                .connectString(server.getConnectString())
+                .sessionTimeoutMs(10000).connectionTimeoutMs(1000)
+                .retryPolicy(new RetryOneTime(100)).build();
+        curator.start();
+        return curator;
+    }
+
+    private void awaitNode(final String path) throws Exception {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (other.checkExists().forPath(path) == null
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+    }
+
+    private static void await(final ZooKeeperWorkerIdLease lease,
+            final boolean valid) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (lease.isValid() != valid
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(lease.isValid()).isEqualTo(valid);
+    }
+}
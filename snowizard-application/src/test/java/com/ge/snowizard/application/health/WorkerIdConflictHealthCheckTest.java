@@ -0,0 +1,57 @@
+package com.ge.snowizard.application.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import java.util.UUID;
+import org.junit.Test;
+import com.codahale.metrics.health.HealthCheck.Result;
+import com.ge.snowizard.application.core.WorkerClaim;
+import com.ge.snowizard.application.core.WorkerIdConflictDetector;
+import com.google.common.collect.ImmutableList;
+
+public class WorkerIdConflictHealthCheckTest {
+    private final WorkerIdConflictDetector detector = mock(WorkerIdConflictDetector.class);
+    private final WorkerClaim claim = new WorkerClaim(UUID.randomUUID(), null,
+            0, 1, ImmutableList.of(1));
+
+    @Test
+    public void testHealthyWithoutDetector() throws Exception {
+        final Result result = new WorkerIdConflictHealthCheck(null).execute();
+        assertThat(result.isHealthy()).isTrue();
+    }
+
+    @Test
+    public void testHealthyWithoutConflicts() throws Exception {
+        when(detector.isValid()).thenReturn(true);
+        final Result result = new WorkerIdConflictHealthCheck(detector)
+                .execute();
+        assertThat(result.isHealthy()).isTrue();
+    }
+
+    @Test
+    public void testUnhealthyOnConflict() throws Exception {
+        final WorkerClaim other = new WorkerClaim(UUID.randomUUID(), "host1",
+                8080, 1, ImmutableList.of(1));
+        when(detector.isValid()).thenReturn(false);
+        when(detector.isVerified()).thenReturn(true);
+        when(detector.getClaim()).thenReturn(claim);
+        when(detector.getConflicts()).thenReturn(ImmutableList.of(other));
+
+        final Result result = new WorkerIdConflictHealthCheck(detector)
+                .execute();
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).contains("host1");
+    }
+
+    @Test
+    public void testUnhealthyUntilVerified() throws Exception {
+        when(detector.isValid()).thenReturn(false);
+        when(detector.isVerified()).thenReturn(false);
+        when(detector.getClaim()).thenReturn(claim);
+
+        final Result result = new WorkerIdConflictHealthCheck(detector)
+                .execute();
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getMessage()).contains("not yet seen registered");
+    }
+}
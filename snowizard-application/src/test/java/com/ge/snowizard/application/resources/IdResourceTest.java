@@ -8,22 +8,40 @@ import io.dropwizard.jersey.protobuf.ProtocolBufferMessageBodyProvider;
 import io.dropwizard.testing.junit.ResourceTestRule;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import org.glassfish.jersey.client.ClientResponse;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ge.snowizard.api.DecodedIds;
 import com.ge.snowizard.api.Id;
 import com.ge.snowizard.api.SnowizardError;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeRequest;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardDecodeResponse;
 import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
+import com.ge.snowizard.application.core.BinaryIdBatchWriter;
+import com.ge.snowizard.application.core.IdStreamWriter;
+import com.ge.snowizard.application.core.JsonIdBatchWriter;
 import com.ge.snowizard.application.core.MediaTypeAdditional;
+import com.ge.snowizard.application.core.ProtobufDecodeRequestReader;
+import com.ge.snowizard.application.core.ProtobufDecodeResponseWriter;
+import com.ge.snowizard.application.core.ProtobufIdBatchWriter;
+import com.ge.snowizard.application.core.TextIdBatchWriter;
 import com.ge.snowizard.application.exceptions.SnowizardExceptionMapper;
 import com.ge.snowizard.application.resources.IdResource;
 import com.ge.snowizard.core.IdWorker;
 import com.ge.snowizard.exceptions.InvalidSystemClock;
 import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
 
 public class IdResourceTest {
     private final String AGENT = "test-agent";
@@ -35,6 +53,13 @@ public class IdResourceTest {
     public final ResourceTestRule resources = ResourceTestRule.builder()
             .addProvider(new SnowizardExceptionMapper())
     .addProvider(new ProtocolBufferMessageBodyProvider())
+    .addProvider(new ProtobufIdBatchWriter())
+    .addProvider(new ProtobufDecodeRequestReader(IdResource.DEFAULT_MAX_COUNT))
+    .addProvider(new ProtobufDecodeResponseWriter())
+    .addProvider(new JsonIdBatchWriter(new JsonFactory()))
+    .addProvider(new BinaryIdBatchWriter())
+    .addProvider(new TextIdBatchWriter())
+    .addProvider(new IdStreamWriter())
     .addResource(new IdResource(worker)).build();
 
     @Test
@@ -53,6 +78,58 @@ public class IdResourceTest {
         verify(worker).getId(AGENT);
     }
 
+    @Test
+    public void testGetIdsAsString() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final long[] ids = (long[]) invocation.getArguments()[1];
+                ids[0] = 100L;
+                ids[1] = 585479282566873088L;
+                ids[2] = 0L;
+                return null;
+            }
+        }).when(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(3));
+
+        final Response response = resources.client().target("/")
+                .queryParam("count", 3).request(MediaType.TEXT_PLAIN)
+                .header(HttpHeaders.USER_AGENT, AGENT).get();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.readEntity(String.class)).isEqualTo(
+                "100\n585479282566873088\n0\n");
+        verify(worker, never()).getId(AGENT);
+    }
+
+    @Test
+    public void testGetIdsAsStringInvalidAgent() throws Exception {
+        doThrow(new InvalidUserAgentError()).when(worker).getIds(eq(AGENT),
+                any(long[].class), eq(0), eq(3));
+
+        try {
+            resources.client().target("/").queryParam("count", 3)
+                    .request(MediaType.TEXT_PLAIN)
+                    .header(HttpHeaders.USER_AGENT, AGENT)
+                    .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(BadRequestException.class);
+        } catch (final BadRequestException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        }
+    }
+
+    @Test
+    public void testGetIdAcceptingAnything() throws Exception {
+        when(worker.getId(AGENT)).thenReturn(100L);
+
+        final Response response = resources.client().target("/")
+                .request(MediaType.WILDCARD)
+                .header(HttpHeaders.USER_AGENT, AGENT).get();
+
+        assertThat(response.getMediaType().isCompatible(
+                MediaType.TEXT_PLAIN_TYPE)).isTrue();
+        assertThat(response.readEntity(String.class)).isEqualTo("100");
+    }
+
     @Test
     public void testGetIdAsStringInvalidAgent() throws Exception {
         when(worker.getId(AGENT)).thenThrow(new InvalidUserAgentError());
@@ -90,6 +167,22 @@ public class IdResourceTest {
         verify(worker).getId(AGENT);
     }
 
+    @Test
+    public void testGetIdAsStringWorkerIdUnavailable() throws Exception {
+        when(worker.getId(AGENT)).thenThrow(new WorkerIdUnavailable());
+
+        try {
+            resources.client().target("/").request(MediaType.TEXT_PLAIN)
+            .header(HttpHeaders.USER_AGENT, AGENT)
+            .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(ServiceUnavailableException.class);
+        } catch (final ServiceUnavailableException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(503);
+        }
+
+        verify(worker).getId(AGENT);
+    }
+
     @Test
     public void testGetIdAsJSON() throws Exception {
         final long id = 100L;
@@ -105,6 +198,52 @@ public class IdResourceTest {
         verify(worker).getId(AGENT);
     }
 
+    @Test
+    public void testGetIdsAsJSON() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final long[] ids = (long[]) invocation.getArguments()[1];
+                ids[0] = 100L;
+                ids[1] = 101L;
+                return null;
+            }
+        }).when(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(2));
+
+        final Id[] actual = resources.client().target("/")
+                .queryParam("count", 2).request(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.USER_AGENT, AGENT).get(Id[].class);
+
+        assertThat(actual).containsExactly(new Id(100L), new Id(101L));
+        verify(worker, never()).getId(AGENT);
+    }
+
+    @Test
+    public void testGetIdsAsJSONEmpty() throws Exception {
+        final String actual = resources.client().target("/")
+                .queryParam("count", 0).request(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.USER_AGENT, AGENT).get(String.class);
+
+        assertThat(actual).isEqualTo("[]");
+        verifyZeroInteractions(worker);
+    }
+
+    @Test
+    public void testGetIdsAsJSONInvalidAgent() throws Exception {
+        doThrow(new InvalidUserAgentError()).when(worker).getIds(eq(AGENT),
+                any(long[].class), eq(0), eq(2));
+
+        try {
+            resources.client().target("/").queryParam("count", 2)
+                    .request(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.USER_AGENT, AGENT)
+                    .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(BadRequestException.class);
+        } catch (final BadRequestException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        }
+    }
+
     @Test
     public void testGetIdAsJSONInvalidAgent() throws Exception {
         when(worker.getId(AGENT)).thenThrow(new InvalidUserAgentError());
@@ -162,6 +301,32 @@ public class IdResourceTest {
         verify(worker).getId(AGENT);
     }
 
+    @Test
+    public void testGetIdsAsJSONP() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final long[] ids = (long[]) invocation.getArguments()[1];
+                ids[0] = 100L;
+                ids[1] = 101L;
+                return null;
+            }
+        }).when(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(2));
+
+        final String actual = resources.client()
+                .target("/?callback=testing&count=2")
+                .request(MediaTypeAdditional.APPLICATION_JAVASCRIPT)
+                .header(HttpHeaders.USER_AGENT, AGENT).get(String.class);
+
+        final ObjectMapper mapper = resources.getObjectMapper();
+        final StringBuilder expected = new StringBuilder("testing(");
+        expected.append(mapper.writeValueAsString(new Id[] { new Id(100L),
+                new Id(101L) }));
+        expected.append(")");
+
+        assertThat(actual).isEqualTo(expected.toString());
+    }
+
     @Test
     public void testGetIdAsJSONPInvalidAgent() throws Exception {
         when(worker.getId(AGENT)).thenThrow(new InvalidUserAgentError());
@@ -222,6 +387,55 @@ public class IdResourceTest {
         verify(worker).getId(AGENT);
     }
 
+    @Test
+    public void testGetIdsAsProtobuf() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final long[] ids = (long[]) invocation.getArguments()[1];
+                ids[0] = 100L;
+                ids[1] = 101L;
+                ids[2] = 102L;
+                return null;
+            }
+        }).when(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(3));
+
+        final Response response = resources.client().target("/")
+                .queryParam("count", 3)
+                .register(new ProtocolBufferMessageBodyProvider())
+                .request(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+                .header(HttpHeaders.USER_AGENT, AGENT).get();
+
+        final SnowizardResponse actual = response
+                .readEntity(SnowizardResponse.class);
+
+        final SnowizardResponse expected = SnowizardResponse.newBuilder()
+                .addId(100L).addId(101L).addId(102L).build();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(actual).isEqualTo(expected);
+        verify(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(3));
+        verify(worker, never()).getId(AGENT);
+    }
+
+    @Test
+    public void testGetIdsAsProtobufInvalidAgent() throws Exception {
+        doThrow(new InvalidUserAgentError()).when(worker).getIds(eq(AGENT),
+                any(long[].class), eq(0), eq(3));
+
+        try {
+            resources.client().target("/").queryParam("count", 3)
+                    .request(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+                    .header(HttpHeaders.USER_AGENT, AGENT)
+                    .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(BadRequestException.class);
+        } catch (final BadRequestException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        }
+
+        verify(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(3));
+    }
+
     @Test
     public void testGetIdAsProtobufInvalidAgent() throws Exception {
         when(worker.getId(AGENT)).thenThrow(new InvalidUserAgentError());
@@ -260,4 +474,162 @@ public class IdResourceTest {
 
         verify(worker).getId(AGENT);
     }
+
+    @Test
+    public void testGetIdsAsBinary() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final long[] ids = (long[]) invocation.getArguments()[1];
+                ids[0] = 100L;
+                ids[1] = Long.MAX_VALUE;
+                return null;
+            }
+        }).when(worker).getIds(eq(AGENT), any(long[].class), eq(0), eq(2));
+
+        final Response response = resources.client().target("/")
+                .queryParam("count", 2)
+                .request(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.USER_AGENT, AGENT).get();
+        final byte[] actual = response.readEntity(byte[].class);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getLength()).isEqualTo(16);
+        assertThat(actual).isEqualTo(
+                Bytes.concat(Longs.toByteArray(100L),
+                        Longs.toByteArray(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testGetIdAsBinary() throws Exception {
+        when(worker.getId(AGENT)).thenReturn(100L);
+
+        final byte[] actual = resources.client().target("/")
+                .request(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.USER_AGENT, AGENT).get(byte[].class);
+
+        assertThat(actual).isEqualTo(Longs.toByteArray(100L));
+    }
+
+    @Test
+    public void testGetIdsAsBinaryInvalidClock() throws Exception {
+        doThrow(new InvalidSystemClock()).when(worker).getIds(eq(AGENT),
+                any(long[].class), eq(0), eq(2));
+
+        try {
+            resources.client().target("/").queryParam("count", 2)
+                    .request(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.USER_AGENT, AGENT)
+                    .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(InternalServerErrorException.class);
+        } catch (final InternalServerErrorException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(500);
+        }
+    }
+
+    @Test
+    public void testGetIdsAboveMaxCount() throws Exception {
+        for (final String type : new String[] { MediaType.TEXT_PLAIN,
+                MediaType.APPLICATION_JSON,
+                ProtocolBufferMediaType.APPLICATION_PROTOBUF,
+                MediaType.APPLICATION_OCTET_STREAM }) {
+            final Response response = resources.client().target("/")
+                    .queryParam("count", IdResource.DEFAULT_MAX_COUNT + 1)
+                    .request(type).header(HttpHeaders.USER_AGENT, AGENT)
+                    .get();
+            assertThat(response.getStatus()).as(type).isEqualTo(400);
+        }
+
+        verifyZeroInteractions(worker);
+    }
+
+    @Test
+    public void testGetIdStreamInvalidFrame() throws Exception {
+        try {
+            resources.client().target("/stream").queryParam("frame", 0)
+                    .request(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.USER_AGENT, AGENT)
+                    .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(BadRequestException.class);
+        } catch (final BadRequestException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        }
+
+        verifyZeroInteractions(worker);
+    }
+
+    @Test
+    public void testGetIdStreamInvalidAgent() throws Exception {
+        doThrow(new InvalidUserAgentError()).when(worker).getIds(eq(AGENT),
+                any(long[].class), eq(0), eq(10));
+
+        try {
+            resources.client().target("/stream").queryParam("frame", 10)
+                    .request(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.USER_AGENT, AGENT)
+                    .get(ClientResponse.class);
+            failBecauseExceptionWasNotThrown(BadRequestException.class);
+        } catch (final BadRequestException e) {
+            assertThat(e.getResponse().getStatus()).isEqualTo(400);
+        }
+    }
+
+    @Test
+    public void testDecodeAsJSON() throws Exception {
+        final long id = (5L << 22) | (3L << 17) | (2L << 12) | 7L;
+
+        final DecodedIds actual = resources.client().target("/decode")
+                .request(MediaType.APPLICATION_JSON)
+                .post(Entity.json(new long[] { id, 0L }), DecodedIds.class);
+
+        assertThat(actual).isEqualTo(
+                new DecodedIds(new long[] { IdWorker.TWEPOCH + 5L,
+                        IdWorker.TWEPOCH }, new int[] { 3, 0 }, new int[] {
+                        2, 0 }, new int[] { 7, 0 }));
+        verifyZeroInteractions(worker);
+    }
+
+    @Test
+    public void testDecodeAsProtobuf() throws Exception {
+        final long id = (5L << 22) | (3L << 17) | (2L << 12) | 7L;
+        final SnowizardDecodeRequest request = SnowizardDecodeRequest
+                .newBuilder().addId(id).addId(0L).build();
+
+        final SnowizardDecodeResponse actual = resources
+                .client()
+                .target("/decode")
+                .register(new ProtocolBufferMessageBodyProvider())
+                .request(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+                .post(Entity.entity(request,
+                        ProtocolBufferMediaType.APPLICATION_PROTOBUF_TYPE),
+                        SnowizardDecodeResponse.class);
+
+        assertThat(actual.getTimestampList()).containsExactly(
+                IdWorker.TWEPOCH + 5L, IdWorker.TWEPOCH);
+        assertThat(actual.getDatacenterIdList()).containsExactly(3, 0);
+        assertThat(actual.getWorkerIdList()).containsExactly(2, 0);
+        assertThat(actual.getSequenceList()).containsExactly(7, 0);
+        verifyZeroInteractions(worker);
+    }
+
+    @Test
+    public void testDecodeAboveMaxCount() throws Exception {
+        final long[] ids = new long[IdResource.DEFAULT_MAX_COUNT + 1];
+
+        final Response json = resources.client().target("/decode")
+                .request(MediaType.APPLICATION_JSON)
+                .post(Entity.json(ids));
+        assertThat(json.getStatus()).isEqualTo(400);
+
+        final Response protobuf = resources
+                .client()
+                .target("/decode")
+                .register(new ProtocolBufferMessageBodyProvider())
+                .request(ProtocolBufferMediaType.APPLICATION_PROTOBUF)
+                .post(Entity.entity(SnowizardDecodeRequest.newBuilder()
+                        .addAllId(Longs.asList(ids)).build(),
+                        ProtocolBufferMediaType.APPLICATION_PROTOBUF_TYPE));
+        assertThat(protobuf.getStatus()).isEqualTo(400);
+        verifyZeroInteractions(worker);
+    }
 }
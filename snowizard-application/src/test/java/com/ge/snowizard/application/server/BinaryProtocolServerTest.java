@@ -0,0 +1,249 @@
+package com.ge.snowizard.application.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.ge.snowizard.api.BinaryProtocol;
+import com.ge.snowizard.client.SnowizardConnection;
+import com.ge.snowizard.client.exceptions.SnowizardClientException;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ListenableFuture;
+
+public class BinaryProtocolServerTest {
+
+    private static final int MAX_COUNT = 1000;
+    private final IdWorker worker = new IdWorker(1, 1);
+    private BinaryProtocolServer server;
+    private SnowizardConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new BinaryProtocolServer(new InetSocketAddress("localhost",
+                0), new IdWorkerLanes(ImmutableList.of(worker)), MAX_COUNT);
+        server.start();
+        connection = SnowizardConnection.open("localhost",
+                server.getLocalPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void testGetId() throws Exception {
+        assertThat(connection.getId()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testGetIds() throws Exception {
+        final long[] ids = connection.getIds(MAX_COUNT);
+        assertThat(ids).hasSize(MAX_COUNT);
+        assertThat(Sets.newHashSet(Longs.asList(ids))).hasSize(MAX_COUNT);
+        for (int i = 1; i < ids.length; i++) {
+            assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+        }
+    }
+
+    @Test
+    public void testGetNoIds() throws Exception {
+        assertThat(connection.getIds(0)).isEmpty();
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        final List<ListenableFuture<long[]>> futures = Lists.newArrayList();
+        for (int i = 0; i < 500; i++) {
+            futures.add(connection.submit(i % 10 + 1));
+        }
+        final Set<Long> ids = Sets.newHashSet();
+        int expected = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            final long[] batch = futures.get(i).get();
+            assertThat(batch).hasSize(i % 10 + 1);
+            ids.addAll(Longs.asList(batch));
+            expected += batch.length;
+        }
+        assertThat(ids).hasSize(expected);
+        assertThat(connection.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCountTooLarge() throws Exception {
+        try {
+            connection.getIds(MAX_COUNT + 1);
+            failBecauseExceptionWasNotThrown(SnowizardClientException.class);
+        } catch (final SnowizardClientException e) {
+            assertThat(e.getMessage()).contains("400");
+        }
+        // the connection stays usable after an error
+        assertThat(connection.getIds(2)).hasSize(2);
+    }
+
+    @Test
+    public void testNegativeCount() throws Exception {
+        try {
+            connection.getIds(-1);
+            failBecauseExceptionWasNotThrown(SnowizardClientException.class);
+        } catch (final SnowizardClientException e) {
+            assertThat(e.getMessage()).contains("400");
+        }
+    }
+
+    @Test
+    public void testInvalidUserAgent() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            final byte[] agent = "bad agent!".getBytes(StandardCharsets.UTF_8);
+            final DataOutputStream output = new DataOutputStream(
+                    socket.getOutputStream());
+            output.writeInt(BinaryProtocol.HEADER_BYTES + agent.length);
+            output.writeInt(7);
+            output.writeInt(1);
+            output.write(agent);
+            output.flush();
+
+            final DataInputStream input = new DataInputStream(
+                    socket.getInputStream());
+            final int length = input.readInt();
+            assertThat(input.readInt()).isEqualTo(7);
+            assertThat(input.readInt()).isEqualTo(BinaryProtocol.BAD_REQUEST);
+            final byte[] message = new byte[length
+                    - BinaryProtocol.HEADER_BYTES];
+            input.readFully(message);
+            assertThat(new String(message, StandardCharsets.UTF_8)).isEqualTo(
+                    "Invalid user agent");
+        }
+    }
+
+    @Test
+    public void testMalformedFrameClosesConnection() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            final DataOutputStream output = new DataOutputStream(
+                    socket.getOutputStream());
+            output.writeInt(1 << 20);
+            output.flush();
+            assertThat(socket.getInputStream().read()).isEqualTo(-1);
+        }
+        // other connections are unaffected
+        assertThat(connection.getId()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testRequestsAnsweredAfterHalfClose() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort())) {
+            final byte[] agent = "snowizard-client"
+                    .getBytes(StandardCharsets.UTF_8);
+            final DataOutputStream output = new DataOutputStream(
+                    socket.getOutputStream());
+            for (int i = 0; i < 3; i++) {
+                output.writeInt(BinaryProtocol.HEADER_BYTES + agent.length);
+                output.writeInt(i);
+                output.writeInt(2);
+                output.write(agent);
+            }
+            output.flush();
+            socket.shutdownOutput();
+
+            final DataInputStream input = new DataInputStream(
+                    socket.getInputStream());
+            for (int i = 0; i < 3; i++) {
+                assertThat(input.readInt()).isEqualTo(
+                        BinaryProtocol.HEADER_BYTES + 2 * Longs.BYTES);
+                assertThat(input.readInt()).isEqualTo(i);
+                assertThat(input.readInt()).isEqualTo(BinaryProtocol.OK);
+                input.readLong();
+                input.readLong();
+            }
+            assertThat(input.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void testClosedConnectionFailsRequests() throws Exception {
+        server.stop();
+        try {
+            connection.getId();
+            failBecauseExceptionWasNotThrown(SnowizardClientException.class);
+        } catch (final SnowizardClientException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLargeRequestHoldsBackOnlyItsLane() throws Exception {
+        final int count = 1 << 19;
+        final BinaryProtocolServer lanes = new BinaryProtocolServer(
+                new InetSocketAddress("localhost", 0), new IdWorkerLanes(
+                        ImmutableList.of(new IdWorker(1, 1), new IdWorker(2,
+                                1))), count);
+        lanes.start();
+        try (SnowizardConnection first = SnowizardConnection.open(
+                "localhost", lanes.getLocalPort());
+                SnowizardConnection second = SnowizardConnection.open(
+                        "localhost", lanes.getLocalPort())) {
+            // 128 ms worth of sequence space on the first lane
+            final ListenableFuture<long[]> large = first.submit(count);
+            final long[] small = second.submit(1).get(1, TimeUnit.SECONDS);
+            assertThat(small).hasSize(1);
+            assertThat(large.isDone()).isFalse();
+            assertThat(large.get(5, TimeUnit.SECONDS)).hasSize(count);
+        } finally {
+            lanes.stop();
+        }
+    }
+
+    @Test
+    public void testAcceptFailureKeepsServing() throws Exception {
+        final AtomicBoolean failed = new AtomicBoolean();
+        final BinaryProtocolServer failing = new BinaryProtocolServer(
+                new TcpListener(new InetSocketAddress("localhost", 0)) {
+                    @Override
+                    public SelectableChannel accept() throws IOException {
+                        if (failed.compareAndSet(false, true)) {
+                            throw new IOException("Too many open files");
+                        }
+                        return super.accept();
+                    }
+                }, new IdWorkerLanes(ImmutableList.of(worker)), MAX_COUNT);
+        failing.start();
+        try (SnowizardConnection client = SnowizardConnection.open(
+                "localhost", failing.getLocalPort())) {
+            // accepted once the back-off after the failed accept is over
+            assertThat(client.submit(1).get(5, TimeUnit.SECONDS)).hasSize(1);
+            assertThat(failed.get()).isTrue();
+        } finally {
+            failing.stop();
+        }
+    }
+
+    @Test
+    public void testErrorMessageCutAtCharacterBoundary() throws Exception {
+        // U+00E9 takes two bytes and U+1F600 four bytes in UTF-8
+        final byte[] utf8 = "a\u00e9\ud83d\ude00"
+                .getBytes(StandardCharsets.UTF_8);
+        assertThat(BinaryProtocolHandler.truncatedLength(utf8, 7)).isEqualTo(7);
+        assertThat(BinaryProtocolHandler.truncatedLength(utf8, 6)).isEqualTo(3);
+        assertThat(BinaryProtocolHandler.truncatedLength(utf8, 4)).isEqualTo(3);
+        assertThat(BinaryProtocolHandler.truncatedLength(utf8, 2)).isEqualTo(1);
+        assertThat(BinaryProtocolHandler.truncatedLength(utf8, 0)).isEqualTo(0);
+    }
+}
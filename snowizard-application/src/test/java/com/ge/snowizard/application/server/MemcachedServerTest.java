@@ -0,0 +1,197 @@
+package com.ge.snowizard.application.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+public class MemcachedServerTest {
+
+    private static final int MAX_COUNT = 100;
+    private final IdWorker worker = new IdWorker(1, 1);
+    private MemcachedServer server;
+    private Socket socket;
+    private OutputStream output;
+    private BufferedReader input;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MemcachedServer(new InetSocketAddress("localhost", 0),
+                new IdWorkerLanes(ImmutableList.of(worker)), "memcached",
+                MAX_COUNT);
+        server.start();
+        socket = new Socket("localhost", server.getLocalPort());
+        output = socket.getOutputStream();
+        input = new BufferedReader(new InputStreamReader(
+                socket.getInputStream(), StandardCharsets.US_ASCII));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        socket.close();
+        server.stop();
+    }
+
+    private void send(final String commands) throws Exception {
+        output.write(commands.getBytes(StandardCharsets.US_ASCII));
+        output.flush();
+    }
+
+    /**
+     * Read a VALUE block, checking its header, and return its data
+     */
+    private String readValue(final String key) throws Exception {
+        final String header = input.readLine();
+        assertThat(header).startsWith("VALUE " + key + " 0 ");
+        final int length = Integer.parseInt(header.substring(header
+                .lastIndexOf(' ') + 1));
+        final char[] data = new char[length];
+        int read = 0;
+        while (read < length) {
+            read += input.read(data, read, length - read);
+        }
+        assertThat(input.readLine()).isEmpty();
+        return new String(data);
+    }
+
+    @Test
+    public void testGetId() throws Exception {
+        send("get id\r\n");
+        final long id = Long.parseLong(readValue("id"));
+        assertThat(id).isGreaterThan(0L);
+        assertThat(input.readLine()).isEqualTo("END");
+    }
+
+    @Test
+    public void testGetIdCount() throws Exception {
+        send("get id:10\r\n");
+        final Set<String> ids = Sets.newHashSet(Splitter.on('\n').split(
+                readValue("id:10")));
+        assertThat(ids).hasSize(10);
+        for (final String id : ids) {
+            assertThat(Long.parseLong(id)).isGreaterThan(0L);
+        }
+        assertThat(input.readLine()).isEqualTo("END");
+    }
+
+    @Test
+    public void testMultiGet() throws Exception {
+        send("get id foo id:3 id\r\n");
+        final Set<String> ids = Sets.newHashSet();
+        ids.add(readValue("id"));
+        ids.addAll(Splitter.on('\n').splitToList(readValue("id:3")));
+        ids.add(readValue("id"));
+        assertThat(input.readLine()).isEqualTo("END");
+        assertThat(ids).hasSize(5);
+    }
+
+    @Test
+    public void testGets() throws Exception {
+        send("gets id\r\n");
+        final String header = input.readLine();
+        assertThat(header).matches("VALUE id 0 \\d+ 0");
+        assertThat(Long.parseLong(input.readLine())).isGreaterThan(0L);
+        assertThat(input.readLine()).isEqualTo("END");
+    }
+
+    @Test
+    public void testPipelinedGets() throws Exception {
+        final StringBuilder commands = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            commands.append("get id\r\n");
+        }
+        send(commands.toString());
+        final Set<String> ids = Sets.newHashSet();
+        for (int i = 0; i < 2000; i++) {
+            ids.add(readValue("id"));
+            assertThat(input.readLine()).isEqualTo("END");
+        }
+        assertThat(ids).hasSize(2000);
+    }
+
+    @Test
+    public void testMiss() throws Exception {
+        send("get foo ids\n");
+        assertThat(input.readLine()).isEqualTo("END");
+    }
+
+    @Test
+    public void testInvalidCount() throws Exception {
+        send("get id:abc\r\nget id:0\r\nget id:101\r\nget id:60 id:60\r\nget id\r\n");
+        for (int i = 0; i < 4; i++) {
+            assertThat(input.readLine()).startsWith("CLIENT_ERROR");
+        }
+        readValue("id");
+        assertThat(input.readLine()).isEqualTo("END");
+    }
+
+    @Test
+    public void testUnknownCommand() throws Exception {
+        send("set id 0 0 1\r\n");
+        assertThat(input.readLine()).isEqualTo("ERROR");
+        send("get\r\n");
+        assertThat(input.readLine()).isEqualTo("ERROR");
+    }
+
+    @Test
+    public void testVersion() throws Exception {
+        send("version\r\n");
+        assertThat(input.readLine()).startsWith("VERSION ");
+    }
+
+    @Test
+    public void testQuit() throws Exception {
+        send("quit\r\n");
+        assertThat(input.readLine()).isNull();
+    }
+
+    @Test
+    public void testLargeGetHoldsBackOnlyItsLane() throws Exception {
+        final int count = 1 << 19;
+        final MemcachedServer lanes = new MemcachedServer(
+                new InetSocketAddress("localhost", 0), new IdWorkerLanes(
+                        ImmutableList.of(new IdWorker(1, 1), new IdWorker(2,
+                                1))), "memcached", count);
+        lanes.start();
+        try (Socket first = new Socket("localhost", lanes.getLocalPort());
+                Socket second = new Socket("localhost", lanes.getLocalPort())) {
+            // 128 ms worth of sequence space on the first lane
+            first.getOutputStream().write(
+                    ("get id:" + count + "\r\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+            second.getOutputStream().write(
+                    "get id\r\n".getBytes(StandardCharsets.US_ASCII));
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(second.getInputStream(),
+                            StandardCharsets.US_ASCII));
+            assertThat(reader.readLine()).startsWith("VALUE id 0 ");
+            assertThat(first.getInputStream().available()).isEqualTo(0);
+
+            final BufferedReader large = new BufferedReader(
+                    new InputStreamReader(first.getInputStream(),
+                            StandardCharsets.US_ASCII));
+            assertThat(large.readLine()).startsWith("VALUE id:" + count);
+            String line;
+            int ids = 0;
+            while (!"END".equals(line = large.readLine())) {
+                assertThat(line).isNotNull();
+                ids++;
+            }
+            assertThat(ids).isEqualTo(count);
+        } finally {
+            lanes.stop();
+        }
+    }
+}
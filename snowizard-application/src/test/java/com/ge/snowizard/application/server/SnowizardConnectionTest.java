@@ -0,0 +1,137 @@
+package com.ge.snowizard.application.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.ge.snowizard.api.BinaryProtocol;
+import com.ge.snowizard.client.SnowizardConnection;
+import com.ge.snowizard.client.exceptions.SnowizardClientException;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Checks how a {@link SnowizardConnection} copes with a server that answers
+ * late or with broken frames
+ */
+public class SnowizardConnectionTest {
+
+    private ServerSocket listener;
+    private SnowizardConnection connection;
+    private Socket server;
+    private DataInputStream input;
+    private DataOutputStream output;
+
+    @Before
+    public void setUp() throws Exception {
+        listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        connection = SnowizardConnection.open("localhost",
+                listener.getLocalPort());
+        server = listener.accept();
+        input = new DataInputStream(server.getInputStream());
+        output = new DataOutputStream(server.getOutputStream());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        server.close();
+        listener.close();
+    }
+
+    /**
+     * Read a request and return its ID
+     */
+    private int readRequest() throws Exception {
+        final int length = input.readInt();
+        final int requestId = input.readInt();
+        input.readInt();
+        input.readFully(new byte[length - BinaryProtocol.HEADER_BYTES]);
+        return requestId;
+    }
+
+    private void assertFails(final ListenableFuture<long[]> future)
+            throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            failBecauseExceptionWasNotThrown(ExecutionException.class);
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(
+                    SnowizardClientException.class);
+        }
+        assertThat(connection.isOpen()).isFalse();
+    }
+
+    @Test
+    public void testFrameShorterThanHeader() throws Exception {
+        final ListenableFuture<long[]> future = connection.submit(1);
+        readRequest();
+        output.writeInt(BinaryProtocol.HEADER_BYTES - 1);
+        output.flush();
+        assertFails(future);
+    }
+
+    @Test
+    public void testResponseLargerThanRequest() throws Exception {
+        final ListenableFuture<long[]> future = connection.submit(1);
+        final int requestId = readRequest();
+        output.writeInt(Integer.MAX_VALUE);
+        output.writeInt(requestId);
+        output.writeInt(BinaryProtocol.OK);
+        output.flush();
+        assertFails(future);
+    }
+
+    @Test
+    public void testErrorMessageTooLong() throws Exception {
+        final ListenableFuture<long[]> future = connection.submit(1);
+        final int requestId = readRequest();
+        output.writeInt(BinaryProtocol.HEADER_BYTES
+                + BinaryProtocol.MAX_MESSAGE_BYTES + 1);
+        output.writeInt(requestId);
+        output.writeInt(BinaryProtocol.BAD_REQUEST);
+        output.flush();
+        assertFails(future);
+    }
+
+    @Test
+    public void testTimedOutRequestIsForgotten() throws Exception {
+        try {
+            connection.getId();
+            failBecauseExceptionWasNotThrown(SnowizardClientException.class);
+        } catch (final SnowizardClientException e) {
+            assertThat(e.getMessage()).contains("Timed out");
+        }
+        assertThat(connection.getPendingCount()).isEqualTo(0);
+
+        // the late response is skipped and the connection stays usable
+        final int late = readRequest();
+        final ListenableFuture<long[]> future = connection.submit(1);
+        final int requestId = readRequest();
+        for (final int id : new int[] { late, requestId }) {
+            output.writeInt(BinaryProtocol.HEADER_BYTES + 8);
+            output.writeInt(id);
+            output.writeInt(BinaryProtocol.OK);
+            output.writeLong(id);
+        }
+        output.flush();
+        assertThat(future.get(5, TimeUnit.SECONDS)).containsExactly(
+                requestId);
+        assertThat(connection.isOpen()).isTrue();
+    }
+
+    @Test
+    public void testCancelledRequestIsForgotten() throws Exception {
+        final ListenableFuture<long[]> future = connection.submit(1);
+        assertThat(connection.getPendingCount()).isEqualTo(1);
+        future.cancel(false);
+        assertThat(connection.getPendingCount()).isEqualTo(0);
+    }
+}
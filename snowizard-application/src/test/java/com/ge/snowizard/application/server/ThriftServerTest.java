@@ -0,0 +1,199 @@
+package com.ge.snowizard.application.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TStruct;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+public class ThriftServerTest {
+
+    private static final String AGENT = "snowizard-client";
+    private final IdWorker worker = new IdWorker(3, 2);
+    private ThriftServer server;
+    private TTransport transport;
+    private TProtocol protocol;
+    private int seqid;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ThriftServer(new InetSocketAddress("localhost", 0),
+                new IdWorkerLanes(ImmutableList.of(worker)));
+        server.start();
+        transport = new TFramedTransport(new TSocket("localhost",
+                server.getLocalPort()));
+        transport.open();
+        protocol = new TBinaryProtocol(transport);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transport.close();
+        server.stop();
+    }
+
+    /**
+     * Call a method the way a client generated from Snowflake's IDL does
+     */
+    private long call(final String method, final String agent)
+            throws TException {
+        return call(protocol, method, agent);
+    }
+
+    /**
+     * Call a method over the given connection
+     */
+    private long call(final TProtocol protocol, final String method,
+            final String agent) throws TException {
+        protocol.writeMessageBegin(new TMessage(method, TMessageType.CALL,
+                ++seqid));
+        protocol.writeStructBegin(new TStruct(method + "_args"));
+        if (agent != null) {
+            protocol.writeFieldBegin(new TField("useragent", TType.STRING,
+                    (short) 1));
+            protocol.writeString(agent);
+            protocol.writeFieldEnd();
+        }
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+        protocol.writeMessageEnd();
+        protocol.getTransport().flush();
+
+        final TMessage reply = protocol.readMessageBegin();
+        assertThat(reply.name).isEqualTo(method);
+        assertThat(reply.seqid).isEqualTo(seqid);
+        if (reply.type == TMessageType.EXCEPTION) {
+            final TApplicationException e = TApplicationException
+                    .read(protocol);
+            protocol.readMessageEnd();
+            throw e;
+        }
+        protocol.readStructBegin();
+        final TField field = protocol.readFieldBegin();
+        assertThat(field.id).isEqualTo((short) 0);
+        assertThat(field.type).isEqualTo(TType.I64);
+        final long result = protocol.readI64();
+        protocol.readFieldEnd();
+        assertThat(protocol.readFieldBegin().type).isEqualTo(TType.STOP);
+        protocol.readStructEnd();
+        protocol.readMessageEnd();
+        return result;
+    }
+
+    @Test
+    public void testGetId() throws Exception {
+        final long id = call("get_id", AGENT);
+        assertThat(id).isGreaterThan(0L);
+        assertThat((id >> 12) & 0x1f).isEqualTo(3L);
+        assertThat((id >> 17) & 0x1f).isEqualTo(2L);
+    }
+
+    @Test
+    public void testGetIdsOverOneConnection() throws Exception {
+        final Set<Long> ids = Sets.newHashSet();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(call("get_id", AGENT));
+        }
+        assertThat(ids).hasSize(1000);
+    }
+
+    @Test
+    public void testGetWorkerId() throws Exception {
+        assertThat(call("get_worker_id", null)).isEqualTo(3L);
+    }
+
+    @Test
+    public void testGetDatacenterId() throws Exception {
+        assertThat(call("get_datacenter_id", null)).isEqualTo(2L);
+    }
+
+    @Test
+    public void testGetTimestamp() throws Exception {
+        final long before = System.currentTimeMillis();
+        final long timestamp = call("get_timestamp", null);
+        assertThat(timestamp).isBetween(before, System.currentTimeMillis());
+    }
+
+    @Test
+    public void testInvalidUserAgent() throws Exception {
+        try {
+            call("get_id", "bad agent!");
+            failBecauseExceptionWasNotThrown(TApplicationException.class);
+        } catch (final TApplicationException e) {
+            assertThat(e.getType()).isEqualTo(
+                    TApplicationException.INTERNAL_ERROR);
+            assertThat(e.getMessage()).isEqualTo("Invalid user agent");
+        }
+        // the connection stays usable after an error
+        assertThat(call("get_id", AGENT)).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testMissingUserAgent() throws Exception {
+        try {
+            call("get_id", null);
+            failBecauseExceptionWasNotThrown(TApplicationException.class);
+        } catch (final TApplicationException e) {
+            assertThat(e.getType()).isEqualTo(
+                    TApplicationException.INTERNAL_ERROR);
+        }
+    }
+
+    @Test
+    public void testUnknownMethod() throws Exception {
+        try {
+            call("get_ids", AGENT);
+            failBecauseExceptionWasNotThrown(TApplicationException.class);
+        } catch (final TApplicationException e) {
+            assertThat(e.getType()).isEqualTo(
+                    TApplicationException.UNKNOWN_METHOD);
+        }
+    }
+
+    @Test
+    public void testConnectionsSpreadAcrossLanes() throws Exception {
+        final ThriftServer lanes = new ThriftServer(new InetSocketAddress(
+                "localhost", 0), new IdWorkerLanes(ImmutableList.of(
+                new IdWorker(4, 2), new IdWorker(5, 2))));
+        lanes.start();
+        final TTransport first = new TFramedTransport(new TSocket(
+                "localhost", lanes.getLocalPort()));
+        final TTransport second = new TFramedTransport(new TSocket(
+                "localhost", lanes.getLocalPort()));
+        try {
+            first.open();
+            second.open();
+            final TProtocol firstProtocol = new TBinaryProtocol(first);
+            final TProtocol secondProtocol = new TBinaryProtocol(second);
+            assertThat(call(firstProtocol, "get_worker_id", null)).isEqualTo(
+                    4L);
+            assertThat(call(secondProtocol, "get_worker_id", null))
+                    .isEqualTo(5L);
+            // a connection stays on its lane
+            final long id = call(firstProtocol, "get_id", AGENT);
+            assertThat((id >> 12) & 0x1f).isEqualTo(4L);
+        } finally {
+            first.close();
+            second.close();
+            lanes.stop();
+        }
+    }
+}
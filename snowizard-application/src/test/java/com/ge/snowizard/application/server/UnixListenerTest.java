@@ -0,0 +1,171 @@
+package com.ge.snowizard.application.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.ge.snowizard.client.SnowizardClient;
+import com.ge.snowizard.client.SnowizardConnection;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ListenableFuture;
+
+public class UnixListenerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final IdWorker worker = new IdWorker(1, 1);
+    private File path;
+    private BinaryProtocolServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        path = new File(folder.getRoot(), "snowizard.sock");
+        server = new BinaryProtocolServer(new UnixListener(path),
+                new IdWorkerLanes(ImmutableList.of(worker)), 1000);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void testConnection() throws Exception {
+        try (SnowizardConnection connection = SnowizardConnection.open(path)) {
+            assertThat(connection.getId()).isGreaterThan(0L);
+            final long[] ids = connection.getIds(1000);
+            assertThat(Sets.newHashSet(Longs.asList(ids))).hasSize(1000);
+        }
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        try (SnowizardConnection connection = SnowizardConnection.open(path)) {
+            final List<ListenableFuture<long[]>> futures = Lists
+                    .newArrayList();
+            for (int i = 0; i < 500; i++) {
+                futures.add(connection.submit(2));
+            }
+            for (final ListenableFuture<long[]> future : futures) {
+                assertThat(future.get()).hasSize(2);
+            }
+        }
+    }
+
+    @Test
+    public void testClientUnixHost() throws Exception {
+        try (SnowizardClient client = new SnowizardClient(
+                ImmutableList.of("unix:" + path.getPath()))) {
+            assertThat(client.getId()).isGreaterThan(0L);
+            assertThat(client.getIds(10)).hasSize(10);
+            assertThat(client.getIdArray(10)).hasSize(10);
+        }
+    }
+
+    @Test
+    public void testClientReconnects() throws Exception {
+        try (SnowizardClient client = new SnowizardClient(
+                ImmutableList.of("unix:" + path.getPath()))) {
+            assertThat(client.getId()).isGreaterThan(0L);
+            server.stop();
+            server.start();
+            // the first attempt may still use the closed connection
+            long id = 0L;
+            for (int i = 0; i < 3 && id == 0L; i++) {
+                try {
+                    id = client.getId();
+                } catch (final Exception ignore) {
+                    // retried below
+                }
+            }
+            assertThat(id).isGreaterThan(0L);
+        }
+    }
+
+    @Test
+    public void testSocketFileLifecycle() throws Exception {
+        assertThat(path).exists();
+        server.stop();
+        assertThat(path).doesNotExist();
+
+        // a socket nobody listens on any more
+        final UnixServerSocketChannel stale = UnixServerSocketChannel.open();
+        stale.socket().bind(new UnixSocketAddress(path));
+        stale.close();
+        assertThat(path).exists();
+
+        server.start();
+        try (SnowizardConnection connection = SnowizardConnection.open(path)) {
+            assertThat(connection.getId()).isGreaterThan(0L);
+        }
+    }
+
+    @Test
+    public void testRefusesLiveSocket() throws Exception {
+        final BinaryProtocolServer other = new BinaryProtocolServer(
+                new UnixListener(path), new IdWorkerLanes(
+                        ImmutableList.of(new IdWorker(2, 1))), 1000);
+        try {
+            other.start();
+            failBecauseExceptionWasNotThrown(IOException.class);
+        } catch (final IOException e) {
+            assertThat(e).hasMessageContaining("in use");
+        }
+        try (SnowizardConnection connection = SnowizardConnection.open(path)) {
+            assertThat(connection.getId()).isGreaterThan(0L);
+        }
+    }
+
+    @Test
+    public void testRefusesRegularFile() throws Exception {
+        final File file = folder.newFile("snowizard.yml");
+        final BinaryProtocolServer other = new BinaryProtocolServer(
+                new UnixListener(file), new IdWorkerLanes(
+                        ImmutableList.of(new IdWorker(2, 1))), 1000);
+        try {
+            other.start();
+            failBecauseExceptionWasNotThrown(IOException.class);
+        } catch (final IOException e) {
+            assertThat(e).hasMessageContaining("not a socket");
+        }
+        assertThat(file).isFile();
+    }
+
+    @Test
+    public void testReplacesOnlyStaleSocketFile() throws Exception {
+        server.stop();
+        final UnixServerSocketChannel stale = UnixServerSocketChannel.open();
+        stale.socket().bind(new UnixSocketAddress(path));
+        stale.close();
+
+        final UnixListener first = new UnixListener(path);
+        final UnixListener second = new UnixListener(path);
+        try {
+            first.bind();
+            try {
+                second.bind();
+                failBecauseExceptionWasNotThrown(IOException.class);
+            } catch (final IOException e) {
+                assertThat(e).hasMessageContaining("in use");
+            }
+        } finally {
+            first.close();
+        }
+        assertThat(path).doesNotExist();
+    }
+}
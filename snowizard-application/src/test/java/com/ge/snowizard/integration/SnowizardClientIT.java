@@ -1,5 +1,6 @@
 package com.ge.snowizard.integration;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import io.dropwizard.testing.ResourceHelpers;
 import io.dropwizard.testing.junit.DropwizardAppRule;
 import java.util.List;
@@ -9,8 +10,11 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import com.ge.snowizard.application.SnowizardApplication;
 import com.ge.snowizard.application.config.SnowizardConfiguration;
+import com.ge.snowizard.client.IdSubscription;
 import com.ge.snowizard.client.SnowizardClient;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
 
 public class SnowizardClientIT {
 
@@ -55,4 +59,36 @@ public class SnowizardClientIT {
                 "generated %d (parallel) ids in %d ms", COUNT,
                 (endTime - startTime)));
     }
+
+    @Test
+    public void testClientSubscription() throws Exception {
+        final long[] ids = new long[COUNT * 10];
+        final long startTime = System.currentTimeMillis();
+        try (IdSubscription subscription = client.subscribe(100, COUNT)) {
+            int taken = 0;
+            while (taken < ids.length) {
+                taken += subscription.take(ids, taken, ids.length - taken);
+            }
+            assertThat(subscription.available()).isLessThanOrEqualTo(COUNT);
+        }
+
+        final long endTime = System.currentTimeMillis();
+        assertThat(Sets.newHashSet(Longs.asList(ids))).hasSize(ids.length);
+        System.out.println(String.format(
+                "streamed %d ids in %d ms", ids.length,
+                (endTime - startTime)));
+    }
+
+    @Test
+    public void testClientGetIdArray() throws Exception {
+        final long startTime = System.currentTimeMillis();
+        final long[] ids = client.getIdArray(COUNT);
+
+        final long endTime = System.currentTimeMillis();
+        assertThat(ids).hasSize(COUNT);
+        assertThat(Sets.newHashSet(Longs.asList(ids))).hasSize(COUNT);
+        System.out.println(String.format(
+                "generated %d (binary) ids in %d ms", COUNT,
+                (endTime - startTime)));
+    }
 }
@@ -0,0 +1,38 @@
+package com.ge.snowizard.benchmarks;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import com.ge.snowizard.core.ManualTimeSource;
+import com.ge.snowizard.core.TimeSource;
+import com.ge.snowizard.core.WaitStrategy;
+
+/**
+ * Wait strategy moving a manual clock on itself instead of waiting for it,
+ * so that benchmarks measure the cost of generating IDs rather than the 4096
+ * IDs per millisecond a worker is limited to in real time
+ */
+final class AdvancingWaitStrategy implements WaitStrategy {
+
+    private final ManualTimeSource time;
+
+    /**
+     * Constructor
+     *
+     * @param time
+     *            Clock the workers read, advanced whenever one of them runs
+     *            out of sequence numbers
+     */
+    AdvancingWaitStrategy(final ManualTimeSource time) {
+        this.time = checkNotNull(time);
+    }
+
+    @Override
+    public long waitUntilAfter(final long lastTimestamp,
+            final TimeSource clock) {
+        long timestamp = clock.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            time.advance(1);
+            timestamp = clock.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
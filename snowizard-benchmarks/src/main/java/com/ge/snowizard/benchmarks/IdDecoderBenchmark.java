@@ -0,0 +1,52 @@
+package com.ge.snowizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.core.IdDecoder;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+
+/**
+ * Measures how many IDs per millisecond {@link IdDecoder} decodes into
+ * reusable columns, in batches of {@value #BATCH} IDs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdDecoderBenchmark {
+
+    private static final int BATCH = 4096;
+
+    private final IdDecoder decoder = new IdDecoder();
+    private final long[] timestamps = new long[BATCH];
+    private final int[] datacenterIds = new int[BATCH];
+    private final int[] workerIds = new int[BATCH];
+    private final int[] sequences = new int[BATCH];
+    private long[] ids;
+
+    @Setup
+    public void setUp() throws InvalidSystemClock {
+        ids = new IdWorker(1, 1).nextIds(BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int[] decode() {
+        decoder.decode(ids, 0, BATCH, timestamps, datacenterIds, workerIds,
+                sequences);
+        return sequences;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ge.snowizard.benchmarks;
+
+import io.dropwizard.jackson.Jackson;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ge.snowizard.api.Id;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
+import com.ge.snowizard.core.IdWorker;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
+
+/**
+ * Measures how long the server takes to turn a batch of generated IDs into a
+ * response body: a JSON array of {@link Id} objects, and a
+ * {@link SnowizardResponse} built from boxed values the way
+ * {@code IdResource} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdSerializationBenchmark {
+
+    @Param({ "1", "10", "100", "1000" })
+    public int count;
+
+    private final ObjectMapper mapper = Jackson.newObjectMapper();
+    private long[] ids;
+
+    @Setup
+    public void setUp() throws Exception {
+        ids = new IdWorker(1, 1).nextIds(count);
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        final List<Id> response = Lists.newArrayListWithCapacity(count);
+        for (final long id : ids) {
+            response.add(new Id(id));
+        }
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] protobuf() {
+        return SnowizardResponse.newBuilder().addAllId(Longs.asList(ids))
+                .build().toByteArray();
+    }
+}
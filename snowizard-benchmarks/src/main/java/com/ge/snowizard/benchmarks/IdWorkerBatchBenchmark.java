@@ -0,0 +1,59 @@
+package com.ge.snowizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+
+/**
+ * Compares generating a batch of IDs one {@link IdWorker#getId(String)} call
+ * at a time against a single {@link IdWorker#getIds(String, long[], int, int)}
+ * reservation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdWorkerBatchBenchmark {
+
+    private static final String AGENT = "snowizard-benchmarks";
+
+    @Param({ "10", "100", "1000" })
+    public int count;
+
+    private IdWorker worker;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        worker = new IdWorker(1, 1, true);
+        ids = new long[count];
+    }
+
+    @Benchmark
+    public long[] loop() throws InvalidUserAgentError, InvalidSystemClock {
+        for (int i = 0; i < count; i++) {
+            ids[i] = worker.getId(AGENT);
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public long[] batch() throws InvalidUserAgentError, InvalidSystemClock {
+        worker.getIds(AGENT, ids, 0, count);
+        return ids;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ge.snowizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.ManualTimeSource;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+
+/**
+ * Measures the cost {@link IdWorker#getId(String)} adds on top of
+ * {@link IdWorker#nextId()} (User-Agent validation and per-agent counters),
+ * from one thread up to one thread per core. The worker runs on a
+ * {@link ManualTimeSource} which moves on as soon as a millisecond's sequence
+ * numbers run out, so the scores show the cost of generating an ID rather
+ * than the 4096 IDs per millisecond a worker is limited to in real time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdWorkerBenchmark {
+
+    private static final String AGENT = "snowizard-benchmarks";
+
+    @Param({ "true", "false" })
+    public boolean validateUserAgent;
+
+    private IdWorker worker;
+
+    @Setup
+    public void setUp() {
+        final ManualTimeSource time = new ManualTimeSource(
+                System.currentTimeMillis());
+        worker = IdWorker.builder(1, 1).validateUserAgent(validateUserAgent)
+                .timeSource(time).waitStrategy(new AdvancingWaitStrategy(time))
+                .build();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextId01() throws InvalidSystemClock {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextId04() throws InvalidSystemClock {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long nextIdMax() throws InvalidSystemClock {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long getId01() throws InvalidUserAgentError, InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long getId04() throws InvalidUserAgentError, InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long getIdMax() throws InvalidUserAgentError, InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+}
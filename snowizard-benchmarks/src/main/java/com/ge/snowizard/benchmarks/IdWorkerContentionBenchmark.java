@@ -0,0 +1,115 @@
+package com.ge.snowizard.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.core.IdGenerator;
+import com.ge.snowizard.core.IdWorker;
+import com.ge.snowizard.core.IdWorkerLanes;
+import com.ge.snowizard.core.ManualTimeSource;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.google.common.collect.Lists;
+
+/**
+ * Measures {@link IdGenerator#getId(String)} throughput as the number of
+ * threads sharing a generator goes up. The workers run on a
+ * {@link ManualTimeSource} which moves on as soon as a millisecond's sequence
+ * numbers run out, so the scores show how each implementation scales rather
+ * than the 4096 IDs per millisecond a worker is limited to in real time. The
+ * {@code lanes} implementation spreads threads across four lock-free workers.
+ *
+ * <pre>
+ * java -jar snowizard-benchmarks/target/benchmarks.jar IdWorkerContentionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdWorkerContentionBenchmark {
+
+    private static final String AGENT = "snowizard-benchmarks";
+
+    @Param({ "synchronized", "lock_free", "lanes" })
+    public String implementation;
+
+    private IdGenerator worker;
+
+    @Setup
+    public void setUp() {
+        final ManualTimeSource time = new ManualTimeSource(
+                System.currentTimeMillis());
+        if ("lanes".equals(implementation)) {
+            final List<IdWorker> lanes = Lists.newArrayList();
+            for (int workerId = 1; workerId <= 4; workerId++) {
+                lanes.add(worker(workerId, true, time));
+            }
+            worker = new IdWorkerLanes(lanes);
+        } else {
+            worker = worker(1, "lock_free".equals(implementation), time);
+        }
+    }
+
+    private static IdWorker worker(final int workerId,
+            final boolean lockFree, final ManualTimeSource time) {
+        return IdWorker.builder(workerId, 1).validateUserAgent(false)
+                .lockFree(lockFree).timeSource(time)
+                .waitStrategy(new AdvancingWaitStrategy(time)).build();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads01() throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public long threads02() throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long threads04() throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long threads08() throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long threads16() throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public long threads32() throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return worker.getId(AGENT);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ge.snowizard.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
+import com.ge.snowizard.client.SnowizardClient;
+import com.ge.snowizard.client.exceptions.SnowizardClientException;
+import com.ge.snowizard.core.IdWorker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+
+/**
+ * Measures how long {@link SnowizardClient} takes to turn a protobuf response
+ * into IDs. Requests go through a regular pooled HTTP client whose executor
+ * answers in memory with a canned response, so the network and the server
+ * are left out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowizardClientBenchmark {
+
+    @Param({ "1", "10", "100", "1000" })
+    public int count;
+
+    private SnowizardClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        final byte[] body = SnowizardResponse.newBuilder()
+                .addAllId(Longs.asList(new IdWorker(1, 1).nextIds(count)))
+                .build().toByteArray();
+        final Registry<ConnectionSocketFactory> sockets = RegistryBuilder
+                .<ConnectionSocketFactory> create()
+                .register("http", new UnconnectedSocketFactory()).build();
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setStaleConnectionCheckEnabled(Boolean.FALSE).build();
+        client = new SnowizardClient(HttpClientBuilder.create()
+                .setConnectionManager(
+                        new PoolingHttpClientConnectionManager(sockets))
+                .setDefaultRequestConfig(requestConfig)
+                .setRequestExecutor(new CannedRequestExecutor(body)).build(),
+                ImmutableList.of("localhost:8080"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+    }
+
+    @Benchmark
+    public List<Long> getIds() throws SnowizardClientException {
+        return client.getIds(count);
+    }
+
+    /**
+     * Request executor answering every request with the same protobuf body
+     * instead of sending it
+     */
+    private static final class CannedRequestExecutor extends
+            HttpRequestExecutor {
+
+        private final byte[] body;
+
+        CannedRequestExecutor(final byte[] body) {
+            this.body = body;
+        }
+
+        @Override
+        public HttpResponse execute(final HttpRequest request,
+                final HttpClientConnection connection,
+                final HttpContext context) throws IOException, HttpException {
+            final BasicHttpResponse response = new BasicHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+            response.setHeader(HttpHeaders.CONTENT_LENGTH,
+                    String.valueOf(body.length));
+            response.setEntity(new ByteArrayEntity(body));
+            return response;
+        }
+    }
+
+    /**
+     * Socket factory handing out sockets that are never connected, since the
+     * {@link CannedRequestExecutor} doesn't use them
+     */
+    private static final class UnconnectedSocketFactory implements
+            ConnectionSocketFactory {
+
+        @Override
+        public Socket createSocket(final HttpContext context) {
+            return new Socket();
+        }
+
+        @Override
+        public Socket connectSocket(final int connectTimeout,
+                final Socket socket, final HttpHost host,
+                final InetSocketAddress remoteAddress,
+                final InetSocketAddress localAddress,
+                final HttpContext context) {
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ge.snowizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.core.CachedTimeSource;
+import com.ge.snowizard.core.SystemTimeSource;
+import com.ge.snowizard.core.TimeSource;
+
+/**
+ * Cost of reading the current time from each {@link TimeSource}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeSourceBenchmark {
+
+    @Param({ "system", "cached" })
+    public String source;
+
+    private TimeSource timeSource;
+
+    @Setup
+    public void setUp() {
+        if ("cached".equals(source)) {
+            timeSource = new CachedTimeSource();
+        } else {
+            timeSource = new SystemTimeSource();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (timeSource instanceof CachedTimeSource) {
+            ((CachedTimeSource) timeSource).close();
+        }
+    }
+
+    @Benchmark
+    public long currentTimeMillis() {
+        return timeSource.currentTimeMillis();
+    }
+}
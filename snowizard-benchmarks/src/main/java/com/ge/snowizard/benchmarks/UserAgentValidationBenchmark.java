@@ -0,0 +1,70 @@
+package com.ge.snowizard.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.ge.snowizard.core.UserAgentValidator;
+
+/**
+ * Compares User-Agent validation with the regular expression workers used to
+ * run on every request against the {@link UserAgentValidator} scanner, with
+ * and without its verdict cache. Requests cycle through a fixed set of
+ * distinct agents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserAgentValidationBenchmark {
+
+    private static final Pattern AGENT_PATTERN = Pattern
+            .compile("([a-zA-Z][a-zA-Z0-9\\-]*)");
+
+    @Param({ "10", "300" })
+    public int agentCount;
+
+    private final UserAgentValidator validator = new UserAgentValidator();
+    private String[] agents;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        agents = new String[agentCount];
+        for (int i = 0; i < agentCount; i++) {
+            agents[i] = "snowizard-client-service-" + i;
+        }
+    }
+
+    private String nextAgent() {
+        final String agent = agents[next];
+        next = (next + 1) % agents.length;
+        return agent;
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return AGENT_PATTERN.matcher(nextAgent()).matches();
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return UserAgentValidator.scan(nextAgent());
+    }
+
+    @Benchmark
+    public boolean cached() {
+        return validator.isValid(nextAgent());
+    }
+}
@@ -0,0 +1,311 @@
+package com.ge.snowizard.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.client.exceptions.SnowizardClientException;
+import com.google.common.primitives.Longs;
+
+/**
+ * Long-lived stream of IDs from Snowizard's {@code /stream} endpoint, read by
+ * a background thread into a bounded queue of primitive longs. The thread
+ * only reads from the connection while the queue has room, so a consumer
+ * that falls behind holds back the server through TCP flow control. Broken
+ * connections are re-established against the next host.
+ */
+public class IdSubscription implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(IdSubscription.class);
+    private static final long RETRY_DELAY_MS = 100L;
+
+    private final CloseableHttpClient client;
+    private final Iterable<String> hosts;
+    private final int frameSize;
+    private final long[] queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread reader;
+    private int head;
+    private int size;
+    private volatile boolean closed;
+    private volatile HttpGet current;
+
+    /**
+     * Constructor
+     * 
+     * @param client
+     *            HTTP client to connect with
+     * @param hosts
+     *            List of host:port pairs to connect to
+     * @param frameSize
+     *            Number of IDs the server writes at a time
+     * @param capacity
+     *            Most IDs held in the local queue
+     */
+    IdSubscription(final CloseableHttpClient client,
+            final Iterable<String> hosts, final int frameSize,
+            final int capacity) {
+        checkArgument(frameSize > 0, "frame size must be positive");
+        checkArgument(capacity >= frameSize,
+                "capacity must hold at least one frame");
+        this.client = checkNotNull(client);
+        this.hosts = checkNotNull(hosts);
+        this.frameSize = frameSize;
+        this.queue = new long[capacity];
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }, "snowizard-subscription");
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Start reading from the server
+     * 
+     * @return this subscription
+     */
+    IdSubscription start() {
+        reader.start();
+        return this;
+    }
+
+    /**
+     * Take the next ID, waiting for one to arrive if necessary
+     * 
+     * @return next ID
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     * @throws SnowizardClientException
+     *             if the subscription is closed
+     */
+    public long take() throws InterruptedException, SnowizardClientException {
+        lock.lockInterruptibly();
+        try {
+            awaitIds();
+            final long id = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            notFull.signal();
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take up to {@code length} IDs into an array, waiting until at least one
+     * has arrived
+     * 
+     * @param ids
+     *            Array to fill
+     * @param offset
+     *            First index to fill
+     * @param length
+     *            Most IDs to take
+     * @return number of IDs taken
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     * @throws SnowizardClientException
+     *             if the subscription is closed
+     */
+    public int take(final long[] ids, final int offset, final int length)
+            throws InterruptedException, SnowizardClientException {
+        lock.lockInterruptibly();
+        try {
+            awaitIds();
+            final int taken = Math.min(length, size);
+            for (int i = 0; i < taken; i++) {
+                ids[offset + i] = queue[head];
+                head = (head + 1) % queue.length;
+            }
+            size -= taken;
+            notFull.signal();
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of IDs waiting in the local queue
+     * 
+     * @return number of queued IDs
+     */
+    public int available() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop reading from the server and wake up any waiting consumers
+     */
+    @Override
+    public void close() {
+        closed = true;
+        final HttpGet request = current;
+        if (request != null) {
+            request.abort();
+        }
+        reader.interrupt();
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitIds() throws InterruptedException,
+            SnowizardClientException {
+        while (size == 0) {
+            if (closed) {
+                throw new SnowizardClientException("Subscription is closed");
+            }
+            notEmpty.await();
+        }
+    }
+
+    /**
+     * Read from the hosts in turn until closed
+     */
+    private void read() {
+        while (!closed) {
+            for (final String host : hosts) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    readFrom(host);
+                } catch (final InterruptedException e) {
+                    return;
+                } catch (final Exception e) {
+                    if (!closed) {
+                        LOGGER.warn("Unable to stream IDs from host ({})",
+                                host);
+                    }
+                }
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MS);
+            } catch (final InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read IDs from a single host until the connection breaks
+     * 
+     * @param host
+     *            Host:Port pair to connect to
+     * @throws IOException
+     *             Error in communicating with Snowizard
+     * @throws InterruptedException
+     *             if interrupted while waiting for room in the queue
+     */
+    private void readFrom(final String host) throws IOException,
+            InterruptedException {
+        final String uri = String.format("http://%s/stream?frame=%d", host,
+                frameSize);
+        final HttpGet request = new HttpGet(uri);
+        request.addHeader(HttpHeaders.ACCEPT,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType());
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        request.addHeader(HttpHeaders.USER_AGENT,
+                SnowizardClient.getUserAgent());
+        current = request;
+
+        try {
+            final HttpResponse response = client.execute(request,
+                    new BasicHttpContext());
+            final HttpEntity entity = response.getEntity();
+            final int code = response.getStatusLine().getStatusCode();
+            if (code != HttpStatus.SC_OK || entity == null) {
+                EntityUtils.consumeQuietly(entity);
+                throw new IOException(String.format(
+                        "Unexpected response status %d", code));
+            }
+            final InputStream input = entity.getContent();
+            final byte[] buffer = new byte[frameSize * Longs.BYTES];
+            final LongBuffer longs = ByteBuffer.wrap(buffer).asLongBuffer();
+            int pending = 0;
+            int read = input.read(buffer, pending, buffer.length - pending);
+            while (read != -1 && !closed) {
+                pending += read;
+                final int whole = pending / Longs.BYTES;
+                longs.clear();
+                put(longs, whole);
+                final int consumed = whole * Longs.BYTES;
+                System.arraycopy(buffer, consumed, buffer, 0, pending
+                        - consumed);
+                pending -= consumed;
+                read = input.read(buffer, pending, buffer.length - pending);
+            }
+        } finally {
+            current = null;
+            request.releaseConnection();
+        }
+    }
+
+    /**
+     * Add IDs to the queue, waiting for room as necessary
+     * 
+     * @param ids
+     *            Buffer to take the IDs from
+     * @param count
+     *            Number of IDs to add
+     * @throws InterruptedException
+     *             if interrupted or closed while waiting
+     */
+    private void put(final LongBuffer ids, final int count)
+            throws InterruptedException {
+        int remaining = count;
+        lock.lockInterruptibly();
+        try {
+            while (remaining > 0) {
+                while (size == queue.length) {
+                    if (closed) {
+                        throw new InterruptedException();
+                    }
+                    notFull.await();
+                }
+                final int added = Math.min(remaining, queue.length - size);
+                for (int i = 0; i < added; i++) {
+                    queue[(head + size + i) % queue.length] = ids.get();
+                }
+                size += added;
+                remaining -= added;
+                notEmpty.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
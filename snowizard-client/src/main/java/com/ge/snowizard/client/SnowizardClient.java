@@ -3,8 +3,14 @@ package com.ge.snowizard.client;
 import static com.google.common.base.Preconditions.checkNotNull;
 import io.dropwizard.jersey.protobuf.ProtocolBufferMediaType;
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nullable;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
@@ -15,6 +21,7 @@ import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultBackoffStrategy;
@@ -28,6 +35,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.ge.snowizard.api.protos.SnowizardProtos.SnowizardResponse;
 import com.ge.snowizard.client.exceptions.SnowizardClientException;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterables;
+import com.google.common.net.HostAndPort;
+import com.google.common.primitives.Longs;
 
 public class SnowizardClient implements Closeable {
 
@@ -37,14 +49,24 @@ public class SnowizardClient implements Closeable {
     private static final int SOCKET_TIMEOUT_MS = 500;
     private static final int CONNECTION_TIMEOUT_MS = 500;
     private static final int MAX_RETRIES = 3;
+    private static final int BINARY_BUFFER_SIZE = 8192;
+    private static final String UNIX_PREFIX = "unix:";
+    private static final Predicate<String> UNIX_HOST = new Predicate<String>() {
+        @Override
+        public boolean apply(final String host) {
+            return isUnixHost(host);
+        }
+    };
     private final Iterable<String> hosts;
     private final CloseableHttpClient client;
+    private final ConcurrentMap<String, SnowizardConnection> connections = new ConcurrentHashMap<>();
 
     /**
      * Constructor
      * 
      * @param hosts
-     *            List of host:port pairs to connect to
+     *            List of host:port pairs to connect to, or
+     *            {@code unix:<path>} for a Unix domain socket on this host
      */
     public SnowizardClient(final Iterable<String> hosts) {
         this(newHttpClient(), hosts);
@@ -56,7 +78,8 @@ public class SnowizardClient implements Closeable {
      * @param client
      *            {@link HttpClient} to use
      * @param hosts
-     *            List of host:port pairs to connect to
+     *            List of host:port pairs to connect to, or
+     *            {@code unix:<path>} for a Unix domain socket on this host
      */
     public SnowizardClient(final CloseableHttpClient client,
             final Iterable<String> hosts) {
@@ -165,6 +188,86 @@ public class SnowizardClient implements Closeable {
         return snowizard;
     }
 
+    /**
+     * Execute a request to the Snowizard service URL for IDs encoded as
+     * big-endian 64-bit values, decoding them as they arrive
+     * 
+     * @param host
+     *            Host:Port pair to connect to
+     * @param count
+     *            Number of IDs to generate
+     * @return generated IDs
+     * @throws IOException
+     *             Error in communicating with Snowizard
+     */
+    @Nullable
+    public long[] executeBinaryRequest(final String host, final int count)
+            throws IOException {
+        final String uri = String.format("http://%s/?count=%d", host, count);
+        final HttpGet request = new HttpGet(uri);
+        request.addHeader(HttpHeaders.ACCEPT,
+                ContentType.APPLICATION_OCTET_STREAM.getMimeType());
+        request.addHeader(HttpHeaders.USER_AGENT, getUserAgent());
+
+        long[] ids = null;
+        try {
+            final BasicHttpContext context = new BasicHttpContext();
+            final HttpResponse response = client.execute(request, context);
+            final int code = response.getStatusLine().getStatusCode();
+            if (code == HttpStatus.SC_OK) {
+                final HttpEntity entity = response.getEntity();
+                if (entity != null) {
+                    ids = readIds(entity.getContent(), Math.max(0, count));
+                }
+                EntityUtils.consumeQuietly(entity);
+            }
+        } finally {
+            request.releaseConnection();
+        }
+        return ids;
+    }
+
+    /**
+     * Decode an exact number of big-endian 64-bit IDs from a stream
+     * 
+     * @param input
+     *            Stream to read
+     * @param count
+     *            Number of IDs expected
+     * @return decoded IDs
+     * @throws IOException
+     *             When the stream holds a different number of IDs
+     */
+    private static long[] readIds(final InputStream input, final int count)
+            throws IOException {
+        final long[] ids = new long[count];
+        final byte[] buffer = new byte[BINARY_BUFFER_SIZE];
+        final LongBuffer longs = ByteBuffer.wrap(buffer).asLongBuffer();
+        int decoded = 0;
+        int pending = 0;
+        int read = input.read(buffer, pending, buffer.length - pending);
+        while (read != -1) {
+            pending += read;
+            final int whole = pending / Longs.BYTES;
+            if (whole > count - decoded) {
+                throw new IOException(String.format(
+                        "Received more than the %d IDs requested", count));
+            }
+            longs.clear();
+            longs.get(ids, decoded, whole);
+            decoded += whole;
+            final int consumed = whole * Longs.BYTES;
+            System.arraycopy(buffer, consumed, buffer, 0, pending - consumed);
+            pending -= consumed;
+            read = input.read(buffer, pending, buffer.length - pending);
+        }
+        if (decoded != count || pending != 0) {
+            throw new IOException(String.format(
+                    "Received %d of the %d IDs requested", decoded, count));
+        }
+        return ids;
+    }
+
     /**
      * Get a new ID from Snowizard
      * 
@@ -175,6 +278,9 @@ public class SnowizardClient implements Closeable {
     public long getId() throws SnowizardClientException {
         for (final String host : hosts) {
             try {
+                if (isUnixHost(host)) {
+                    return getUnixConnection(host).getId();
+                }
                 final SnowizardResponse snowizard = executeRequest(host);
                 if (snowizard != null) {
                     return snowizard.getId(0);
@@ -199,6 +305,9 @@ public class SnowizardClient implements Closeable {
     public List<Long> getIds(final int count) throws SnowizardClientException {
         for (final String host : hosts) {
             try {
+                if (isUnixHost(host)) {
+                    return Longs.asList(getUnixConnection(host).getIds(count));
+                }
                 final SnowizardResponse snowizard = executeRequest(host, count);
                 if (snowizard != null) {
                     return snowizard.getIdList();
@@ -211,6 +320,121 @@ public class SnowizardClient implements Closeable {
                 "Unable to generate batch of IDs from Snowizard");
     }
 
+    /**
+     * Get multiple IDs from Snowizard as a primitive array, transferred as
+     * 8 bytes per ID
+     * 
+     * @param count
+     *            Number of IDs to return
+     * @return generated IDs
+     * @throws SnowizardClientException
+     *             when unable to get an ID from any host
+     */
+    public long[] getIdArray(final int count) throws SnowizardClientException {
+        for (final String host : hosts) {
+            try {
+                if (isUnixHost(host)) {
+                    return getUnixConnection(host).getIds(count);
+                }
+                final long[] ids = executeBinaryRequest(host, count);
+                if (ids != null) {
+                    return ids;
+                }
+            } catch (final Exception ex) {
+                LOGGER.warn("Unable to get ID from host ({})", host);
+            }
+        }
+        throw new SnowizardClientException(
+                "Unable to generate batch of IDs from Snowizard");
+    }
+
+    /**
+     * Subscribe to a continuous stream of IDs. A background thread keeps a
+     * local queue of up to {@code capacity} IDs filled from the HTTP hosts in
+     * turn, and stops reading, which also stops the server, while the queue
+     * is full. Close the subscription before closing this client.
+     * 
+     * @param frameSize
+     *            Number of IDs the server writes at a time
+     * @param capacity
+     *            Most IDs held in the local queue, at least one frame
+     * @return running subscription
+     */
+    public IdSubscription subscribe(final int frameSize, final int capacity) {
+        return new IdSubscription(client, Iterables.filter(hosts,
+                Predicates.not(UNIX_HOST)), frameSize, capacity).start();
+    }
+
+    /**
+     * Open a multiplexed connection to the binary protocol listener of the
+     * first reachable host, which keeps any number of requests in flight on
+     * a single socket. Close the connection when done with it.
+     * 
+     * @param port
+     *            Port of the binary protocol listener on every TCP host
+     * @return open connection
+     * @throws SnowizardClientException
+     *             when unable to connect to any host
+     */
+    public SnowizardConnection connect(final int port)
+            throws SnowizardClientException {
+        for (final String host : hosts) {
+            if (isUnixHost(host)) {
+                try {
+                    return SnowizardConnection.open(unixPath(host));
+                } catch (final IOException ex) {
+                    LOGGER.warn("Unable to connect to host ({})", host);
+                }
+                continue;
+            }
+            final String hostname = HostAndPort.fromString(host).getHostText();
+            try {
+                return SnowizardConnection.open(hostname, port);
+            } catch (final IOException ex) {
+                LOGGER.warn("Unable to connect to host ({}:{})", hostname, port);
+            }
+        }
+        throw new SnowizardClientException(
+                "Unable to connect to Snowizard");
+    }
+
+    /**
+     * Return the shared connection to a Unix domain socket host, replacing
+     * it once it has been closed
+     * 
+     * @param host
+     *            {@code unix:<path>} host
+     * @return open connection
+     * @throws IOException
+     *             when unable to connect
+     */
+    private SnowizardConnection getUnixConnection(final String host)
+            throws IOException {
+        final SnowizardConnection current = connections.get(host);
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        final SnowizardConnection connection = SnowizardConnection
+                .open(unixPath(host));
+        final boolean replaced = current == null ? connections.putIfAbsent(
+                host, connection) == null : connections.replace(host,
+                current, connection);
+        if (!replaced) {
+            // another thread connected first
+            connection.close();
+            return getUnixConnection(host);
+        }
+        return connection;
+    }
+
+    private static boolean isUnixHost(final String host) {
+        return host.startsWith(UNIX_PREFIX);
+    }
+
+    private static File unixPath(final String host) {
+        return new File(host.substring(UNIX_PREFIX.length()));
+    }
+
     /**
      * Get the user-agent for the client
      * 
@@ -222,10 +446,14 @@ public class SnowizardClient implements Closeable {
 
     /**
      * Closes the underlying connection pool used by the internal
-     * {@link CloseableHttpClient}.
+     * {@link CloseableHttpClient}, and any Unix domain socket connections.
      */
     @Override
     public void close() {
+        for (final SnowizardConnection connection : connections.values()) {
+            connection.close();
+        }
+        connections.clear();
         if (client != null) {
             try {
                 client.close();
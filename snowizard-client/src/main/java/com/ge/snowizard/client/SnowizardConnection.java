@@ -0,0 +1,432 @@
+package com.ge.snowizard.client;
+
+import static com.ge.snowizard.api.BinaryProtocol.HEADER_BYTES;
+import static com.ge.snowizard.api.BinaryProtocol.MAX_MESSAGE_BYTES;
+import static com.ge.snowizard.api.BinaryProtocol.OK;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.ge.snowizard.api.BinaryProtocol;
+import com.ge.snowizard.client.exceptions.SnowizardClientException;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Single socket to Snowizard's {@link BinaryProtocol} listener, over TCP or a
+ * Unix domain socket, shared by any number of threads. Each request is
+ * written as soon as it is submitted, and a background thread completes the
+ * matching future as its response arrives, so many requests can be in flight
+ * at once without a connection per request.
+ */
+public class SnowizardConnection implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(SnowizardConnection.class);
+    private static final int CONNECTION_TIMEOUT_MS = 500;
+    private static final int TIMEOUT_MS = 500;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Closeable socket;
+    private final DataOutputStream output;
+    private final DataInputStream input;
+    private final byte[] agent;
+    private final Map<Integer, Request> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final Thread reader;
+    private volatile boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param socket
+     *            Connected socket
+     * @param input
+     *            Stream of the bytes received on the socket
+     * @param output
+     *            Stream of the bytes sent on the socket
+     * @param agent
+     *            User agent sent with every request
+     */
+    SnowizardConnection(final Closeable socket, final InputStream input,
+            final OutputStream output, final String agent) {
+        this.socket = checkNotNull(socket);
+        this.agent = agent.getBytes(StandardCharsets.UTF_8);
+        checkArgument(this.agent.length <= BinaryProtocol.MAX_AGENT_BYTES,
+                "user agent is too long");
+        this.output = new DataOutputStream(new BufferedOutputStream(output,
+                BUFFER_SIZE));
+        this.input = new DataInputStream(new BufferedInputStream(input,
+                BUFFER_SIZE));
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }, "snowizard-connection");
+        reader.setDaemon(true);
+    }
+
+    /**
+     * Connect to a binary protocol listener
+     *
+     * @param host
+     *            Host to connect to
+     * @param port
+     *            Port of the binary protocol listener
+     * @return open connection
+     * @throws IOException
+     *             When unable to connect
+     */
+    public static SnowizardConnection open(final String host, final int port)
+            throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port),
+                    CONNECTION_TIMEOUT_MS);
+            final SnowizardConnection connection = new SnowizardConnection(
+                    socket, socket.getInputStream(), socket.getOutputStream(),
+                    SnowizardClient.getUserAgent());
+            connection.reader.start();
+            return connection;
+        } catch (final IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Connect to a binary protocol listener on a Unix domain socket
+     *
+     * @param path
+     *            Path of the socket file
+     * @return open connection
+     * @throws IOException
+     *             When unable to connect
+     */
+    public static SnowizardConnection open(final File path)
+            throws IOException {
+        final UnixSocketChannel channel = UnixSocketChannel
+                .open(new UnixSocketAddress(path));
+        final SnowizardConnection connection = new SnowizardConnection(
+                channel, new ChannelInputStream(channel),
+                new ChannelOutputStream(channel),
+                SnowizardClient.getUserAgent());
+        connection.reader.start();
+        return connection;
+    }
+
+    /**
+     * Send a request for IDs without waiting for the response
+     *
+     * @param count
+     *            Number of IDs to generate
+     * @return future completed with the generated IDs, or failed with a
+     *         {@link SnowizardClientException}
+     */
+    public ListenableFuture<long[]> submit(final int count) {
+        final SettableFuture<long[]> future = SettableFuture.create();
+        final int requestId = requestIds.incrementAndGet();
+        final Request request = new Request(future, count);
+        pending.put(requestId, request);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isCancelled()) {
+                    pending.remove(requestId, request);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        try {
+            synchronized (output) {
+                if (closed) {
+                    throw new IOException("Connection closed");
+                }
+                output.writeInt(HEADER_BYTES + agent.length);
+                output.writeInt(requestId);
+                output.writeInt(count);
+                output.write(agent);
+                output.flush();
+            }
+        } catch (final IOException e) {
+            pending.remove(requestId);
+            future.setException(new SnowizardClientException(
+                    "Unable to send request to Snowizard", e));
+            close();
+        }
+        return future;
+    }
+
+    /**
+     * Get multiple IDs from Snowizard. A request that times out is
+     * cancelled, and its response is skipped if it still arrives.
+     *
+     * @param count
+     *            Number of IDs to return
+     * @return generated IDs
+     * @throws SnowizardClientException
+     *             when the request fails or times out
+     */
+    public long[] getIds(final int count) throws SnowizardClientException {
+        final ListenableFuture<long[]> future = submit(count);
+        try {
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof SnowizardClientException) {
+                throw (SnowizardClientException) e.getCause();
+            }
+            throw new SnowizardClientException(e.getCause());
+        } catch (final TimeoutException e) {
+            future.cancel(false);
+            throw new SnowizardClientException(
+                    "Timed out waiting for Snowizard", e);
+        } catch (final InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new SnowizardClientException(e);
+        }
+    }
+
+    /**
+     * Get a new ID from Snowizard
+     *
+     * @return generated ID
+     * @throws SnowizardClientException
+     *             when the request fails or times out
+     */
+    public long getId() throws SnowizardClientException {
+        return getIds(1)[0];
+    }
+
+    /**
+     * Return whether the connection can still send requests
+     *
+     * @return whether the connection is open
+     */
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Return the number of requests waiting for a response
+     *
+     * @return requests in flight
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Read responses until the connection closes or a frame doesn't match
+     * its request, then fail the requests still waiting. Responses to
+     * cancelled requests are skipped.
+     */
+    private void read() {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final LongBuffer longs = ByteBuffer.wrap(buffer).asLongBuffer();
+        Throwable cause = null;
+        try {
+            while (true) {
+                final int length = input.readInt();
+                if (length < HEADER_BYTES) {
+                    throw new IOException(String.format(
+                            "Invalid frame length %d", length));
+                }
+                final int requestId = input.readInt();
+                final int status = input.readInt();
+                final int bytes = length - HEADER_BYTES;
+                final Request request = pending.get(requestId);
+                if (request == null) {
+                    skip(requestId, bytes);
+                    continue;
+                }
+                if (status != OK) {
+                    if (bytes > MAX_MESSAGE_BYTES) {
+                        throw new IOException(String.format(
+                                "Error message of %d bytes is too long",
+                                bytes));
+                    }
+                    final byte[] message = new byte[bytes];
+                    input.readFully(message);
+                    pending.remove(requestId, request);
+                    request.future.setException(new SnowizardClientException(
+                            String.format("Snowizard returned %d: %s", status,
+                                    new String(message,
+                                            StandardCharsets.UTF_8))));
+                    continue;
+                }
+                if (bytes != (long) request.count * Longs.BYTES) {
+                    throw new IOException(String.format(
+                            "Response of %d bytes to a request for %d IDs",
+                            bytes, request.count));
+                }
+                final long[] ids = new long[request.count];
+                int decoded = 0;
+                while (decoded < ids.length) {
+                    final int chunk = Math.min(ids.length - decoded,
+                            buffer.length / Longs.BYTES);
+                    input.readFully(buffer, 0, chunk * Longs.BYTES);
+                    longs.clear();
+                    longs.get(ids, decoded, chunk);
+                    decoded += chunk;
+                }
+                pending.remove(requestId, request);
+                request.future.set(ids);
+            }
+        } catch (final IOException e) {
+            if (!closed) {
+                LOGGER.warn("Lost connection to Snowizard", e);
+            }
+            cause = e;
+        } finally {
+            closed = true;
+            closeQuietly();
+            for (final Integer requestId : pending.keySet()) {
+                final Request request = pending.remove(requestId);
+                if (request != null) {
+                    request.future.setException(new SnowizardClientException(
+                            "Connection to Snowizard closed", cause));
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip the payload of a response nobody waits for any more
+     *
+     * @param requestId
+     *            ID of the request
+     * @param bytes
+     *            Size of the payload
+     * @throws IOException
+     *             When reading fails
+     */
+    private void skip(final int requestId, final int bytes)
+            throws IOException {
+        LOGGER.debug("Skipping response to cancelled request {}", requestId);
+        int remaining = bytes;
+        while (remaining > 0) {
+            final int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Close the socket, failing any requests still waiting for a response
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            socket.close();
+        } catch (final IOException e) {
+            LOGGER.debug("Unable to close connection", e);
+        }
+    }
+
+    /**
+     * Input stream reading a blocking channel directly. Unlike
+     * {@link java.nio.channels.Channels#newInputStream}, it doesn't hold the
+     * channel's blocking lock while waiting, which would keep other threads
+     * from writing requests.
+     */
+    private static final class ChannelInputStream extends InputStream {
+
+        private final ByteChannel channel;
+
+        ChannelInputStream(final ByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+                throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            return channel.read(ByteBuffer.wrap(b, off, len));
+        }
+    }
+
+    /**
+     * Output stream writing to a blocking channel directly, for the same
+     * reason as {@link ChannelInputStream}
+     */
+    private static final class ChannelOutputStream extends OutputStream {
+
+        private final ByteChannel channel;
+
+        ChannelOutputStream(final ByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+                throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Request waiting for its response
+     */
+    private static final class Request {
+
+        private final SettableFuture<long[]> future;
+        private final int count;
+
+        Request(final SettableFuture<long[]> future, final int count) {
+            this.future = future;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.ge.snowizard.core;
+
+/**
+ * {@link WaitStrategy} which reads the clock in a tight loop. It reacts to
+ * the new millisecond the soonest, but keeps a core busy while it waits.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    @Override
+    public long waitUntilAfter(final long lastTimestamp, final TimeSource clock) {
+        long timestamp = clock.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            timestamp = clock.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
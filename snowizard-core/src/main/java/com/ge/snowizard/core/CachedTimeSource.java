@@ -0,0 +1,82 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Low-overhead {@link TimeSource} returning a millisecond value which a
+ * background ticker thread refreshes from {@link System#currentTimeMillis()}.
+ * Reading the time is a single volatile read instead of a call into the
+ * operating system, at the cost of lagging the real clock by up to one tick.
+ */
+public class CachedTimeSource implements TimeSource, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(CachedTimeSource.class);
+    private static final long DEFAULT_TICK_MICROS = 250L;
+
+    private final long tickNanos;
+    private final Thread ticker;
+    private volatile long now;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor, refreshing the time every 250 microseconds
+     */
+    public CachedTimeSource() {
+        this(DEFAULT_TICK_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param tick
+     *            How often to refresh the cached time
+     * @param unit
+     *            Unit of the tick
+     */
+    public CachedTimeSource(final long tick, final TimeUnit unit) {
+        checkNotNull(unit);
+        checkArgument(tick > 0, "tick must be positive");
+
+        this.tickNanos = unit.toNanos(tick);
+        this.now = System.currentTimeMillis();
+        this.ticker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    now = System.currentTimeMillis();
+                    LockSupport.parkNanos(tickNanos);
+                }
+            }
+        }, "snowizard-clock-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+
+        LOGGER.info("cached clock started. tick {} ns", tickNanos);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    /**
+     * Stop the ticker thread. The cached time no longer moves afterwards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) + 1000L);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists an upper bound on the timestamps a worker has issued IDs for, so a
+ * restarted worker doesn't reissue IDs after the clock has gone backwards.
+ * Rather than recording every timestamp, a window of time is reserved ahead
+ * and written to a small memory-mapped file once the window runs out. The
+ * write only touches the page cache; the file is forced to disk on
+ * {@link #close()}.
+ */
+public class HighWaterMark implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(HighWaterMark.class);
+    private static final int SIZE = 8;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final long reservationMillis;
+    private final long recorded;
+    private volatile long reservedUntil;
+
+    /**
+     * Constructor
+     * 
+     * @param file
+     *            File holding the mark, created if missing
+     * @param reservation
+     *            How far ahead of the current timestamp to reserve
+     * @param unit
+     *            Unit of the reservation
+     * @throws IOException
+     *             When the file can't be mapped
+     */
+    public HighWaterMark(final File file, final long reservation,
+            final TimeUnit unit) throws IOException {
+        checkNotNull(unit);
+        checkArgument(reservation > 0, "reservation must be positive");
+        this.file = checkNotNull(file);
+        this.reservationMillis = unit.toMillis(reservation);
+
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            final long length = raf.length();
+            checkArgument(length == 0 || length == SIZE,
+                    "%s is not a high-water mark file", file);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    SIZE);
+        } catch (final IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+        recorded = buffer.getLong(0);
+        reservedUntil = recorded;
+
+        LOGGER.info("high-water mark {} loaded from {}", recorded, file);
+    }
+
+    /**
+     * Return the mark found in the file when it was opened, zero for a new
+     * file. No ID was issued for this timestamp or later.
+     * 
+     * @return recorded mark in milliseconds
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Return the end of the current reservation
+     * 
+     * @return reserved timestamp in milliseconds
+     */
+    public long getReservedUntil() {
+        return reservedUntil;
+    }
+
+    /**
+     * Make sure a timestamp is covered by the persisted reservation,
+     * extending it when it ran out
+     * 
+     * @param timestamp
+     *            Timestamp about to be issued, in milliseconds
+     */
+    public void reserve(final long timestamp) {
+        if (timestamp < reservedUntil) {
+            return;
+        }
+        synchronized (this) {
+            if (timestamp >= reservedUntil) {
+                final long until = timestamp + reservationMillis;
+                buffer.putLong(0, until);
+                reservedUntil = until;
+                LOGGER.debug("reserved timestamps until {}", until);
+            }
+        }
+    }
+
+    /**
+     * Force the mark to disk and release the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            buffer.force();
+        } finally {
+            raf.close();
+        }
+        LOGGER.info("high-water mark {} saved to {}", reservedUntil, file);
+    }
+}
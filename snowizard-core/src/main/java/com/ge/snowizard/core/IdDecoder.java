@@ -0,0 +1,178 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * Splits generated IDs back into their timestamp, datacenter ID, worker ID
+ * and sequence, according to an {@link IdLayout}. Batches are decoded into
+ * primitive columns, without allocating per ID.
+ */
+public class IdDecoder {
+
+    private final long epoch;
+    private final long timestampUnit;
+    private final int timestampShift;
+    private final int datacenterIdShift;
+    private final int workerIdShift;
+    private final long maxDatacenterId;
+    private final long maxWorkerId;
+    private final long sequenceMask;
+
+    /**
+     * Constructor, decoding IDs in the {@link IdLayout#DEFAULT} layout
+     */
+    public IdDecoder() {
+        this(IdLayout.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param layout
+     *            Layout of the IDs to decode
+     */
+    public IdDecoder(final IdLayout layout) {
+        checkNotNull(layout);
+        this.epoch = layout.getEpoch();
+        this.timestampUnit = layout.getTimestampUnit();
+        this.timestampShift = layout.getTimestampShift();
+        this.datacenterIdShift = layout.getDatacenterIdShift();
+        this.workerIdShift = layout.getWorkerIdShift();
+        this.maxDatacenterId = layout.getMaxDatacenterId();
+        this.maxWorkerId = layout.getMaxWorkerId();
+        this.sequenceMask = layout.getSequenceMask();
+    }
+
+    /**
+     * Return when an ID was generated
+     * 
+     * @param id
+     *            Generated ID
+     * @return Timestamp in milliseconds since the Unix epoch
+     */
+    public long getTimestamp(final long id) {
+        return (id >>> timestampShift) * timestampUnit + epoch;
+    }
+
+    /**
+     * Return the datacenter an ID was generated in
+     * 
+     * @param id
+     *            Generated ID
+     * @return Datacenter ID
+     */
+    public int getDatacenterId(final long id) {
+        return (int) ((id >>> datacenterIdShift) & maxDatacenterId);
+    }
+
+    /**
+     * Return the worker an ID was generated by
+     * 
+     * @param id
+     *            Generated ID
+     * @return Worker ID
+     */
+    public int getWorkerId(final long id) {
+        return (int) ((id >>> workerIdShift) & maxWorkerId);
+    }
+
+    /**
+     * Return the sequence number of an ID
+     * 
+     * @param id
+     *            Generated ID
+     * @return Sequence number
+     */
+    public int getSequence(final long id) {
+        return (int) (id & sequenceMask);
+    }
+
+    /**
+     * Decode a range of IDs into columns. Element {@code i} of each column
+     * receives the component of {@code ids[offset + i]}.
+     * 
+     * @param ids
+     *            Generated IDs
+     * @param offset
+     *            Index of the first ID to decode
+     * @param length
+     *            Number of IDs to decode
+     * @param timestamps
+     *            Receives the timestamps in milliseconds since the Unix epoch
+     * @param datacenterIds
+     *            Receives the datacenter IDs
+     * @param workerIds
+     *            Receives the worker IDs
+     * @param sequences
+     *            Receives the sequence numbers
+     */
+    public void decode(final long[] ids, final int offset, final int length,
+            final long[] timestamps, final int[] datacenterIds,
+            final int[] workerIds, final int[] sequences) {
+        checkPositionIndexes(offset, offset + length, ids.length);
+        checkPositionIndexes(0, length, timestamps.length);
+        checkPositionIndexes(0, length, datacenterIds.length);
+        checkPositionIndexes(0, length, workerIds.length);
+        checkPositionIndexes(0, length, sequences.length);
+
+        for (int i = 0; i < length; i++) {
+            final long id = ids[offset + i];
+            timestamps[i] = (id >>> timestampShift) * timestampUnit + epoch;
+            datacenterIds[i] = (int) ((id >>> datacenterIdShift) & maxDatacenterId);
+            workerIds[i] = (int) ((id >>> workerIdShift) & maxWorkerId);
+            sequences[i] = (int) (id & sequenceMask);
+        }
+    }
+
+    /**
+     * Decode IDs into newly allocated columns
+     * 
+     * @param ids
+     *            Generated IDs
+     * @return Decoded columns
+     */
+    public Columns decode(final long[] ids) {
+        final Columns columns = new Columns(ids.length);
+        decode(ids, 0, ids.length, columns.timestamps, columns.datacenterIds,
+                columns.workerIds, columns.sequences);
+        return columns;
+    }
+
+    /**
+     * Components of a batch of decoded IDs, one array per component
+     */
+    public static final class Columns {
+        private final long[] timestamps;
+        private final int[] datacenterIds;
+        private final int[] workerIds;
+        private final int[] sequences;
+
+        private Columns(final int size) {
+            this.timestamps = new long[size];
+            this.datacenterIds = new int[size];
+            this.workerIds = new int[size];
+            this.sequences = new int[size];
+        }
+
+        public int size() {
+            return timestamps.length;
+        }
+
+        public long[] getTimestamps() {
+            return timestamps;
+        }
+
+        public int[] getDatacenterIds() {
+            return datacenterIds;
+        }
+
+        public int[] getWorkerIds() {
+            return workerIds;
+        }
+
+        public int[] getSequences() {
+            return sequences;
+        }
+    }
+}
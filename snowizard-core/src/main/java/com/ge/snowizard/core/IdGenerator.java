@@ -0,0 +1,95 @@
+package com.ge.snowizard.core;
+
+import java.nio.LongBuffer;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+
+/**
+ * Source of IDs on behalf of a user-agent
+ */
+public interface IdGenerator {
+
+    /**
+     * Get the next ID for a given user-agent
+     * 
+     * @param agent
+     *            User Agent
+     * @return Generated ID
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    long getId(String agent) throws InvalidUserAgentError, InvalidSystemClock;
+
+    /**
+     * Get a batch of IDs for a given user-agent
+     * 
+     * @param agent
+     *            User Agent
+     * @param count
+     *            Number of IDs to generate
+     * @return Generated IDs
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    long[] getIds(String agent, int count) throws InvalidUserAgentError,
+            InvalidSystemClock;
+
+    /**
+     * Fill a range of an array with IDs for a given user-agent
+     * 
+     * @param agent
+     *            User Agent
+     * @param ids
+     *            Array to fill
+     * @param offset
+     *            First index to fill
+     * @param length
+     *            Number of IDs to generate
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    void getIds(String agent, long[] ids, int offset, int length)
+            throws InvalidUserAgentError, InvalidSystemClock;
+
+    /**
+     * Fill the remaining space of a buffer with IDs for a given user-agent
+     * 
+     * @param agent
+     *            User Agent
+     * @param buffer
+     *            Buffer to fill
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    void getIds(String agent, LongBuffer buffer) throws InvalidUserAgentError,
+            InvalidSystemClock;
+
+    /**
+     * Return the worker ID
+     * 
+     * @return Worker ID
+     */
+    int getWorkerId();
+
+    /**
+     * Return the data center ID
+     * 
+     * @return Datacenter ID
+     */
+    int getDatacenterId();
+
+    /**
+     * Return the current system time in milliseconds.
+     * 
+     * @return Current system time in milliseconds
+     */
+    long getTimestamp();
+}
@@ -0,0 +1,273 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.util.concurrent.TimeUnit;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Bit layout of a generated ID: the epoch and unit of the timestamp, and how
+ * many bits go to the datacenter ID, the worker ID and the sequence. From
+ * the most significant bit down, an ID is a sign bit, the timestamp, the
+ * datacenter ID, the worker ID and the sequence. Shifts and masks are
+ * computed once, when the layout is built. A layout is only built if its
+ * epoch has passed and its timestamp bits last at least another
+ * {@value #MIN_HEADROOM_YEARS} years, so IDs can't overflow into the sign bit
+ * or wrap around while the service runs.
+ */
+public final class IdLayout {
+
+    /**
+     * The original Snowflake layout: 1 ms timestamps since
+     * {@link IdWorker#TWEPOCH}, 5 datacenter ID bits, 5 worker ID bits and 12
+     * sequence bits
+     */
+    public static final IdLayout DEFAULT = builder().build();
+
+    private static final int MIN_HEADROOM_YEARS = 10;
+    private static final long MIN_HEADROOM_MS = TimeUnit.DAYS
+            .toMillis(365L * MIN_HEADROOM_YEARS);
+
+    private final long epoch;
+    private final long timestampUnit;
+    private final int datacenterIdBits;
+    private final int workerIdBits;
+    private final int sequenceBits;
+
+    private final int workerIdShift;
+    private final int datacenterIdShift;
+    private final int timestampShift;
+    private final long maxWorkerId;
+    private final long maxDatacenterId;
+    private final long sequenceMask;
+    private final long maxTimestamp;
+
+    /**
+     * Constructor
+     * 
+     * @param builder
+     *            Layout settings
+     */
+    private IdLayout(final Builder builder) {
+        checkArgument(builder.epoch >= 0, "epoch can't be negative");
+        final long now = System.currentTimeMillis();
+        checkArgument(builder.epoch <= now, "epoch can't be in the future");
+        checkArgument(builder.timestampUnit == 1L
+                || builder.timestampUnit == 10L,
+                "timestamp unit must be 1 or 10 ms");
+        checkArgument(builder.datacenterIdBits >= 0,
+                "datacenter Id bits can't be negative");
+        checkArgument(builder.workerIdBits >= 0,
+                "worker Id bits can't be negative");
+        checkArgument(builder.sequenceBits > 0,
+                "at least one sequence bit is required");
+        final int timestampBits = 63 - builder.datacenterIdBits
+                - builder.workerIdBits - builder.sequenceBits;
+        checkArgument(timestampBits > 0,
+                "at least one bit must be left for the timestamp");
+        final long maxUnits = (1L << timestampBits) - 1;
+        this.maxTimestamp = maxUnits > (Long.MAX_VALUE - builder.epoch)
+                / builder.timestampUnit ? Long.MAX_VALUE : builder.epoch
+                + maxUnits * builder.timestampUnit;
+        checkArgument(maxTimestamp - now >= MIN_HEADROOM_MS,
+                "%s timestamp bits run out in less than %s years",
+                timestampBits, MIN_HEADROOM_YEARS);
+
+        this.epoch = builder.epoch;
+        this.timestampUnit = builder.timestampUnit;
+        this.datacenterIdBits = builder.datacenterIdBits;
+        this.workerIdBits = builder.workerIdBits;
+        this.sequenceBits = builder.sequenceBits;
+
+        this.workerIdShift = sequenceBits;
+        this.datacenterIdShift = sequenceBits + workerIdBits;
+        this.timestampShift = sequenceBits + workerIdBits + datacenterIdBits;
+        this.maxWorkerId = -1L ^ (-1L << workerIdBits);
+        this.maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+        this.sequenceMask = -1L ^ (-1L << sequenceBits);
+    }
+
+    /**
+     * Start building a layout, initialized to {@link #DEFAULT}
+     * 
+     * @return Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Return the length of one timestamp unit
+     * 
+     * @return unit in milliseconds
+     */
+    public long getTimestampUnit() {
+        return timestampUnit;
+    }
+
+    public int getDatacenterIdBits() {
+        return datacenterIdBits;
+    }
+
+    public int getWorkerIdBits() {
+        return workerIdBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    public int getWorkerIdShift() {
+        return workerIdShift;
+    }
+
+    public int getDatacenterIdShift() {
+        return datacenterIdShift;
+    }
+
+    public int getTimestampShift() {
+        return timestampShift;
+    }
+
+    public long getMaxWorkerId() {
+        return maxWorkerId;
+    }
+
+    public long getMaxDatacenterId() {
+        return maxDatacenterId;
+    }
+
+    public long getSequenceMask() {
+        return sequenceMask;
+    }
+
+    /**
+     * Return the last time that fits in the timestamp bits
+     * 
+     * @return Time in milliseconds
+     */
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Round a time down to the start of its timestamp unit
+     * 
+     * @param millis
+     *            Time in milliseconds
+     * @return Start of the unit in milliseconds
+     */
+    public long truncate(final long millis) {
+        return millis - (millis - epoch) % timestampUnit;
+    }
+
+    /**
+     * Return the timestamp bits of an ID generated at the given time
+     * 
+     * @param millis
+     *            Time in milliseconds, truncated to the timestamp unit
+     * @return Shifted timestamp
+     */
+    public long timestampBits(final long millis) {
+        return ((millis - epoch) / timestampUnit) << timestampShift;
+    }
+
+    /**
+     * Return the datacenter and worker ID bits of a worker's IDs
+     * 
+     * @param datacenterId
+     *            Datacenter ID
+     * @param workerId
+     *            Worker ID
+     * @return Shifted datacenter and worker IDs
+     */
+    public long nodeBits(final long datacenterId, final long workerId) {
+        return (datacenterId << datacenterIdShift)
+                | (workerId << workerIdShift);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("epoch", epoch)
+                .add("timestampUnit", timestampUnit)
+                .add("datacenterIdBits", datacenterIdBits)
+                .add("workerIdBits", workerIdBits)
+                .add("sequenceBits", sequenceBits).toString();
+    }
+
+    /**
+     * Builder for {@link IdLayout}
+     */
+    public static class Builder {
+        private long epoch = IdWorker.TWEPOCH;
+        private long timestampUnit = 1L;
+        private int datacenterIdBits = 5;
+        private int workerIdBits = 5;
+        private int sequenceBits = 12;
+
+        /**
+         * @param epoch
+         *            Time, in milliseconds since the Unix epoch, that
+         *            timestamps count from. Can't be in the future.
+         * @return this builder
+         */
+        public Builder epoch(final long epoch) {
+            this.epoch = epoch;
+            return this;
+        }
+
+        /**
+         * @param timestampUnit
+         *            Length of one timestamp unit in milliseconds, 1 or 10
+         * @return this builder
+         */
+        public Builder timestampUnit(final long timestampUnit) {
+            this.timestampUnit = timestampUnit;
+            return this;
+        }
+
+        /**
+         * @param datacenterIdBits
+         *            Number of bits for the datacenter ID
+         * @return this builder
+         */
+        public Builder datacenterIdBits(final int datacenterIdBits) {
+            this.datacenterIdBits = datacenterIdBits;
+            return this;
+        }
+
+        /**
+         * @param workerIdBits
+         *            Number of bits for the worker ID
+         * @return this builder
+         */
+        public Builder workerIdBits(final int workerIdBits) {
+            this.workerIdBits = workerIdBits;
+            return this;
+        }
+
+        /**
+         * @param sequenceBits
+         *            Number of bits for the sequence
+         * @return this builder
+         */
+        public Builder sequenceBits(final int sequenceBits) {
+            this.sequenceBits = sequenceBits;
+            return this;
+        }
+
+        /**
+         * Build the layout
+         * 
+         * @return new layout
+         * @throws IllegalArgumentException
+         *             When the layout is invalid
+         */
+        public IdLayout build() {
+            return new IdLayout(this);
+        }
+    }
+}
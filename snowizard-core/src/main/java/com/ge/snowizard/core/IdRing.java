@@ -0,0 +1,100 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring of IDs with a single producer and any number of
+ * consumers. The producer publishes by advancing the tail; consumers claim
+ * the slot at the head with compare-and-set. A claimed slot can't have been
+ * overwritten in between, because the producer only reuses a slot once the
+ * head has moved past it.
+ */
+final class IdRing {
+
+    /**
+     * Returned when the ring is empty. Generated IDs are never negative.
+     */
+    static final long EMPTY = -1L;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Constructor
+     * 
+     * @param capacity
+     *            Number of slots, a power of two
+     */
+    IdRing(final int capacity) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+                "capacity must be a power of two");
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * Return the number of IDs waiting to be taken
+     * 
+     * @return fill level
+     */
+    int size() {
+        final long h = head.get();
+        return (int) Math.max(0L, tail.get() - h);
+    }
+
+    /**
+     * Add an ID. Must only be called by the producer thread.
+     * 
+     * @param id
+     *            ID to add
+     * @return false if the ring is full
+     */
+    boolean offer(final long id) {
+        final long t = tail.get();
+        if (t - head.get() >= slots.length()) {
+            return false;
+        }
+        slots.lazySet((int) (t & mask), id);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Return the oldest ID without taking it
+     * 
+     * @return oldest ID, or {@link #EMPTY}
+     */
+    long peek() {
+        final long h = head.get();
+        if (h >= tail.get()) {
+            return EMPTY;
+        }
+        return slots.get((int) (h & mask));
+    }
+
+    /**
+     * Take the oldest ID
+     * 
+     * @return oldest ID, or {@link #EMPTY}
+     */
+    long poll() {
+        while (true) {
+            final long h = head.get();
+            if (h >= tail.get()) {
+                return EMPTY;
+            }
+            final long id = slots.get((int) (h & mask));
+            if (head.compareAndSet(h, h + 1)) {
+                return id;
+            }
+        }
+    }
+}
@@ -17,50 +17,63 @@ package com.ge.snowizard.core;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkArgument;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.mpierce.metrics.reservoir.hdrhistogram.HdrHistogramResetOnSnapshotReservoir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.MetricRegistry;
 import com.ge.snowizard.exceptions.InvalidSystemClock;
 import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
 
-public class IdWorker {
+public class IdWorker implements IdGenerator {
 
     private static final Logger LOGGER = LoggerFactory
             .getLogger(IdWorker.class);
-    private static final Pattern AGENT_PATTERN = Pattern
-            .compile("([a-zA-Z][a-zA-Z0-9\\-]*)");
 
     public static final long TWEPOCH = 1288834974657L;
 
-    private static final long WORKER_ID_BITS = 5L;
-    private static final long DATACENTER_ID_BITS = 5L;
-    private static final long MAX_WORKER_ID = -1L ^ (-1L << WORKER_ID_BITS);
-    private static final long MAX_DATACENTER_ID = -1L
-            ^ (-1L << DATACENTER_ID_BITS);
-    private static final long SEQUENCE_BITS = 12L;
-
-    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
-    private static final long DATACENTER_ID_SHIFT = SEQUENCE_BITS
-            + WORKER_ID_BITS;
-    private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS
-            + WORKER_ID_BITS + DATACENTER_ID_BITS;
-    private static final long SEQUENCE_MASK = -1L ^ (-1L << SEQUENCE_BITS);
-
     private final MetricRegistry registry;
     private final Counter idsCounter;
     private final Counter exceptionsCounter;
-    private final Map<String, Counter> agentCounters = new ConcurrentHashMap<String, Counter>();
+    private final TopAgentTracker topAgents;
     private final int workerId;
     private final int datacenterId;
     private final boolean validateUserAgent;
+    private final UserAgentValidator agentValidator;
+    private final TimeSource timeSource;
+    private final long maxRollbackWaitMillis;
+    private final Counter rollbacksAbsorbedCounter;
+    private final Histogram rollbackSkew;
+    private final WaitStrategy waitStrategy;
+    private final Timer exhaustionWaits;
+    private final Timer lockWaits;
+    private final Histogram sequenceUtilization;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimeSource clock = new TimeSource() {
+        @Override
+        public long currentTimeMillis() {
+            return tickGen();
+        }
+    };
+    private final IdLayout layout;
+    private final long sequenceMask;
+    private final long nodeBits;
+    private final HighWaterMark highWaterMark;
+    private final WorkerIdLease[] leases;
+    private final long startTimestamp;
 
-    private final AtomicLong lastTimestamp = new AtomicLong(-1L);
+    private final AtomicLong lastTimestamp;
     private final AtomicLong sequence;
 
     /**
@@ -124,6 +137,22 @@ public class IdWorker {
                 new MetricRegistry());
     }
 
+    /**
+     * Constructor
+     * 
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param timeSource
+     *            Source of the current time
+     */
+    public IdWorker(final int workerId, final int datacenterId,
+            final TimeSource timeSource) {
+        this(workerId, datacenterId, 0L, true, new MetricRegistry(),
+                timeSource);
+    }
+
     /**
      * Constructor
      * 
@@ -141,34 +170,91 @@ public class IdWorker {
     public IdWorker(final int workerId, final int datacenterId,
             final long startSequence, final boolean validateUserAgent,
             final MetricRegistry registry) {
+        this(workerId, datacenterId, startSequence, validateUserAgent,
+                registry, new SystemTimeSource());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param startSequence
+     *            Starting sequence number
+     * @param validateUserAgent
+     *            Whether to validate the User-Agent headers or not
+     * @param registry
+     *            Metric Registry
+     * @param timeSource
+     *            Source of the current time
+     */
+    public IdWorker(final int workerId, final int datacenterId,
+            final long startSequence, final boolean validateUserAgent,
+            final MetricRegistry registry, final TimeSource timeSource) {
+        this(builder(workerId, datacenterId).startSequence(startSequence)
+                .validateUserAgent(validateUserAgent).registry(registry)
+                .timeSource(timeSource));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param builder
+     *            Worker settings
+     */
+    protected IdWorker(final Builder builder) {
+        final int workerId = builder.workerId;
+        final int datacenterId = builder.datacenterId;
+        final long startSequence = builder.startSequence;
+
+        final IdLayout layout = checkNotNull(builder.layout);
 
         checkNotNull(workerId);
         checkArgument(workerId >= 0, String.format(
                 "worker Id can't be greater than %d or less than 0",
-                MAX_WORKER_ID));
-        checkArgument(workerId <= MAX_WORKER_ID, String.format(
+                layout.getMaxWorkerId()));
+        checkArgument(workerId <= layout.getMaxWorkerId(), String.format(
                 "worker Id can't be greater than %d or less than 0",
-                MAX_WORKER_ID));
+                layout.getMaxWorkerId()));
 
         checkNotNull(datacenterId);
         checkArgument(datacenterId >= 0, String.format(
                 "datacenter Id can't be greater than %d or less than 0",
-                MAX_DATACENTER_ID));
-        checkArgument(datacenterId <= MAX_DATACENTER_ID, String.format(
-                "datacenter Id can't be greater than %d or less than 0",
-                MAX_DATACENTER_ID));
+                layout.getMaxDatacenterId()));
+        checkArgument(datacenterId <= layout.getMaxDatacenterId(),
+                String.format(
+                        "datacenter Id can't be greater than %d or less than 0",
+                        layout.getMaxDatacenterId()));
 
         checkNotNull(startSequence);
 
+        checkArgument(builder.maxRollbackWaitMillis >= 0,
+                "max rollback wait can't be negative");
+
         this.workerId = workerId;
         this.datacenterId = datacenterId;
-        this.validateUserAgent = validateUserAgent;
-        this.registry = registry;
+        this.validateUserAgent = builder.validateUserAgent;
+        this.agentValidator = checkNotNull(builder.agentValidator);
+        this.registry = checkNotNull(builder.registry);
+        this.timeSource = checkNotNull(builder.timeSource);
+        this.maxRollbackWaitMillis = builder.maxRollbackWaitMillis;
+        this.waitStrategy = checkNotNull(builder.waitStrategy);
+        this.layout = layout;
+        this.sequenceMask = layout.getSequenceMask();
+        this.nodeBits = layout.nodeBits(datacenterId, workerId);
+        this.highWaterMark = builder.highWaterMark;
+        this.leases = builder.leases.toArray(new WorkerIdLease[0]);
+        this.startTimestamp = startTimestamp(layout, highWaterMark);
+        this.lastTimestamp = new AtomicLong(startTimestamp);
+        this.topAgents = builder.topAgents != null ? builder.topAgents
+                : topAgents(registry);
 
         LOGGER.info(
                 "worker starting. timestamp left shift {}, datacenter id bits {}, worker id bits {}, sequence bits {}, workerid {}",
-                TIMESTAMP_LEFT_SHIFT, DATACENTER_ID_BITS, WORKER_ID_BITS,
-                SEQUENCE_BITS, workerId);
+                layout.getTimestampShift(), layout.getDatacenterIdBits(),
+                layout.getWorkerIdBits(), layout.getSequenceBits(), workerId);
 
         sequence = new AtomicLong(startSequence);
 
@@ -176,6 +262,123 @@ public class IdWorker {
                 IdWorker.class, "exceptions"));
         idsCounter = registry.counter(MetricRegistry.name(IdWorker.class,
                 "ids_generated"));
+        rollbacksAbsorbedCounter = registry.counter(MetricRegistry.name(
+                IdWorker.class, "clock_rollbacks_absorbed"));
+        rollbackSkew = hdrHistogram(registry, MetricRegistry.name(
+                IdWorker.class, "clock_rollback_absorbed_ms"));
+        exhaustionWaits = hdrTimer(registry, MetricRegistry.name(
+                IdWorker.class, "sequence_exhaustion_waits"));
+        lockWaits = hdrTimer(registry, MetricRegistry.name(IdWorker.class,
+                "lock_waits"));
+        sequenceUtilization = hdrHistogram(registry, MetricRegistry.name(
+                IdWorker.class, "sequence_utilization_percent"));
+    }
+
+    /**
+     * Return the User-Agent tracker registered as {@code IdWorker.top_agents},
+     * registering one if there is none yet. Workers sharing a registry share
+     * the tracker. If the name is taken by merged trackers, the worker counts
+     * in a tracker of its own that isn't registered.
+     * 
+     * @param registry
+     *            Metric Registry
+     * @return registered tracker
+     */
+    private static TopAgentTracker topAgents(final MetricRegistry registry) {
+        final String name = MetricRegistry.name(IdWorker.class, "top_agents");
+        final TopAgentTracker tracker = new TopAgentTracker();
+        try {
+            registry.register(name, tracker);
+            return tracker;
+        } catch (IllegalArgumentException e) {
+            final TopAgentTracker registered = TopAgentTracker.registered(
+                    registry, name);
+            if (registered != null) {
+                return registered;
+            }
+            LOGGER.warn("{} is already registered, not publishing the "
+                    + "worker's User-Agent counts", name);
+            return tracker;
+        }
+    }
+
+    /**
+     * Return the histogram registered under a name, registering one backed
+     * by an {@link HdrHistogramResetOnSnapshotReservoir} if there is none
+     * yet, so each snapshot covers the values recorded since the previous
+     * one. Workers sharing a registry share the histogram.
+     * 
+     * @param registry
+     *            Metric Registry
+     * @param name
+     *            Metric name
+     * @return registered histogram
+     */
+    private static Histogram hdrHistogram(final MetricRegistry registry,
+            final String name) {
+        try {
+            return registry.register(name, new Histogram(
+                    new HdrHistogramResetOnSnapshotReservoir()));
+        } catch (IllegalArgumentException e) {
+            return registry.histogram(name);
+        }
+    }
+
+    /**
+     * Return the timer registered under a name, registering one backed by an
+     * {@link HdrHistogramResetOnSnapshotReservoir} if there is none yet.
+     * Workers sharing a registry share the timer.
+     * 
+     * @param registry
+     *            Metric Registry
+     * @param name
+     *            Metric name
+     * @return registered timer
+     */
+    private static Timer hdrTimer(final MetricRegistry registry,
+            final String name) {
+        try {
+            return registry.register(name, new Timer(
+                    new HdrHistogramResetOnSnapshotReservoir()));
+        } catch (IllegalArgumentException e) {
+            return registry.timer(name);
+        }
+    }
+
+    /**
+     * Return the timestamp a new worker starts from. With a high-water mark,
+     * that's the recorded mark rounded up to the layout's unit, so nothing
+     * is generated until the clock has passed it.
+     * 
+     * @param layout
+     *            Bit layout of the generated IDs
+     * @param highWaterMark
+     *            Persisted high-water mark, may be null
+     * @return starting timestamp, or -1
+     */
+    private static long startTimestamp(final IdLayout layout,
+            final HighWaterMark highWaterMark) {
+        if (highWaterMark == null || highWaterMark.getRecorded() <= 0) {
+            return -1L;
+        }
+        final long unit = layout.getTimestampUnit();
+        final long start = layout.truncate(highWaterMark.getRecorded()
+                + unit - 1);
+        LOGGER.info("not generating ids before high-water mark {}", start);
+        return start;
+    }
+
+    /**
+     * Start building a worker
+     * 
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @return Builder
+     */
+    public static Builder builder(final int workerId, final int datacenterId) {
+        return new Builder(workerId, datacenterId);
     }
 
     /**
@@ -189,12 +392,10 @@ public class IdWorker {
      * @throws InvalidSystemClock
      *             When the system clock is moving backward
      */
+    @Override
     public long getId(final String agent) throws InvalidUserAgentError,
             InvalidSystemClock {
-        if (!isValidUserAgent(agent)) {
-            exceptionsCounter.inc();
-            throw new InvalidUserAgentError();
-        }
+        checkUserAgent(agent);
 
         final long id = nextId();
         genCounter(agent);
@@ -202,11 +403,80 @@ public class IdWorker {
         return id;
     }
 
+    /**
+     * Get a batch of IDs for a given user-agent. The user-agent is validated
+     * and the counters are updated once for the whole batch.
+     * 
+     * @param agent
+     *            User Agent
+     * @param count
+     *            Number of IDs to generate
+     * @return Generated IDs
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    @Override
+    public long[] getIds(final String agent, final int count)
+            throws InvalidUserAgentError, InvalidSystemClock {
+        final long[] ids = new long[count];
+        getIds(agent, ids, 0, count);
+        return ids;
+    }
+
+    /**
+     * Fill a range of an array with IDs for a given user-agent
+     * 
+     * @param agent
+     *            User Agent
+     * @param ids
+     *            Array to fill
+     * @param offset
+     *            First index to fill
+     * @param length
+     *            Number of IDs to generate
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    @Override
+    public void getIds(final String agent, final long[] ids, final int offset,
+            final int length) throws InvalidUserAgentError,
+            InvalidSystemClock {
+        checkPositionIndexes(offset, offset + length, ids.length);
+        getIds(agent, LongBuffer.wrap(ids, offset, length));
+    }
+
+    /**
+     * Fill the remaining space of a buffer with IDs for a given user-agent
+     * 
+     * @param agent
+     *            User Agent
+     * @param buffer
+     *            Buffer to fill
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     * @throws InvalidSystemClock
+     *             When the system clock is moving backward
+     */
+    @Override
+    public void getIds(final String agent, final LongBuffer buffer)
+            throws InvalidUserAgentError, InvalidSystemClock {
+        checkUserAgent(agent);
+
+        final int count = buffer.remaining();
+        nextIds(buffer);
+        genCounter(agent, count);
+    }
+
     /**
      * Return the worker ID
      * 
      * @return Worker ID
      */
+    @Override
     public int getWorkerId() {
         return this.workerId;
     }
@@ -216,17 +486,47 @@ public class IdWorker {
      * 
      * @return Datacenter ID
      */
+    @Override
     public int getDatacenterId() {
         return this.datacenterId;
     }
 
     /**
-     * Return the current system time in milliseconds.
+     * Return the tracker counting IDs per User-Agent
      * 
-     * @return Current system time in milliseconds
+     * @return Top agents
      */
+    public TopAgentTracker getTopAgents() {
+        return topAgents;
+    }
+
+    /**
+     * Return the bit layout of the generated IDs
+     * 
+     * @return ID layout
+     */
+    public IdLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Return the current time in milliseconds according to the worker's
+     * {@link TimeSource}.
+     * 
+     * @return Current time in milliseconds
+     */
+    @Override
     public long getTimestamp() {
-        return System.currentTimeMillis();
+        return timeSource.currentTimeMillis();
+    }
+
+    /**
+     * Return the source of the current time
+     * 
+     * @return Time source
+     */
+    public TimeSource getTimeSource() {
+        return timeSource;
     }
 
     /**
@@ -255,58 +555,275 @@ public class IdWorker {
      * @throws InvalidSystemClock
      *             When the clock is moving backward
      */
-    public synchronized long nextId() throws InvalidSystemClock {
-        long timestamp = timeGen();
-        long curSequence = 0L;
+    public long nextId() throws InvalidSystemClock {
+        checkLease();
+        acquire();
+        try {
+            long timestamp = tickGen();
+            long curSequence = 0L;
 
-        final long prevTimestamp = lastTimestamp.get();
+            final long prevTimestamp = lastTimestamp.get();
+            final long prevSequence = sequence.get();
 
-        if (timestamp < prevTimestamp) {
-            exceptionsCounter.inc();
-            LOGGER.error(
-                    "clock is moving backwards. Rejecting requests until {}",
-                    prevTimestamp);
-            throw new InvalidSystemClock(
-                    String.format(
-                            "Clock moved backwards. Refusing to generate id for %d milliseconds",
-                            (prevTimestamp - timestamp)));
+            if (timestamp < prevTimestamp) {
+                timestamp = waitForClock(timestamp, prevTimestamp);
+            }
+
+            if (prevTimestamp == timestamp) {
+                curSequence = sequence.incrementAndGet() & sequenceMask;
+                if (curSequence == 0) {
+                    timestamp = tilNextMillis(prevTimestamp);
+                }
+            } else {
+                curSequence = 0L;
+                sequence.set(0L);
+            }
+
+            if (timestamp != prevTimestamp) {
+                recordUtilization(prevTimestamp, prevSequence);
+            }
+            reserve(timestamp);
+            lastTimestamp.set(timestamp);
+            final long id = composeId(timestamp, curSequence);
+
+            LOGGER.trace(
+                    "prevTimestamp = {}, timestamp = {}, sequence = {}, id = {}",
+                    prevTimestamp, timestamp, sequence, id);
+
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a batch of IDs
+     * 
+     * @param count
+     *            Number of IDs to generate
+     * @return Generated IDs
+     * @throws InvalidSystemClock
+     *             When the clock is moving backward
+     */
+    public long[] nextIds(final int count) throws InvalidSystemClock {
+        final long[] ids = new long[count];
+        nextIds(LongBuffer.wrap(ids));
+        return ids;
+    }
+
+    /**
+     * Fill the remaining space of a buffer with IDs. Each millisecond's run
+     * of sequence numbers is reserved at once, moving on to the following
+     * milliseconds when the batch does not fit into the current one.
+     * 
+     * @param buffer
+     *            Buffer to fill
+     * @throws InvalidSystemClock
+     *             When the clock is moving backward
+     */
+    public void nextIds(final LongBuffer buffer) throws InvalidSystemClock {
+        checkLease();
+        acquire();
+        try {
+            while (buffer.hasRemaining()) {
+                long timestamp = tickGen();
+                long curSequence = 0L;
+
+                final long prevTimestamp = lastTimestamp.get();
+                final long prevSequence = sequence.get();
+
+                if (timestamp < prevTimestamp) {
+                    timestamp = waitForClock(timestamp, prevTimestamp);
+                }
+
+                if (prevTimestamp == timestamp) {
+                    curSequence = sequence.incrementAndGet() & sequenceMask;
+                    if (curSequence == 0) {
+                        timestamp = tilNextMillis(prevTimestamp);
+                    }
+                } else {
+                    sequence.set(0L);
+                }
+
+                if (timestamp != prevTimestamp) {
+                    recordUtilization(prevTimestamp, prevSequence);
+                }
+                final long lastSequence = Math.min(sequenceMask, curSequence
+                        + buffer.remaining() - 1);
+                sequence.addAndGet(lastSequence - curSequence);
+                reserve(timestamp);
+                lastTimestamp.set(timestamp);
+
+                final long base = composeId(timestamp, 0L);
+                for (long seq = curSequence; seq <= lastSequence; seq++) {
+                    buffer.put(base | seq);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acquire the worker's lock. Only contended acquisitions are timed, so
+     * the uncontended path costs a single compare-and-set.
+     */
+    private void acquire() {
+        if (!lock.tryLock()) {
+            final long start = System.nanoTime();
+            lock.lock();
+            lockWaits.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record how much of the sequence space a finished timestamp unit used,
+     * as a percentage rounded up
+     * 
+     * @param prevTimestamp
+     *            Timestamp that just finished
+     * @param prevSequence
+     *            Last sequence number issued for it
+     */
+    protected final void recordUtilization(final long prevTimestamp,
+            final long prevSequence) {
+        if (prevTimestamp <= startTimestamp) {
+            return;
         }
+        final long capacity = sequenceMask + 1;
+        final long used = (prevSequence & sequenceMask) + 1;
+        sequenceUtilization.update((used * 100 + capacity - 1) / capacity);
+    }
 
-        if (prevTimestamp == timestamp) {
-            curSequence = sequence.incrementAndGet() & SEQUENCE_MASK;
-            if (curSequence == 0) {
-                timestamp = tilNextMillis(prevTimestamp);
+    /**
+     * Refuse to generate IDs when any of the worker's leases isn't held
+     * 
+     * @throws WorkerIdUnavailable
+     *             When a lease isn't held
+     */
+    protected void checkLease() {
+        for (final WorkerIdLease lease : leases) {
+            if (!lease.isValid()) {
+                exceptionsCounter.inc();
+                throw new WorkerIdUnavailable(String.format(
+                        "Worker ID %d is not available to this worker",
+                        workerId));
             }
-        } else {
-            curSequence = 0L;
-            sequence.set(0L);
         }
+    }
+
+    /**
+     * Return the timestamp the worker started from, -1 unless it was raised
+     * to a persisted {@link HighWaterMark}
+     * 
+     * @return starting timestamp
+     */
+    protected long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    /**
+     * Make sure the {@link HighWaterMark}, if any, covers a timestamp before
+     * IDs are issued for it
+     * 
+     * @param timestamp
+     *            Timestamp about to be issued
+     */
+    protected final void reserve(final long timestamp) {
+        if (highWaterMark != null) {
+            highWaterMark.reserve(timestamp);
+        }
+    }
 
-        lastTimestamp.set(timestamp);
-        final long id = ((timestamp - TWEPOCH) << TIMESTAMP_LEFT_SHIFT)
-                | (datacenterId << DATACENTER_ID_SHIFT)
-                | (workerId << WORKER_ID_SHIFT) | curSequence;
+    /**
+     * Assemble an ID from its timestamp and sequence components
+     * 
+     * @param timestamp
+     *            Timestamp in milliseconds, truncated to the layout's unit
+     * @param curSequence
+     *            Sequence number within the timestamp unit
+     * @return Generated ID
+     */
+    protected long composeId(final long timestamp, final long curSequence) {
+        return layout.timestampBits(timestamp) | nodeBits | curSequence;
+    }
 
-        LOGGER.trace(
-                "prevTimestamp = {}, timestamp = {}, sequence = {}, id = {}",
-                prevTimestamp, timestamp, sequence, id);
+    /**
+     * Handle the clock moving backwards. Small rollbacks, no larger than the
+     * configured maximum wait, are absorbed by waiting for the clock to catch
+     * up with the last timestamp; anything else is rejected.
+     * 
+     * @param timestamp
+     *            Current timestamp
+     * @param prevTimestamp
+     *            Timestamp of the last generated ID
+     * @return A timestamp no earlier than {@code prevTimestamp}
+     * @throws InvalidSystemClock
+     *             When the clock did not catch up in time
+     */
+    protected long waitForClock(final long timestamp, final long prevTimestamp)
+            throws InvalidSystemClock {
+        final long skew = prevTimestamp - timestamp;
+        if (skew > maxRollbackWaitMillis) {
+            throw clockMovedBackwards(timestamp, prevTimestamp);
+        }
 
-        return id;
+        LOGGER.warn("clock is moving backwards. Waiting {} ms until {}", skew,
+                prevTimestamp);
+
+        final long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(maxRollbackWaitMillis);
+        long current = timestamp;
+        while (current < prevTimestamp) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw clockMovedBackwards(current, prevTimestamp);
+            }
+            LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS
+                    .toNanos(prevTimestamp - current)));
+            current = tickGen();
+        }
+
+        rollbacksAbsorbedCounter.inc();
+        rollbackSkew.update(skew);
+        return current;
     }
 
     /**
-     * Return the next time in milliseconds
+     * Record a backwards clock movement and build the exception to throw
+     * 
+     * @param timestamp
+     *            Current timestamp
+     * @param prevTimestamp
+     *            Timestamp of the last generated ID
+     * @return Exception describing the clock movement
+     */
+    protected InvalidSystemClock clockMovedBackwards(final long timestamp,
+            final long prevTimestamp) {
+        exceptionsCounter.inc();
+        LOGGER.error("clock is moving backwards. Rejecting requests until {}",
+                prevTimestamp);
+        return new InvalidSystemClock(
+                String.format(
+                        "Clock moved backwards. Refusing to generate id for %d milliseconds",
+                        (prevTimestamp - timestamp)));
+    }
+
+    /**
+     * Return the next time in milliseconds, waiting with the configured
+     * {@link WaitStrategy}
      * 
      * @param lastTimestamp
      *            Last timestamp
      * @return Next timestamp in milliseconds
      */
     protected long tilNextMillis(final long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
+        final Timer.Context context = exhaustionWaits.time();
+        try {
+            return waitStrategy.waitUntilAfter(lastTimestamp, clock);
+        } finally {
+            context.stop();
         }
-        return timestamp;
     }
 
     /**
@@ -315,7 +832,16 @@ public class IdWorker {
      * @return current timestamp in milliseconds
      */
     protected long timeGen() {
-        return System.currentTimeMillis();
+        return timeSource.currentTimeMillis();
+    }
+
+    /**
+     * Generate a new timestamp rounded down to the layout's timestamp unit
+     * 
+     * @return current timestamp in milliseconds
+     */
+    protected final long tickGen() {
+        return layout.truncate(timeGen());
     }
 
     /**
@@ -329,8 +855,23 @@ public class IdWorker {
         if (!validateUserAgent) {
             return true;
         }
-        final Matcher matcher = AGENT_PATTERN.matcher(agent);
-        return matcher.matches();
+        return agentValidator.isValid(agent);
+    }
+
+    /**
+     * Reject an invalid user agent, counting the rejection
+     * 
+     * @param agent
+     *            User-Agent
+     * @throws InvalidUserAgentError
+     *             When the user agent is invalid
+     */
+    protected void checkUserAgent(final String agent)
+            throws InvalidUserAgentError {
+        if (!isValidUserAgent(agent)) {
+            exceptionsCounter.inc();
+            throw new InvalidUserAgentError();
+        }
     }
 
     /**
@@ -340,11 +881,215 @@ public class IdWorker {
      *            User-Agent
      */
     protected void genCounter(final String agent) {
-        idsCounter.inc();
-        if (!agentCounters.containsKey(agent)) {
-            agentCounters.put(agent, registry.counter(MetricRegistry.name(
-                    IdWorker.class, "ids_generated_" + agent)));
+        genCounter(agent, 1L);
+    }
+
+    /**
+     * Update the counters for a batch of IDs generated for a given user agent
+     * 
+     * @param agent
+     *            User-Agent
+     * @param count
+     *            Number of IDs generated
+     */
+    protected void genCounter(final String agent, final long count) {
+        idsCounter.inc(count);
+        topAgents.add(agent, count);
+    }
+
+    /**
+     * Builder for {@link IdWorker} and {@link LockFreeIdWorker}
+     */
+    public static class Builder {
+        private final int workerId;
+        private final int datacenterId;
+        private long startSequence = 0L;
+        private boolean validateUserAgent = true;
+        private UserAgentValidator agentValidator = new UserAgentValidator();
+        private MetricRegistry registry = new MetricRegistry();
+        private TimeSource timeSource = new SystemTimeSource();
+        private long maxRollbackWaitMillis = 0L;
+        private boolean lockFree = false;
+        private WaitStrategy waitStrategy = new BusySpinWaitStrategy();
+        private IdLayout layout = IdLayout.DEFAULT;
+        private TopAgentTracker topAgents;
+        private HighWaterMark highWaterMark;
+        private final List<WorkerIdLease> leases = new ArrayList<>();
+
+        /**
+         * Constructor
+         * 
+         * @param workerId
+         *            Worker ID
+         * @param datacenterId
+         *            Datacenter ID
+         */
+        protected Builder(final int workerId, final int datacenterId) {
+            this.workerId = workerId;
+            this.datacenterId = datacenterId;
+        }
+
+        /**
+         * @param startSequence
+         *            Starting sequence number
+         * @return this builder
+         */
+        public Builder startSequence(final long startSequence) {
+            this.startSequence = startSequence;
+            return this;
+        }
+
+        /**
+         * @param validateUserAgent
+         *            Whether to validate the User-Agent headers or not
+         * @return this builder
+         */
+        public Builder validateUserAgent(final boolean validateUserAgent) {
+            this.validateUserAgent = validateUserAgent;
+            return this;
+        }
+
+        /**
+         * @param agentValidator
+         *            Validator for the User-Agent headers, which workers may
+         *            share
+         * @return this builder
+         */
+        public Builder agentValidator(final UserAgentValidator agentValidator) {
+            this.agentValidator = agentValidator;
+            return this;
+        }
+
+        /**
+         * @param registry
+         *            Metric Registry
+         * @return this builder
+         */
+        public Builder registry(final MetricRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        /**
+         * @param timeSource
+         *            Source of the current time
+         * @return this builder
+         */
+        public Builder timeSource(final TimeSource timeSource) {
+            this.timeSource = timeSource;
+            return this;
+        }
+
+        /**
+         * Wait for the clock to catch up, instead of rejecting requests, when
+         * it moves backwards by no more than the given duration. Defaults to
+         * zero, which rejects every rollback.
+         * 
+         * @param duration
+         *            Longest rollback to wait out
+         * @param unit
+         *            Unit of the duration
+         * @return this builder
+         */
+        public Builder maxRollbackWait(final long duration, final TimeUnit unit) {
+            this.maxRollbackWaitMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * @param waitStrategy
+         *            How to wait for the next millisecond once the sequence
+         *            is used up. Defaults to {@link BusySpinWaitStrategy}.
+         * @return this builder
+         */
+        public Builder waitStrategy(final WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /**
+         * @param layout
+         *            Bit layout of the generated IDs. Defaults to
+         *            {@link IdLayout#DEFAULT}.
+         * @return this builder
+         */
+        public Builder layout(final IdLayout layout) {
+            this.layout = layout;
+            return this;
+        }
+
+        /**
+         * Count IDs per User-Agent in the given tracker, which the caller is
+         * responsible for registering. Workers sharing a registry must share
+         * a tracker, or register their trackers together with
+         * {@link TopAgentTracker#merged(List)}. By default, workers share
+         * the tracker registered as {@code IdWorker.top_agents} in their
+         * registry, registering one if there is none yet.
+         * 
+         * @param topAgents
+         *            User-Agent tracker
+         * @return this builder
+         */
+        public Builder topAgents(final TopAgentTracker topAgents) {
+            this.topAgents = topAgents;
+            return this;
+        }
+
+        /**
+         * Persist reserved timestamps to the given mark and don't generate
+         * IDs before the mark recorded by a previous run. Whether the worker
+         * then waits or rejects requests follows
+         * {@link #maxRollbackWait(long, TimeUnit)}.
+         * 
+         * @param highWaterMark
+         *            High-water mark, owned by the caller
+         * @return this builder
+         */
+        public Builder highWaterMark(final HighWaterMark highWaterMark) {
+            this.highWaterMark = highWaterMark;
+            return this;
+        }
+
+        /**
+         * Only generate IDs while the given lease is valid. Requests are
+         * rejected with {@link WorkerIdUnavailable} otherwise. May be called
+         * several times, in which case every lease must be valid.
+         * 
+         * @param lease
+         *            Lease on the worker ID, ignored if null
+         * @return this builder
+         */
+        public Builder lease(final WorkerIdLease lease) {
+            if (lease != null) {
+                this.leases.add(lease);
+            }
+            return this;
+        }
+
+        /**
+         * @param lockFree
+         *            Whether to build a {@link LockFreeIdWorker}
+         * @return this builder
+         */
+        public Builder lockFree(final boolean lockFree) {
+            this.lockFree = lockFree;
+            return this;
+        }
+
+        long getStartSequence() {
+            return startSequence;
+        }
+
+        /**
+         * Build the worker
+         * 
+         * @return new worker
+         */
+        public IdWorker build() {
+            if (lockFree) {
+                return new LockFreeIdWorker(this);
+            }
+            return new IdWorker(this);
         }
-        agentCounters.get(agent).inc();
     }
 }
@@ -0,0 +1,122 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.Set;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+/**
+ * Spreads ID generation across several independent generators, usually
+ * {@link IdWorker}s, each owning its own worker ID. A request thread is
+ * always served by the same lane, so lanes never contend for a lock or a
+ * sequence and the 4096 IDs per millisecond limit applies to each lane
+ * rather than to the whole process. Lanes built on one metric registry
+ * still report into the same timers and histograms, which
+ * {@link IdWorker} registers by name, and may share a user agent validator.
+ * <p>
+ * The lane is chosen as {@code Thread.getId() % lanes}, so a single-threaded
+ * caller, such as a selector thread or a client issuing every request from
+ * one thread, only ever uses one lane. Callers that want to spread such
+ * traffic should pick a lane explicitly from {@link #getLanes()}.
+ */
+public class IdWorkerLanes implements IdGenerator {
+
+    private final IdGenerator[] lanes;
+
+    /**
+     * Constructor
+     *
+     * @param lanes
+     *            Generators to spread requests across
+     */
+    public IdWorkerLanes(final List<? extends IdGenerator> lanes) {
+        checkNotNull(lanes);
+        checkArgument(!lanes.isEmpty(), "at least one lane is required");
+
+        final Set<Integer> workerIds = Sets.newHashSet();
+        for (final IdGenerator lane : lanes) {
+            checkArgument(workerIds.add(lane.getWorkerId()),
+                    "worker Id %s is used by more than one lane",
+                    lane.getWorkerId());
+            checkArgument(lane.getDatacenterId() == lanes.get(0)
+                    .getDatacenterId(),
+                    "all lanes must belong to the same datacenter");
+        }
+
+        this.lanes = lanes.toArray(new IdGenerator[lanes.size()]);
+    }
+
+    /**
+     * Return the generators backing each lane
+     *
+     * @return Lane generators
+     */
+    public List<IdGenerator> getLanes() {
+        return ImmutableList.copyOf(lanes);
+    }
+
+    /**
+     * Return the lane serving the current thread
+     *
+     * @return Lane generator
+     */
+    public IdGenerator lane() {
+        return lanes[(int) (Thread.currentThread().getId() % lanes.length)];
+    }
+
+    @Override
+    public long getId(final String agent) throws InvalidUserAgentError,
+            InvalidSystemClock {
+        return lane().getId(agent);
+    }
+
+    @Override
+    public long[] getIds(final String agent, final int count)
+            throws InvalidUserAgentError, InvalidSystemClock {
+        return lane().getIds(agent, count);
+    }
+
+    @Override
+    public void getIds(final String agent, final long[] ids, final int offset,
+            final int length) throws InvalidUserAgentError,
+            InvalidSystemClock {
+        lane().getIds(agent, ids, offset, length);
+    }
+
+    @Override
+    public void getIds(final String agent, final LongBuffer buffer)
+            throws InvalidUserAgentError, InvalidSystemClock {
+        lane().getIds(agent, buffer);
+    }
+
+    /**
+     * Return the worker ID of the first lane, whichever thread asks. Use
+     * {@link #getLanes()} for the worker IDs of every lane.
+     *
+     * @return Worker ID
+     */
+    @Override
+    public int getWorkerId() {
+        return lanes[0].getWorkerId();
+    }
+
+    @Override
+    public int getDatacenterId() {
+        return lanes[0].getDatacenterId();
+    }
+
+    /**
+     * Return the current timestamp of the first lane, whichever thread asks
+     *
+     * @return Timestamp
+     */
+    @Override
+    public long getTimestamp() {
+        return lanes[0].getTimestamp();
+    }
+}
@@ -0,0 +1,255 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.codahale.metrics.MetricRegistry;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+
+/**
+ * Non-blocking {@link IdWorker} which keeps the last timestamp and the
+ * sequence number packed into a single {@link AtomicLong} and advances it with
+ * compare-and-set instead of holding a monitor. Generated IDs use the same
+ * layout as {@link IdWorker}, and a clock moving backwards is handled the same
+ * way, by waiting or with an {@link InvalidSystemClock}.
+ */
+public class LockFreeIdWorker extends IdWorker {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(LockFreeIdWorker.class);
+
+    /**
+     * Timestamps are packed as milliseconds since the Unix epoch, which need
+     * 41 bits, leaving at most 22 bits for the sequence
+     */
+    private static final int MAX_SEQUENCE_BITS = 22;
+
+    /**
+     * Last timestamp in the upper bits, sequence in the lower
+     * {@link IdLayout#getSequenceBits()} bits
+     */
+    private final AtomicLong state;
+    private final int sequenceBits;
+    private final long sequenceMask;
+
+    /**
+     * Constructor
+     *
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     */
+    public LockFreeIdWorker(final int workerId, final int datacenterId) {
+        this(workerId, datacenterId, 0L, true, new MetricRegistry());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param startSequence
+     *            Starting sequence number
+     */
+    public LockFreeIdWorker(final int workerId, final int datacenterId,
+            final long startSequence) {
+        this(workerId, datacenterId, startSequence, true, new MetricRegistry());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param validateUserAgent
+     *            Whether to validate the User-Agent headers or not
+     */
+    public LockFreeIdWorker(final int workerId, final int datacenterId,
+            final boolean validateUserAgent) {
+        this(workerId, datacenterId, 0L, validateUserAgent,
+                new MetricRegistry());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param timeSource
+     *            Source of the current time
+     */
+    public LockFreeIdWorker(final int workerId, final int datacenterId,
+            final TimeSource timeSource) {
+        this(workerId, datacenterId, 0L, true, new MetricRegistry(),
+                timeSource);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param startSequence
+     *            Starting sequence number
+     * @param validateUserAgent
+     *            Whether to validate the User-Agent headers or not
+     * @param registry
+     *            Metric Registry
+     */
+    public LockFreeIdWorker(final int workerId, final int datacenterId,
+            final long startSequence, final boolean validateUserAgent,
+            final MetricRegistry registry) {
+        this(workerId, datacenterId, startSequence, validateUserAgent,
+                registry, new SystemTimeSource());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param workerId
+     *            Worker ID
+     * @param datacenterId
+     *            Datacenter ID
+     * @param startSequence
+     *            Starting sequence number
+     * @param validateUserAgent
+     *            Whether to validate the User-Agent headers or not
+     * @param registry
+     *            Metric Registry
+     * @param timeSource
+     *            Source of the current time
+     */
+    public LockFreeIdWorker(final int workerId, final int datacenterId,
+            final long startSequence, final boolean validateUserAgent,
+            final MetricRegistry registry, final TimeSource timeSource) {
+        this(builder(workerId, datacenterId).startSequence(startSequence)
+                .validateUserAgent(validateUserAgent).registry(registry)
+                .timeSource(timeSource));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param builder
+     *            Worker settings
+     */
+    protected LockFreeIdWorker(final Builder builder) {
+        super(builder);
+        sequenceBits = getLayout().getSequenceBits();
+        sequenceMask = getLayout().getSequenceMask();
+        checkArgument(sequenceBits <= MAX_SEQUENCE_BITS,
+                "lock-free workers support at most %s sequence bits",
+                MAX_SEQUENCE_BITS);
+        state = new AtomicLong(pack(getStartTimestamp(),
+                builder.getStartSequence()));
+    }
+
+    @Override
+    public long getSequence() {
+        return state.get() & sequenceMask;
+    }
+
+    @Override
+    public void setSequence(final long value) {
+        long current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current,
+                pack(current >> sequenceBits, value)));
+    }
+
+    @Override
+    public long nextId() throws InvalidSystemClock {
+        checkLease();
+        while (true) {
+            final long current = state.get();
+            final long prevTimestamp = current >> sequenceBits;
+            long timestamp = tickGen();
+
+            if (timestamp < prevTimestamp) {
+                timestamp = waitForClock(timestamp, prevTimestamp);
+            }
+
+            long curSequence = 0L;
+            if (prevTimestamp == timestamp) {
+                curSequence = (current + 1) & sequenceMask;
+                if (curSequence == 0) {
+                    timestamp = tilNextMillis(prevTimestamp);
+                }
+            }
+
+            if (state.compareAndSet(current, pack(timestamp, curSequence))) {
+                if (timestamp != prevTimestamp) {
+                    recordUtilization(prevTimestamp, current);
+                }
+                reserve(timestamp);
+                final long id = composeId(timestamp, curSequence);
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace(
+                            "prevTimestamp = {}, timestamp = {}, sequence = {}, id = {}",
+                            prevTimestamp, timestamp, curSequence, id);
+                }
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public void nextIds(final LongBuffer buffer) throws InvalidSystemClock {
+        checkLease();
+        while (buffer.hasRemaining()) {
+            final long current = state.get();
+            final long prevTimestamp = current >> sequenceBits;
+            long timestamp = tickGen();
+
+            if (timestamp < prevTimestamp) {
+                timestamp = waitForClock(timestamp, prevTimestamp);
+            }
+
+            long curSequence = 0L;
+            if (prevTimestamp == timestamp) {
+                curSequence = (current + 1) & sequenceMask;
+                if (curSequence == 0) {
+                    timestamp = tilNextMillis(prevTimestamp);
+                }
+            }
+
+            final long lastSequence = Math.min(sequenceMask, curSequence
+                    + buffer.remaining() - 1);
+            if (state.compareAndSet(current, pack(timestamp, lastSequence))) {
+                if (timestamp != prevTimestamp) {
+                    recordUtilization(prevTimestamp, current);
+                }
+                reserve(timestamp);
+                final long base = composeId(timestamp, 0L);
+                for (long seq = curSequence; seq <= lastSequence; seq++) {
+                    buffer.put(base | seq);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pack a timestamp and sequence number into a single state word
+     *
+     * @param timestamp
+     *            Timestamp in milliseconds
+     * @param sequence
+     *            Sequence number
+     * @return packed state
+     */
+    private long pack(final long timestamp, final long sequence) {
+        return (timestamp << sequenceBits) | (sequence & sequenceMask);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ge.snowizard.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic {@link TimeSource} which only moves when it is told to. Note
+ * that a worker exhausting its sequence will wait for this clock to be
+ * advanced by another thread.
+ */
+public class ManualTimeSource implements TimeSource {
+
+    private final AtomicLong time;
+
+    /**
+     * Constructor
+     * 
+     * @param time
+     *            Initial time in milliseconds
+     */
+    public ManualTimeSource(final long time) {
+        this.time = new AtomicLong(time);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time.get();
+    }
+
+    /**
+     * Set the current time
+     * 
+     * @param value
+     *            New time in milliseconds
+     */
+    public void set(final long value) {
+        time.set(value);
+    }
+
+    /**
+     * Move the current time forward (or backward, with a negative value)
+     * 
+     * @param millis
+     *            Number of milliseconds to move by
+     * @return New time in milliseconds
+     */
+    public long advance(final long millis) {
+        return time.addAndGet(millis);
+    }
+}
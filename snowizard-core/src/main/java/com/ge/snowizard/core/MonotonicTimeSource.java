@@ -0,0 +1,190 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * {@link TimeSource} which never moves backwards. Time is measured with
+ * {@link System#nanoTime()} from an anchor taken on the wall clock, and the
+ * anchor is periodically re-synced with {@link System#currentTimeMillis()}.
+ * When the wall clock has moved ahead, the anchor jumps forward with it; when
+ * it has been stepped back (by NTP, for instance), the difference is absorbed
+ * a little at a time by holding the returned time still, so workers never see
+ * a rollback.
+ */
+public class MonotonicTimeSource implements TimeSource {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(MonotonicTimeSource.class);
+    private static final long DEFAULT_RESYNC_MILLIS = 100L;
+    private static final long DEFAULT_MAX_SLEW_MILLIS = 1L;
+
+    private final long resyncNanos;
+    private final long maxSlewMillis;
+    private final AtomicReference<Anchor> anchor;
+    private final AtomicLong lastMillis = new AtomicLong(Long.MIN_VALUE);
+    private final Counter skewAbsorbed;
+
+    /**
+     * Immutable pairing of a wall clock time with the {@link System#nanoTime()}
+     * value it was taken at
+     */
+    private static final class Anchor {
+        final long wallMillis;
+        final long nanos;
+
+        Anchor(final long wallMillis, final long nanos) {
+            this.wallMillis = wallMillis;
+            this.nanos = nanos;
+        }
+
+        long millisAt(final long nanoTime) {
+            return wallMillis
+                    + TimeUnit.NANOSECONDS.toMillis(nanoTime - nanos);
+        }
+    }
+
+    /**
+     * Constructor, re-syncing every 100 milliseconds and absorbing at most 1
+     * millisecond of backwards skew per re-sync
+     */
+    public MonotonicTimeSource() {
+        this(new MetricRegistry());
+    }
+
+    /**
+     * Constructor, re-syncing every 100 milliseconds and absorbing at most 1
+     * millisecond of backwards skew per re-sync
+     * 
+     * @param registry
+     *            Metric Registry
+     */
+    public MonotonicTimeSource(final MetricRegistry registry) {
+        this(DEFAULT_RESYNC_MILLIS, TimeUnit.MILLISECONDS,
+                DEFAULT_MAX_SLEW_MILLIS, registry);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param resyncInterval
+     *            How often to compare against the wall clock
+     * @param unit
+     *            Unit of the re-sync interval
+     * @param maxSlewMillis
+     *            Most backwards skew, in milliseconds, to absorb per re-sync
+     * @param registry
+     *            Metric Registry
+     */
+    public MonotonicTimeSource(final long resyncInterval, final TimeUnit unit,
+            final long maxSlewMillis, final MetricRegistry registry) {
+        checkNotNull(unit);
+        checkNotNull(registry);
+        checkArgument(resyncInterval > 0, "resync interval must be positive");
+        checkArgument(maxSlewMillis > 0, "max slew must be positive");
+
+        this.resyncNanos = unit.toNanos(resyncInterval);
+        this.maxSlewMillis = maxSlewMillis;
+        this.anchor = new AtomicReference<Anchor>(new Anchor(wallClockMillis(),
+                nanoTime()));
+
+        skewAbsorbed = registry.counter(MetricRegistry.name(
+                MonotonicTimeSource.class, "skew_absorbed_ms"));
+        registry.register(MetricRegistry.name(MonotonicTimeSource.class,
+                "wall_clock_offset_ms"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getWallClockOffset();
+            }
+        });
+
+        LOGGER.info("monotonic clock started. resync {} ns, max slew {} ms",
+                resyncNanos, maxSlewMillis);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        final long nanoTime = nanoTime();
+        Anchor current = anchor.get();
+        if (nanoTime - current.nanos >= resyncNanos) {
+            current = resync(current, nanoTime);
+        }
+
+        final long millis = current.millisAt(nanoTime);
+        while (true) {
+            final long last = lastMillis.get();
+            if (millis <= last) {
+                return last;
+            }
+            if (lastMillis.compareAndSet(last, millis)) {
+                return millis;
+            }
+        }
+    }
+
+    /**
+     * Return how far the wall clock is ahead of (positive) or behind
+     * (negative) this time source
+     * 
+     * @return offset in milliseconds
+     */
+    public long getWallClockOffset() {
+        return wallClockMillis() - anchor.get().millisAt(nanoTime());
+    }
+
+    /**
+     * Move the anchor toward the wall clock. Only one thread wins the swap;
+     * the others carry on with whichever anchor is current.
+     * 
+     * @param current
+     *            Anchor being replaced
+     * @param nanoTime
+     *            Current {@link System#nanoTime()} value
+     * @return Anchor to use
+     */
+    private Anchor resync(final Anchor current, final long nanoTime) {
+        final long wall = wallClockMillis();
+        final long millis = current.millisAt(nanoTime);
+        final long skew = millis - wall;
+
+        final long slew = skew > 0 ? Math.min(skew, maxSlewMillis) : 0L;
+        if (skew > maxSlewMillis) {
+            LOGGER.warn("wall clock is {} ms behind, absorbing {} ms of it",
+                    skew, slew);
+        }
+
+        final Anchor updated = new Anchor(skew > 0 ? millis - slew : wall,
+                nanoTime);
+        if (anchor.compareAndSet(current, updated)) {
+            skewAbsorbed.inc(slew);
+            return updated;
+        }
+        return anchor.get();
+    }
+
+    /**
+     * Read the wall clock
+     * 
+     * @return wall clock time in milliseconds
+     */
+    protected long wallClockMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Read the monotonic clock
+     * 
+     * @return monotonic time in nanoseconds
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,296 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.io.Closeable;
+import java.nio.LongBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
+
+/**
+ * {@link IdGenerator} handing out IDs which a background thread generated
+ * ahead of demand with an {@link IdWorker}, so request threads never wait for
+ * the next millisecond. IDs are kept in a lock-free ring; an ID older than
+ * the maximum staleness is discarded rather than handed out, and requests
+ * fall back to the worker when the ring is empty. IDs handed out this way
+ * are unique, but may be up to the maximum staleness out of order with IDs
+ * generated directly by the worker.
+ * 
+ * <p>
+ * The ring is only refilled with as many IDs as requests took from it or
+ * missed, so an idle generator stops producing once its IDs go stale, and
+ * the producer never spends more than half of any timestamp's sequence
+ * space, leaving the rest to requests the ring can't serve.
+ */
+public class PregeneratedIdGenerator implements IdGenerator, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(PregeneratedIdGenerator.class);
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long DEFAULT_MAX_STALENESS_MILLIS = 5L;
+    private static final int CHUNK_SIZE = 256;
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+
+    private final IdWorker worker;
+    private final IdDecoder decoder;
+    private final IdRing ring;
+    private final long maxStalenessMillis;
+    private final Thread producer;
+    private final Meter refills;
+    private final Counter staleDiscards;
+    private final Counter misses;
+    private final Counter requested;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor, keeping up to 8192 IDs no more than 5 milliseconds old
+     * 
+     * @param worker
+     *            Worker generating the IDs
+     */
+    public PregeneratedIdGenerator(final IdWorker worker) {
+        this(worker, DEFAULT_CAPACITY, DEFAULT_MAX_STALENESS_MILLIS,
+                TimeUnit.MILLISECONDS, new MetricRegistry());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param worker
+     *            Worker generating the IDs
+     * @param capacity
+     *            Number of IDs to keep ready, a power of two
+     * @param maxStaleness
+     *            How far behind the worker's clock an ID may be
+     * @param unit
+     *            Unit of the maximum staleness
+     * @param registry
+     *            Metric Registry
+     */
+    public PregeneratedIdGenerator(final IdWorker worker, final int capacity,
+            final long maxStaleness, final TimeUnit unit,
+            final MetricRegistry registry) {
+        checkNotNull(unit);
+        checkNotNull(registry);
+        checkArgument(maxStaleness >= 0, "max staleness can't be negative");
+
+        this.worker = checkNotNull(worker);
+        this.decoder = new IdDecoder(worker.getLayout());
+        this.ring = new IdRing(capacity);
+        this.maxStalenessMillis = unit.toMillis(maxStaleness);
+
+        final String prefix = MetricRegistry.name(
+                PregeneratedIdGenerator.class,
+                String.valueOf(worker.getWorkerId()));
+        registry.register(MetricRegistry.name(prefix, "fill"),
+                new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return ring.size();
+                    }
+                });
+        refills = registry.meter(MetricRegistry.name(prefix, "refills"));
+        staleDiscards = registry.counter(MetricRegistry.name(prefix,
+                "stale_discards"));
+        misses = registry.counter(MetricRegistry.name(prefix, "misses"));
+        requested = registry.counter(MetricRegistry.name(prefix,
+                "requested"));
+
+        producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        }, "snowizard-pregenerator-" + worker.getWorkerId());
+        producer.setDaemon(true);
+        producer.start();
+
+        LOGGER.info("pregeneration started. capacity {}, max staleness {} ms",
+                capacity, maxStalenessMillis);
+    }
+
+    /**
+     * Return the worker generating the IDs
+     * 
+     * @return worker
+     */
+    public IdWorker getWorker() {
+        return worker;
+    }
+
+    @Override
+    public long getId(final String agent) throws InvalidUserAgentError,
+            InvalidSystemClock {
+        worker.checkUserAgent(agent);
+        requested.inc();
+        long id = take();
+        if (id == IdRing.EMPTY) {
+            misses.inc();
+            id = worker.nextId();
+        }
+        worker.genCounter(agent);
+        return id;
+    }
+
+    @Override
+    public long[] getIds(final String agent, final int count)
+            throws InvalidUserAgentError, InvalidSystemClock {
+        final long[] ids = new long[count];
+        getIds(agent, ids, 0, count);
+        return ids;
+    }
+
+    @Override
+    public void getIds(final String agent, final long[] ids, final int offset,
+            final int length) throws InvalidUserAgentError,
+            InvalidSystemClock {
+        getIds(agent, LongBuffer.wrap(ids, offset, length));
+    }
+
+    @Override
+    public void getIds(final String agent, final LongBuffer buffer)
+            throws InvalidUserAgentError, InvalidSystemClock {
+        worker.checkUserAgent(agent);
+        final int count = buffer.remaining();
+        requested.inc(count);
+        while (buffer.hasRemaining()) {
+            final long id = take();
+            if (id == IdRing.EMPTY) {
+                misses.inc();
+                worker.nextIds(buffer);
+                break;
+            }
+            buffer.put(id);
+        }
+        worker.genCounter(agent, count);
+    }
+
+    @Override
+    public int getWorkerId() {
+        return worker.getWorkerId();
+    }
+
+    @Override
+    public int getDatacenterId() {
+        return worker.getDatacenterId();
+    }
+
+    @Override
+    public long getTimestamp() {
+        return worker.getTimestamp();
+    }
+
+    /**
+     * Stop the producer thread. Requests are served by the worker directly
+     * once the ring runs dry.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(producer);
+        try {
+            producer.join(1000L);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Take the oldest ID which isn't stale, as long as the worker's lease
+     * is held
+     * 
+     * @return ID, or {@link IdRing#EMPTY}
+     */
+    private long take() {
+        worker.checkLease();
+        final long now = worker.getTimestamp();
+        long id;
+        while ((id = ring.poll()) != IdRing.EMPTY) {
+            if (!isStale(id, now)) {
+                return id;
+            }
+            staleDiscards.inc();
+        }
+        return IdRing.EMPTY;
+    }
+
+    private boolean isStale(final long id, final long now) {
+        return now - decoder.getTimestamp(id) > maxStalenessMillis;
+    }
+
+    /**
+     * Producer loop: drop stale IDs from the head of the ring, then top it
+     * up a chunk at a time with as many IDs as were requested since, within
+     * half of the current timestamp's sequence space
+     */
+    private void produce() {
+        final long[] chunk = new long[CHUNK_SIZE];
+        final LongBuffer buffer = LongBuffer.wrap(chunk);
+        final IdLayout layout = worker.getLayout();
+        final long maxPerTimestamp = Math.max(1L,
+                (layout.getSequenceMask() + 1) / 2);
+        long budget = ring.capacity();
+        long seen = requested.getCount();
+        long timestamp = -1L;
+        long produced = 0L;
+        boolean paused = false;
+        while (running) {
+            final long now = worker.getTimestamp();
+            long oldest;
+            while ((oldest = ring.peek()) != IdRing.EMPTY
+                    && isStale(oldest, now)) {
+                if (ring.poll() != IdRing.EMPTY) {
+                    staleDiscards.inc();
+                }
+            }
+
+            final long total = requested.getCount();
+            budget = Math.min(ring.capacity(), budget + total - seen);
+            seen = total;
+            if (layout.truncate(now) != timestamp) {
+                timestamp = layout.truncate(now);
+                produced = 0L;
+            }
+            final long wanted = Math.min(
+                    Math.min(budget, ring.capacity() - ring.size()),
+                    Math.min(CHUNK_SIZE, maxPerTimestamp - produced));
+            if (wanted <= 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            buffer.clear();
+            buffer.limit((int) wanted);
+            try {
+                worker.nextIds(buffer);
+            } catch (final InvalidSystemClock | WorkerIdUnavailable e) {
+                if (!paused) {
+                    LOGGER.warn("pregeneration paused: {}", e.getMessage());
+                    paused = true;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+                continue;
+            }
+            if (paused) {
+                LOGGER.info("pregeneration resumed");
+                paused = false;
+            }
+            final int generated = buffer.position();
+            for (int i = 0; i < generated; i++) {
+                ring.offer(chunk[i]);
+            }
+            budget -= generated;
+            produced += generated;
+            refills.mark(generated);
+        }
+    }
+}
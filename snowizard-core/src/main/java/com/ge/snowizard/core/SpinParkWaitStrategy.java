@@ -0,0 +1,66 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link WaitStrategy} which spins on the clock for a number of reads and
+ * then parks the thread for a short, sub-millisecond interval between reads.
+ * It uses the least CPU, at the cost of noticing the new millisecond up to
+ * one park interval late.
+ */
+public class SpinParkWaitStrategy implements WaitStrategy {
+
+    private static final int DEFAULT_SPIN_TRIES = 100;
+    private static final long DEFAULT_PARK_MICROS = 50L;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS
+            .toNanos(1L);
+
+    private final int spinTries;
+    private final long parkNanos;
+
+    /**
+     * Constructor, spinning for 100 reads and then parking for 50
+     * microseconds at a time
+     */
+    public SpinParkWaitStrategy() {
+        this(DEFAULT_SPIN_TRIES, DEFAULT_PARK_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param spinTries
+     *            Number of clock reads before parking
+     * @param park
+     *            How long to park between reads, less than a millisecond
+     * @param unit
+     *            Unit of the park interval
+     */
+    public SpinParkWaitStrategy(final int spinTries, final long park,
+            final TimeUnit unit) {
+        checkNotNull(unit);
+        checkArgument(spinTries >= 0, "spin tries can't be negative");
+        checkArgument(park > 0 && unit.toNanos(park) < MAX_PARK_NANOS,
+                "park interval must be between 0 and 1 ms");
+        this.spinTries = spinTries;
+        this.parkNanos = unit.toNanos(park);
+    }
+
+    @Override
+    public long waitUntilAfter(final long lastTimestamp, final TimeSource clock) {
+        int tries = 0;
+        long timestamp = clock.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            if (tries < spinTries) {
+                tries++;
+            } else {
+                LockSupport.parkNanos(parkNanos);
+            }
+            timestamp = clock.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * {@link WaitStrategy} which spins on the clock for a number of reads and
+ * then calls {@link Thread#yield()} between reads, giving other threads a
+ * chance to run on the core.
+ */
+public class SpinYieldWaitStrategy implements WaitStrategy {
+
+    private static final int DEFAULT_SPIN_TRIES = 100;
+
+    private final int spinTries;
+
+    /**
+     * Constructor, spinning for 100 reads before yielding
+     */
+    public SpinYieldWaitStrategy() {
+        this(DEFAULT_SPIN_TRIES);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param spinTries
+     *            Number of clock reads before yielding
+     */
+    public SpinYieldWaitStrategy(final int spinTries) {
+        checkArgument(spinTries >= 0, "spin tries can't be negative");
+        this.spinTries = spinTries;
+    }
+
+    @Override
+    public long waitUntilAfter(final long lastTimestamp, final TimeSource clock) {
+        int tries = 0;
+        long timestamp = clock.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            if (tries < spinTries) {
+                tries++;
+            } else {
+                Thread.yield();
+            }
+            timestamp = clock.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ge.snowizard.core;
+
+/**
+ * {@link TimeSource} reading {@link System#currentTimeMillis()} on every call
+ */
+public class SystemTimeSource implements TimeSource {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,14 @@
+package com.ge.snowizard.core;
+
+/**
+ * Source of the current time used to timestamp generated IDs
+ */
+public interface TimeSource {
+
+    /**
+     * Return the current time in milliseconds since the Unix epoch
+     * 
+     * @return Current time in milliseconds
+     */
+    long currentTimeMillis();
+}
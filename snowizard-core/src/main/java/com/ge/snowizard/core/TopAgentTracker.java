@@ -0,0 +1,337 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Fixed-memory count of the IDs generated per User-Agent, using the
+ * Space-Saving algorithm: a fixed number of slots track the heaviest agents,
+ * and an agent without a slot takes over the one with the lowest count. Any
+ * agent generating more than {@code 1 / capacity} of all IDs is guaranteed to
+ * hold a slot, and its count is over-estimated by at most the count of the
+ * slot it took over.
+ * 
+ * <p>
+ * Updates never allocate. As a {@link MetricSet}, the tracker publishes the
+ * name and count of each rank, so it never registers more than twice its
+ * capacity in gauges no matter how many distinct agents show up.
+ * 
+ * <p>
+ * Updates take the tracker's monitor, so concurrent generators should each
+ * have their own tracker, and publish the trackers together with
+ * {@link #merged(List)}.
+ */
+public class TopAgentTracker implements MetricSet {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final long SNAPSHOT_MILLIS = 1000L;
+    private static final Comparator<Entry> BY_COUNT = new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry a, final Entry b) {
+            return Long.compare(b.count, a.count);
+        }
+    };
+
+    private final String[] agents;
+    private final int[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private final Supplier<List<Entry>> snapshot;
+    private int size = 0;
+
+    /**
+     * Count of the IDs generated for one User-Agent
+     */
+    public static final class Entry {
+        private final String agent;
+        private final long count;
+        private final long error;
+
+        private Entry(final String agent, final long count, final long error) {
+            this.agent = agent;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getAgent() {
+            return agent;
+        }
+
+        /**
+         * Return the estimated number of IDs generated for the agent
+         * 
+         * @return Upper bound of the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Return how much the count may be over-estimated by
+         * 
+         * @return Maximum error
+         */
+        public long getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Constructor, tracking the top 16 agents
+     */
+    public TopAgentTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param capacity
+     *            Number of agents to track
+     */
+    public TopAgentTracker(final int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        this.agents = new String[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.snapshot = Suppliers.memoizeWithExpiration(
+                new Supplier<List<Entry>>() {
+                    @Override
+                    public List<Entry> get() {
+                        return getTopAgents();
+                    }
+                }, SNAPSHOT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Return the number of agents tracked
+     * 
+     * @return capacity
+     */
+    public int getCapacity() {
+        return agents.length;
+    }
+
+    /**
+     * Record IDs generated for a User-Agent
+     * 
+     * @param agent
+     *            User-Agent
+     * @param count
+     *            Number of IDs generated
+     */
+    public synchronized void add(final String agent, final long count) {
+        final int hash = agent.hashCode();
+        int min = 0;
+        for (int i = 0; i < size; i++) {
+            if (hashes[i] == hash && agents[i].equals(agent)) {
+                counts[i] += count;
+                return;
+            }
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+
+        if (size < agents.length) {
+            min = size++;
+            errors[min] = 0L;
+        } else {
+            errors[min] = counts[min];
+        }
+        agents[min] = agent;
+        hashes[min] = hash;
+        counts[min] += count;
+    }
+
+    /**
+     * Return the tracked agents, heaviest first
+     * 
+     * @return Agent counts
+     */
+    public List<Entry> getTopAgents() {
+        final Entry[] entries;
+        synchronized (this) {
+            entries = new Entry[size];
+            for (int i = 0; i < size; i++) {
+                entries[i] = new Entry(agents[i], counts[i], errors[i]);
+            }
+        }
+        Arrays.sort(entries, BY_COUNT);
+        return ImmutableList.copyOf(entries);
+    }
+
+    /**
+     * Return a {@code rank.name} and a {@code rank.count} gauge for each
+     * rank, starting at 1. Gauges for empty ranks report {@code null}.
+     * Values are refreshed at most once a second.
+     */
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return rankMetrics(this, agents.length, snapshot);
+    }
+
+    /**
+     * Return the tracker whose gauges are registered under a name, so that
+     * generators sharing a registry can share the tracker
+     * 
+     * @param registry
+     *            Metric Registry
+     * @param name
+     *            Name the tracker was registered under
+     * @return the registered tracker, or null if there is none or the gauges
+     *         belong to {@link #merged(List) merged} trackers
+     */
+    static TopAgentTracker registered(final MetricRegistry registry,
+            final String name) {
+        final Gauge<?> gauge = registry.getGauges().get(
+                MetricRegistry.name(name, "1", "name"));
+        return gauge instanceof RankGauge ? ((RankGauge<?>) gauge).tracker
+                : null;
+    }
+
+    /**
+     * Return the same gauges as {@link #getMetrics()} for the agents of
+     * several trackers counted together, so that each generator can update
+     * its own tracker without contending with the others
+     * 
+     * @param trackers
+     *            Trackers to merge
+     * @return Gauges of the merged ranks, as many as the largest tracker has
+     */
+    public static MetricSet merged(final List<TopAgentTracker> trackers) {
+        checkArgument(!trackers.isEmpty(), "no trackers to merge");
+        final List<TopAgentTracker> copy = ImmutableList.copyOf(trackers);
+        int capacity = 0;
+        for (final TopAgentTracker tracker : copy) {
+            capacity = Math.max(capacity, tracker.getCapacity());
+        }
+        final int ranks = capacity;
+        final Supplier<List<Entry>> snapshot = Suppliers.memoizeWithExpiration(
+                new Supplier<List<Entry>>() {
+                    @Override
+                    public List<Entry> get() {
+                        return merge(copy, ranks);
+                    }
+                }, SNAPSHOT_MILLIS, TimeUnit.MILLISECONDS);
+        return new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return rankMetrics(null, ranks, snapshot);
+            }
+        };
+    }
+
+    /**
+     * Count the agents of several trackers together. An agent missing from
+     * a full tracker may have been counted there up to that tracker's lowest
+     * count, which is added to both its count and its error.
+     * 
+     * @param trackers
+     *            Trackers to merge
+     * @param limit
+     *            Number of agents to return
+     * @return Heaviest agents of all trackers, heaviest first
+     */
+    static List<Entry> merge(final List<TopAgentTracker> trackers,
+            final int limit) {
+        final List<List<Entry>> snapshots = Lists.newArrayListWithCapacity(
+                trackers.size());
+        final long[] floors = new long[trackers.size()];
+        final Map<String, long[]> totals = Maps.newHashMap();
+        for (int i = 0; i < trackers.size(); i++) {
+            final List<Entry> entries = trackers.get(i).getTopAgents();
+            snapshots.add(entries);
+            if (entries.size() == trackers.get(i).getCapacity()) {
+                floors[i] = entries.get(entries.size() - 1).getCount();
+            }
+            for (final Entry entry : entries) {
+                totals.put(entry.getAgent(), new long[2]);
+            }
+        }
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            for (final long[] total : totals.values()) {
+                total[0] += floors[i];
+                total[1] += floors[i];
+            }
+            for (final Entry entry : snapshots.get(i)) {
+                final long[] total = totals.get(entry.getAgent());
+                total[0] += entry.getCount() - floors[i];
+                total[1] += entry.getError() - floors[i];
+            }
+        }
+
+        final Entry[] entries = new Entry[totals.size()];
+        int i = 0;
+        for (final Map.Entry<String, long[]> total : totals.entrySet()) {
+            entries[i++] = new Entry(total.getKey(), total.getValue()[0],
+                    total.getValue()[1]);
+        }
+        Arrays.sort(entries, BY_COUNT);
+        return ImmutableList.copyOf(entries).subList(0,
+                Math.min(limit, entries.length));
+    }
+
+    private static Map<String, Metric> rankMetrics(
+            final TopAgentTracker tracker, final int ranks,
+            final Supplier<List<Entry>> snapshot) {
+        final ImmutableMap.Builder<String, Metric> metrics = ImmutableMap
+                .builder();
+        for (int i = 0; i < ranks; i++) {
+            final int rank = i;
+            final String prefix = String.valueOf(rank + 1);
+            metrics.put(MetricRegistry.name(prefix, "name"),
+                    new RankGauge<String>(tracker) {
+                        @Override
+                        public String getValue() {
+                            final Entry entry = entryAt(snapshot, rank);
+                            return entry == null ? null : entry.getAgent();
+                        }
+                    });
+            metrics.put(MetricRegistry.name(prefix, "count"),
+                    new RankGauge<Long>(tracker) {
+                        @Override
+                        public Long getValue() {
+                            final Entry entry = entryAt(snapshot, rank);
+                            return entry == null ? null : entry.getCount();
+                        }
+                    });
+        }
+        return metrics.build();
+    }
+
+    private static Entry entryAt(final Supplier<List<Entry>> snapshot,
+            final int rank) {
+        final List<Entry> entries = snapshot.get();
+        return rank < entries.size() ? entries.get(rank) : null;
+    }
+
+    /**
+     * Gauge of one rank, remembering the tracker it reports, if it reports a
+     * single one
+     */
+    private abstract static class RankGauge<T> implements Gauge<T> {
+        private final TopAgentTracker tracker;
+
+        RankGauge(final TopAgentTracker tracker) {
+            this.tracker = tracker;
+        }
+    }
+}
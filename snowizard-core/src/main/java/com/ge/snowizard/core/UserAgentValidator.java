@@ -0,0 +1,83 @@
+package com.ge.snowizard.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Validates User-Agent headers: an agent must start with an ASCII letter,
+ * followed by any number of ASCII letters, digits and dashes. Verdicts are
+ * kept in a bounded cache, since traffic usually comes from a small set of
+ * agents; agents missing from the cache are checked with a hand-written
+ * scanner rather than a regular expression.
+ */
+public class UserAgentValidator {
+
+    public static final long DEFAULT_CACHE_SIZE = 1024L;
+
+    private final Cache<String, Boolean> verdicts;
+
+    /**
+     * Constructor, caching the verdicts for up to 1024 agents
+     */
+    public UserAgentValidator() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param cacheSize
+     *            Maximum number of agents to cache verdicts for
+     */
+    public UserAgentValidator(final long cacheSize) {
+        checkArgument(cacheSize >= 0, "cache size can't be negative");
+        this.verdicts = CacheBuilder.newBuilder().maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Check whether a User-Agent is valid
+     * 
+     * @param agent
+     *            User-Agent
+     * @return true if the agent is valid, otherwise false
+     */
+    public boolean isValid(final String agent) {
+        if (agent == null) {
+            return false;
+        }
+        final Boolean cached = verdicts.getIfPresent(agent);
+        if (cached != null) {
+            return cached;
+        }
+        final boolean valid = scan(agent);
+        verdicts.put(agent, valid);
+        return valid;
+    }
+
+    /**
+     * Check a User-Agent without going through the cache
+     * 
+     * @param agent
+     *            User-Agent
+     * @return true if the agent is valid, otherwise false
+     */
+    public static boolean scan(final String agent) {
+        final int length = agent.length();
+        if (length == 0 || !isLetter(agent.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            final char c = agent.charAt(i);
+            if (!isLetter(c) && !(c >= '0' && c <= '9') && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
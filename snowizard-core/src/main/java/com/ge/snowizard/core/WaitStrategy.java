@@ -0,0 +1,19 @@
+package com.ge.snowizard.core;
+
+/**
+ * Strategy used by a worker which has used up every sequence number in the
+ * current millisecond to wait for the clock to move on
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wait until the clock is past the given timestamp
+     * 
+     * @param lastTimestamp
+     *            Timestamp which has run out of sequence numbers
+     * @param clock
+     *            Clock to read
+     * @return First timestamp read which is greater than {@code lastTimestamp}
+     */
+    long waitUntilAfter(long lastTimestamp, TimeSource clock);
+}
@@ -0,0 +1,16 @@
+package com.ge.snowizard.core;
+
+/**
+ * Right of a worker to generate IDs under its worker ID, e.g. a lease taken
+ * out with a coordination service. Checked before every ID is generated, so
+ * implementations must answer without blocking.
+ */
+public interface WorkerIdLease {
+
+    /**
+     * Return whether the worker may currently generate IDs
+     * 
+     * @return true while the lease is held
+     */
+    boolean isValid();
+}
@@ -0,0 +1,30 @@
+package com.ge.snowizard.exceptions;
+
+/**
+ * Thrown when a worker no longer holds the lease on its worker ID. Unchecked,
+ * since losing the lease is an operational condition every caller of a
+ * generator would otherwise have to declare.
+ */
+public class WorkerIdUnavailable extends RuntimeException {
+
+    /**
+     * Version ID for serialization
+     */
+    private static final long serialVersionUID = 1L;
+
+    public WorkerIdUnavailable() {
+        super();
+    }
+
+    public WorkerIdUnavailable(final Throwable cause) {
+        super(cause);
+    }
+
+    public WorkerIdUnavailable(final String message) {
+        super(message);
+    }
+
+    public WorkerIdUnavailable(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class BusySpinWaitStrategyTest {
+
+    class SteppingTimeSource implements TimeSource {
+        public int reads = 0;
+
+        @Override
+        public long currentTimeMillis() {
+            reads++;
+            return reads < 500 ? 10L : 11L;
+        }
+    }
+
+    private final WaitStrategy strategy = new BusySpinWaitStrategy();
+
+    @Test
+    public void testWaitsForNextMillisecond() {
+        final SteppingTimeSource clock = new SteppingTimeSource();
+        assertThat(strategy.waitUntilAfter(10L, clock)).isEqualTo(11L);
+        assertThat(clock.reads).isEqualTo(500);
+    }
+
+    @Test
+    public void testReturnsImmediatelyWhenClockHasMoved() {
+        final SteppingTimeSource clock = new SteppingTimeSource();
+        assertThat(strategy.waitUntilAfter(9L, clock)).isEqualTo(10L);
+        assertThat(clock.reads).isEqualTo(1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+public class CachedTimeSourceTest {
+
+    private final CachedTimeSource source = new CachedTimeSource(100L,
+            TimeUnit.MICROSECONDS);
+
+    @After
+    public void tearDown() {
+        source.close();
+    }
+
+    @Test
+    public void testInvalidTick() {
+        try {
+            new CachedTimeSource(0L, TimeUnit.MILLISECONDS);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testAccurateTimestamp() throws Exception {
+        final long time = System.currentTimeMillis();
+        assertThat(Math.abs(source.currentTimeMillis() - time)).isLessThan(
+                50L);
+    }
+
+    @Test
+    public void testAdvances() throws Exception {
+        final long start = source.currentTimeMillis();
+        Thread.sleep(20L);
+        assertThat(source.currentTimeMillis()).isGreaterThan(start);
+    }
+
+    @Test
+    public void testStopsWhenClosed() throws Exception {
+        source.close();
+        final long stopped = source.currentTimeMillis();
+        Thread.sleep(20L);
+        assertThat(source.currentTimeMillis()).isEqualTo(stopped);
+    }
+
+    @Test
+    public void testGeneratesIds() throws Exception {
+        final IdWorker worker = new IdWorker(1, 1, source);
+        long lastId = 0L;
+        for (int i = 0; i < 100000; i++) {
+            final long id = worker.nextId();
+            assertThat(id).isGreaterThan(lastId);
+            lastId = id;
+        }
+    }
+}
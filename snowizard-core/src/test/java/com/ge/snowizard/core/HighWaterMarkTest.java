@@ -0,0 +1,141 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+
+public class HighWaterMarkTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNewFile() throws Exception {
+        final File file = new File(folder.getRoot(), "worker.hwm");
+        final HighWaterMark mark = new HighWaterMark(file, 300L,
+                TimeUnit.MILLISECONDS);
+        assertThat(mark.getRecorded()).isEqualTo(0L);
+        assertThat(mark.getReservedUntil()).isEqualTo(0L);
+        mark.close();
+        assertThat(file.length()).isEqualTo(8L);
+    }
+
+    @Test
+    public void testReservesAhead() throws Exception {
+        final File file = new File(folder.getRoot(), "worker.hwm");
+        final HighWaterMark mark = new HighWaterMark(file, 300L,
+                TimeUnit.MILLISECONDS);
+        mark.reserve(1000L);
+        assertThat(mark.getReservedUntil()).isEqualTo(1300L);
+        mark.reserve(1299L);
+        assertThat(mark.getReservedUntil()).isEqualTo(1300L);
+        mark.reserve(1300L);
+        assertThat(mark.getReservedUntil()).isEqualTo(1600L);
+        mark.close();
+
+        final HighWaterMark reopened = new HighWaterMark(file, 300L,
+                TimeUnit.MILLISECONDS);
+        assertThat(reopened.getRecorded()).isEqualTo(1600L);
+        reopened.close();
+    }
+
+    @Test
+    public void testRejectsForeignFile() throws Exception {
+        final File file = folder.newFile("other");
+        Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+        try {
+            new HighWaterMark(file, 300L, TimeUnit.MILLISECONDS);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testRestartedWorkerRejectsRollback() throws Exception {
+        final File file = new File(folder.getRoot(), "worker.hwm");
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1000L);
+
+        HighWaterMark mark = new HighWaterMark(file, 300L,
+                TimeUnit.MILLISECONDS);
+        IdWorker worker = IdWorker.builder(1, 1).timeSource(source)
+                .highWaterMark(mark).build();
+        final long last = worker.nextId();
+        mark.close();
+
+        source.set(IdWorker.TWEPOCH + 900L);
+        mark = new HighWaterMark(file, 300L, TimeUnit.MILLISECONDS);
+        worker = IdWorker.builder(1, 1).timeSource(source)
+                .highWaterMark(mark).build();
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock e) {
+        }
+
+        // still inside the reservation of the previous run
+        source.set(IdWorker.TWEPOCH + 1200L);
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock e) {
+        }
+
+        source.set(IdWorker.TWEPOCH + 1301L);
+        assertThat(worker.nextId()).isGreaterThan(last);
+        mark.close();
+    }
+
+    @Test
+    public void testRestartedLockFreeWorkerRejectsRollback() throws Exception {
+        final File file = new File(folder.getRoot(), "worker.hwm");
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1000L);
+
+        HighWaterMark mark = new HighWaterMark(file, 300L,
+                TimeUnit.MILLISECONDS);
+        IdWorker worker = IdWorker.builder(1, 1).timeSource(source)
+                .highWaterMark(mark).lockFree(true).build();
+        final long[] issued = worker.nextIds(10);
+        mark.close();
+
+        source.set(IdWorker.TWEPOCH + 1100L);
+        mark = new HighWaterMark(file, 300L, TimeUnit.MILLISECONDS);
+        worker = IdWorker.builder(1, 1).timeSource(source)
+                .highWaterMark(mark).lockFree(true).build();
+        try {
+            worker.nextIds(10);
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock e) {
+        }
+
+        source.set(IdWorker.TWEPOCH + 1300L);
+        assertThat(worker.nextId()).isGreaterThan(issued[9]);
+        mark.close();
+    }
+
+    @Test
+    public void testRestartedWorkerWaitsOutSmallRollback() throws Exception {
+        final File file = new File(folder.getRoot(), "worker.hwm");
+        final long now = System.currentTimeMillis();
+        final HighWaterMark previous = new HighWaterMark(file, 20L,
+                TimeUnit.MILLISECONDS);
+        previous.reserve(now);
+        previous.close();
+
+        final HighWaterMark mark = new HighWaterMark(file, 20L,
+                TimeUnit.MILLISECONDS);
+        final IdWorker worker = IdWorker.builder(1, 1).highWaterMark(mark)
+                .maxRollbackWait(1, TimeUnit.SECONDS).build();
+        final long id = worker.nextId();
+        assertThat((id >> 22) + IdWorker.TWEPOCH).isGreaterThanOrEqualTo(
+                now + 20L);
+        mark.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import org.junit.Test;
+
+public class IdDecoderTest {
+
+    @Test
+    public void testDecodeSingleId() throws Exception {
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 12345L);
+        final IdWorker worker = new IdWorker(7, 19, source);
+        worker.nextId();
+        final long id = worker.nextId();
+
+        final IdDecoder decoder = new IdDecoder();
+        assertThat(decoder.getTimestamp(id)).isEqualTo(
+                IdWorker.TWEPOCH + 12345L);
+        assertThat(decoder.getDatacenterId(id)).isEqualTo(19);
+        assertThat(decoder.getWorkerId(id)).isEqualTo(7);
+        assertThat(decoder.getSequence(id)).isEqualTo(1);
+    }
+
+    @Test
+    public void testDecodeCustomLayout() throws Exception {
+        final IdLayout layout = IdLayout.builder().epoch(1000L)
+                .timestampUnit(10L).datacenterIdBits(2).workerIdBits(6)
+                .sequenceBits(14).build();
+        final IdWorker worker = IdWorker.builder(40, 3).layout(layout)
+                .timeSource(new ManualTimeSource(1037L)).build();
+        final long[] ids = worker.nextIds(3);
+
+        final IdDecoder.Columns columns = new IdDecoder(layout).decode(ids);
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.getTimestamps()).containsOnly(1030L);
+        assertThat(columns.getDatacenterIds()).containsOnly(3);
+        assertThat(columns.getWorkerIds()).containsOnly(40);
+        assertThat(columns.getSequences()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void testDecodeRange() {
+        final IdDecoder decoder = new IdDecoder();
+        final long[] ids = { 1L << 22, (2L << 22) | (1L << 17) | 5L, 3L << 22 };
+        final long[] timestamps = new long[1];
+        final int[] datacenterIds = new int[1];
+        final int[] workerIds = new int[1];
+        final int[] sequences = new int[1];
+
+        decoder.decode(ids, 1, 1, timestamps, datacenterIds, workerIds,
+                sequences);
+        assertThat(timestamps[0]).isEqualTo(IdWorker.TWEPOCH + 2L);
+        assertThat(datacenterIds[0]).isEqualTo(1);
+        assertThat(workerIds[0]).isEqualTo(0);
+        assertThat(sequences[0]).isEqualTo(5);
+    }
+
+    @Test
+    public void testDecodeOutOfBounds() {
+        final IdDecoder decoder = new IdDecoder();
+        try {
+            decoder.decode(new long[2], 1, 2, new long[2], new int[2],
+                    new int[2], new int[2]);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+}
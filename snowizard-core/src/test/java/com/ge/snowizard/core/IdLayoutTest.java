@@ -0,0 +1,107 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import org.junit.Test;
+
+public class IdLayoutTest {
+
+    @Test
+    public void testDefaultMatchesSnowflake() {
+        final IdLayout layout = IdLayout.DEFAULT;
+        assertThat(layout.getEpoch()).isEqualTo(IdWorker.TWEPOCH);
+        assertThat(layout.getTimestampUnit()).isEqualTo(1L);
+        assertThat(layout.getWorkerIdShift()).isEqualTo(12);
+        assertThat(layout.getDatacenterIdShift()).isEqualTo(17);
+        assertThat(layout.getTimestampShift()).isEqualTo(22);
+        assertThat(layout.getMaxWorkerId()).isEqualTo(31L);
+        assertThat(layout.getMaxDatacenterId()).isEqualTo(31L);
+        assertThat(layout.getSequenceMask()).isEqualTo(0xFFFL);
+    }
+
+    @Test
+    public void testCustomLayout() {
+        final IdLayout layout = IdLayout.builder().epoch(1000L)
+                .timestampUnit(10L).datacenterIdBits(2).workerIdBits(6)
+                .sequenceBits(14).build();
+        assertThat(layout.getWorkerIdShift()).isEqualTo(14);
+        assertThat(layout.getDatacenterIdShift()).isEqualTo(20);
+        assertThat(layout.getTimestampShift()).isEqualTo(22);
+        assertThat(layout.getMaxWorkerId()).isEqualTo(63L);
+        assertThat(layout.getMaxDatacenterId()).isEqualTo(3L);
+        assertThat(layout.getSequenceMask()).isEqualTo(0x3FFFL);
+
+        assertThat(layout.truncate(1039L)).isEqualTo(1030L);
+        assertThat(layout.timestampBits(1030L)).isEqualTo(3L << 22);
+        assertThat(layout.nodeBits(2L, 5L)).isEqualTo(
+                (2L << 20) | (5L << 14));
+    }
+
+    @Test
+    public void testNoDatacenterBits() {
+        final IdLayout layout = IdLayout.builder().datacenterIdBits(0)
+                .workerIdBits(10).build();
+        assertThat(layout.getMaxDatacenterId()).isEqualTo(0L);
+        assertThat(layout.getMaxWorkerId()).isEqualTo(1023L);
+    }
+
+    @Test
+    public void testInvalidTimestampUnit() {
+        try {
+            IdLayout.builder().timestampUnit(5L).build();
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testInvalidSequenceBits() {
+        try {
+            IdLayout.builder().sequenceBits(0).build();
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testTooManyBits() {
+        try {
+            IdLayout.builder().datacenterIdBits(10).workerIdBits(10)
+                    .sequenceBits(13).build();
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testTimestampTooNarrow() {
+        // 31 timestamp bits last about 24 days, long since passed
+        try {
+            IdLayout.builder().datacenterIdBits(0).workerIdBits(10)
+                    .sequenceBits(22).build();
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage(
+                    "31 timestamp bits run out in less than 10 years");
+        }
+    }
+
+    @Test
+    public void testTimestampBitsFromRecentEpoch() {
+        final long now = System.currentTimeMillis();
+        final IdLayout layout = IdLayout.builder().epoch(now)
+                .datacenterIdBits(0).workerIdBits(1).sequenceBits(23).build();
+        assertThat(layout.getMaxTimestamp()).isEqualTo(now + (1L << 39) - 1);
+    }
+
+    @Test
+    public void testFutureEpoch() {
+        try {
+            IdLayout.builder()
+                    .epoch(System.currentTimeMillis() + 60000L).build();
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("epoch can't be in the future");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import org.junit.Test;
+
+public class IdRingTest {
+
+    @Test
+    public void testCapacityMustBePowerOfTwo() {
+        try {
+            new IdRing(12);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        final IdRing ring = new IdRing(4);
+        assertThat(ring.size()).isEqualTo(0);
+        assertThat(ring.peek()).isEqualTo(IdRing.EMPTY);
+        assertThat(ring.poll()).isEqualTo(IdRing.EMPTY);
+    }
+
+    @Test
+    public void testFifoAndWrapAround() {
+        final IdRing ring = new IdRing(4);
+        for (long i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4L)).isFalse();
+        assertThat(ring.size()).isEqualTo(4);
+
+        assertThat(ring.peek()).isEqualTo(0L);
+        assertThat(ring.poll()).isEqualTo(0L);
+        assertThat(ring.poll()).isEqualTo(1L);
+        assertThat(ring.offer(4L)).isTrue();
+        assertThat(ring.offer(5L)).isTrue();
+        assertThat(ring.offer(6L)).isFalse();
+
+        for (long i = 2; i < 6; i++) {
+            assertThat(ring.poll()).isEqualTo(i);
+        }
+        assertThat(ring.poll()).isEqualTo(IdRing.EMPTY);
+    }
+}
@@ -0,0 +1,120 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class IdWorkerLanesTest {
+    private static final String AGENT = "infra-dm";
+    private static final long WORKER_MASK = 0x000000000001F000L;
+
+    private final IdWorkerLanes lanes = new IdWorkerLanes(ImmutableList.of(
+            new IdWorker(1, 1), new IdWorker(2, 1), new LockFreeIdWorker(3,
+                    1), new LockFreeIdWorker(4, 1)));
+
+    @Test
+    public void testEmptyLanes() {
+        try {
+            new IdWorkerLanes(ImmutableList.<IdWorker> of());
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testDuplicateWorkerId() {
+        try {
+            new IdWorkerLanes(ImmutableList.of(new IdWorker(1, 1),
+                    new IdWorker(1, 1)));
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testMixedDatacenters() {
+        try {
+            new IdWorkerLanes(ImmutableList.of(new IdWorker(1, 1),
+                    new IdWorker(2, 2)));
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testThreadStaysOnLane() throws Exception {
+        final IdGenerator lane = lanes.lane();
+        assertThat(lanes.getDatacenterId()).isEqualTo(1);
+        for (int i = 0; i < 100; i++) {
+            final long id = lanes.getId(AGENT);
+            assertThat((id & WORKER_MASK) >> 12).isEqualTo(
+                    Long.valueOf(lane.getWorkerId()));
+        }
+        for (final long id : lanes.getIds(AGENT, 100)) {
+            assertThat((id & WORKER_MASK) >> 12).isEqualTo(
+                    Long.valueOf(lane.getWorkerId()));
+        }
+    }
+
+    @Test
+    public void testWorkerIdIsFirstLaneOnEveryThread() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> futures = Lists.newArrayList();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return lanes.getWorkerId();
+                    }
+                }));
+            }
+            for (final Future<Integer> future : futures) {
+                assertThat(future.get()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testGenerateUniqueIdsAcrossLanes() throws Exception {
+        final int threads = 8;
+        final int perThread = 50000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<long[]>> futures = Lists.newArrayList();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws Exception {
+                        final long[] ids = new long[perThread];
+                        for (int i = 0; i < perThread; i++) {
+                            ids[i] = lanes.getId(AGENT);
+                        }
+                        return ids;
+                    }
+                }));
+            }
+
+            final Set<Long> ids = Sets.newHashSet();
+            for (final Future<long[]> future : futures) {
+                for (final long id : future.get()) {
+                    ids.add(id);
+                }
+            }
+            assertThat(ids.size()).isEqualTo(threads * perThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -19,12 +19,20 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Test;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
 import com.ge.snowizard.core.IdWorker;
 import com.ge.snowizard.exceptions.InvalidSystemClock;
 import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.ge.snowizard.exceptions.WorkerIdUnavailable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -243,6 +251,160 @@ public class IdWorkerTest {
         assertThat(worker.slept).isEqualTo(1);
     }
 
+    @Test
+    public void testSequenceExhaustionUsesWaitStrategy() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1L);
+        final IdWorker worker = IdWorker.builder(1, 1).registry(registry)
+                .timeSource(source).waitStrategy(new WaitStrategy() {
+                    @Override
+                    public long waitUntilAfter(final long lastTimestamp,
+                            final TimeSource clock) {
+                        assertThat(clock.currentTimeMillis()).isEqualTo(
+                                lastTimestamp);
+                        return source.advance(1L);
+                    }
+                }).build();
+
+        worker.nextId();
+        worker.setSequence(4095L);
+        final long id = worker.nextId();
+
+        assertThat(id >> 22).isEqualTo(2L);
+        assertThat(
+                registry.timer(
+                        MetricRegistry.name(IdWorker.class,
+                                "sequence_exhaustion_waits")).getCount())
+                .isEqualTo(1L);
+    }
+
+    @Test
+    public void testSequenceUtilization() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1L);
+        final IdWorker worker = IdWorker.builder(1, 1).registry(registry)
+                .timeSource(source).build();
+
+        worker.nextIds(1024);
+        source.advance(1L);
+        worker.nextId();
+        source.advance(1L);
+        worker.nextId();
+
+        final Snapshot snapshot = registry.histogram(
+                MetricRegistry.name(IdWorker.class,
+                        "sequence_utilization_percent")).getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.getMax()).isEqualTo(25L);
+        assertThat(snapshot.getMin()).isEqualTo(1L);
+        assertThat(
+                registry.timer(
+                        MetricRegistry.name(IdWorker.class, "lock_waits"))
+                        .getCount()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testSequenceUtilizationResetsOnSnapshot() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1L);
+        final IdWorker worker = IdWorker.builder(1, 1).registry(registry)
+                .timeSource(source).build();
+        final Histogram histogram = registry.histogram(MetricRegistry.name(
+                IdWorker.class, "sequence_utilization_percent"));
+
+        worker.nextIds(2048);
+        source.advance(1L);
+        worker.nextId();
+        assertThat(histogram.getSnapshot().getMax()).isEqualTo(50L);
+
+        source.advance(1L);
+        worker.nextId();
+        final Snapshot snapshot = histogram.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.getMax()).isEqualTo(1L);
+        assertThat(histogram.getSnapshot().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testHistogramsSharedBetweenWorkers() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1L);
+        final TopAgentTracker topAgents = new TopAgentTracker();
+        final IdWorker worker1 = IdWorker.builder(1, 1).registry(registry)
+                .timeSource(source).topAgents(topAgents).build();
+        final IdWorker worker2 = IdWorker.builder(2, 1).registry(registry)
+                .timeSource(source).topAgents(topAgents).build();
+
+        worker1.nextId();
+        worker2.nextId();
+        source.advance(1L);
+        worker1.nextId();
+        worker2.nextId();
+
+        assertThat(
+                registry.histogram(
+                        MetricRegistry.name(IdWorker.class,
+                                "sequence_utilization_percent")).getCount())
+                .isEqualTo(2L);
+    }
+
+    @Test
+    public void testDefaultWorkersShareRegistry() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final IdWorker worker1 = IdWorker.builder(1, 1).registry(registry)
+                .build();
+        final IdWorker worker2 = IdWorker.builder(2, 1).registry(registry)
+                .build();
+        assertThat(worker2.getTopAgents()).isSameAs(worker1.getTopAgents());
+
+        worker1.getId("infra-dm");
+        worker2.getId("infra-dm");
+        assertThat(worker1.getTopAgents().getTopAgents().get(0).getCount())
+                .isEqualTo(2L);
+    }
+
+    @Test
+    public void testCustomLayout() throws Exception {
+        final IdLayout layout = IdLayout.builder().epoch(1000L)
+                .timestampUnit(10L).datacenterIdBits(2).workerIdBits(6)
+                .sequenceBits(14).build();
+        final ManualTimeSource source = new ManualTimeSource(1037L);
+        final IdWorker worker = IdWorker.builder(40, 3).layout(layout)
+                .timeSource(source).build();
+        assertThat(worker.getLayout()).isSameAs(layout);
+
+        final long id1 = worker.nextId();
+        assertThat(id1 >> 22).isEqualTo(3L);
+        assertThat((id1 >> 20) & 0x3L).isEqualTo(3L);
+        assertThat((id1 >> 14) & 0x3FL).isEqualTo(40L);
+        assertThat(id1 & 0x3FFFL).isEqualTo(0L);
+
+        // same 10 ms unit, so the sequence carries on
+        source.set(1039L);
+        assertThat(worker.nextId()).isEqualTo(id1 + 1);
+
+        source.set(1040L);
+        final long id3 = worker.nextId();
+        assertThat(id3 >> 22).isEqualTo(4L);
+        assertThat(id3 & 0x3FFFL).isEqualTo(0L);
+    }
+
+    @Test
+    public void testWorkerIdMustFitLayout() {
+        final IdLayout layout = IdLayout.builder().workerIdBits(3).build();
+        try {
+            IdWorker.builder(8, 1).layout(layout).build();
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage(
+                    "worker Id can't be greater than 7 or less than 0");
+        }
+    }
+
     @Test
     public void testGenerateUniqueIds() throws Exception {
         final IdWorker worker = new IdWorker(31, 31);
@@ -303,6 +465,227 @@ public class IdWorkerTest {
         assertThat(id3 & sequenceMask).isEqualTo(2L);
     }
 
+    @Test
+    public void testAbsorbsSmallRollback() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final List<Long> times = Lists.newArrayList(10L, 8L, 9L, 10L);
+        final IdWorker worker = new IdWorker(IdWorker.builder(1, 1)
+                .registry(registry)
+                .maxRollbackWait(100, TimeUnit.MILLISECONDS)) {
+            @Override
+            protected long timeGen() {
+                return times.remove(0);
+            }
+        };
+
+        final long id1 = worker.nextId();
+        final long id2 = worker.nextId();
+        assertThat(times).isEmpty();
+        assertThat(id2 >> 22).isEqualTo(10L - IdWorker.TWEPOCH);
+        assertThat(id2).isEqualTo(id1 + 1);
+        assertThat(
+                registry.counter(
+                        MetricRegistry.name(IdWorker.class,
+                                "clock_rollbacks_absorbed")).getCount())
+                .isEqualTo(1L);
+        assertThat(
+                registry.histogram(
+                        MetricRegistry.name(IdWorker.class,
+                                "clock_rollback_absorbed_ms")).getSnapshot()
+                        .getMax()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testRejectsLargeRollback() throws Exception {
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 100L);
+        final IdWorker worker = IdWorker.builder(1, 1).timeSource(source)
+                .maxRollbackWait(5, TimeUnit.MILLISECONDS).build();
+        worker.nextId();
+
+        source.set(IdWorker.TWEPOCH + 90L);
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock ex) {
+            assertThat(worker.getSequence()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void testRollbackWaitTimesOut() throws Exception {
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 100L);
+        final IdWorker worker = IdWorker.builder(1, 1).timeSource(source)
+                .maxRollbackWait(5, TimeUnit.MILLISECONDS).build();
+        worker.nextId();
+
+        // the clock never catches up while we wait
+        source.set(IdWorker.TWEPOCH + 97L);
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock ex) {
+            assertThat(worker.getSequence()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void testBuilder() throws Exception {
+        final IdWorker worker = IdWorker.builder(3, 4).startSequence(7L)
+                .validateUserAgent(false).lockFree(true).build();
+        assertThat(worker).isInstanceOf(LockFreeIdWorker.class);
+        assertThat(worker.getWorkerId()).isEqualTo(3);
+        assertThat(worker.getDatacenterId()).isEqualTo(4);
+        assertThat(worker.getSequence()).isEqualTo(7L);
+        worker.getId("not a valid agent");
+
+        assertThat(IdWorker.builder(3, 4).build().getClass()).isEqualTo(
+                IdWorker.class);
+    }
+
+    @Test
+    public void testNextIdsSpansMilliseconds() throws Exception {
+        final EasyTimeWorker worker = new EasyTimeWorker(1, 1);
+        worker.addTimestamp(10L);
+        worker.addTimestamp(11L);
+        worker.addTimestamp(12L);
+
+        final long[] ids = worker.nextIds(10000);
+        assertThat(worker.queue).isEmpty();
+        for (int i = 0; i < ids.length; i++) {
+            assertThat(ids[i] >> 22).isEqualTo(10L + (i / 4096) - IdWorker.TWEPOCH);
+            assertThat(ids[i] & 0xFFFL).isEqualTo(i % 4096L);
+        }
+        assertThat(worker.getSequence() & 0xFFFL).isEqualTo((10000 - 1) % 4096L);
+    }
+
+    @Test
+    public void testNextIdsContinuesSequence() throws Exception {
+        final StaticTimeWorker worker = new StaticTimeWorker(1, 1);
+        final long first = worker.nextId();
+        final long[] ids = worker.nextIds(5);
+        final long next = worker.nextId();
+
+        long lastId = first;
+        for (final long id : ids) {
+            assertThat(id).isEqualTo(lastId + 1);
+            lastId = id;
+        }
+        assertThat(next).isEqualTo(lastId + 1);
+    }
+
+    @Test
+    public void testNextIdsIntoDirectBuffer() throws Exception {
+        final IdWorker worker = new IdWorker(1, 1);
+        final LongBuffer buffer = ByteBuffer.allocateDirect(20000 * 8)
+                .asLongBuffer();
+        buffer.position(100);
+        worker.nextIds(buffer);
+        assertThat(buffer.remaining()).isEqualTo(0);
+
+        buffer.position(100);
+        long lastId = 0L;
+        while (buffer.hasRemaining()) {
+            final long id = buffer.get();
+            assertThat(id).isGreaterThan(lastId);
+            lastId = id;
+        }
+    }
+
+    @Test
+    public void testGetIdsUpdatesCountersOnce() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final IdWorker worker = new IdWorker(1, 1, 0L, true, registry);
+        final long[] ids = new long[1010];
+        worker.getIds("infra-dm", ids, 5, 1000);
+
+        assertThat(ids[4]).isEqualTo(0L);
+        assertThat(ids[5]).isGreaterThan(0L);
+        assertThat(ids[1004]).isGreaterThan(ids[5]);
+        assertThat(ids[1005]).isEqualTo(0L);
+        assertThat(
+                registry.counter(
+                        MetricRegistry.name(IdWorker.class, "ids_generated"))
+                        .getCount()).isEqualTo(1000L);
+    }
+
+    @Test
+    public void testCountsIdsPerAgent() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final IdWorker worker = new IdWorker(1, 1, 0L, true, registry);
+        worker.getId("infra-dm");
+        worker.getIds("infra-dm", 9);
+        worker.getId("infra-other");
+
+        assertThat(
+                registry.getGauges()
+                        .get(MetricRegistry.name(IdWorker.class, "top_agents",
+                                "1", "name")).getValue()).isEqualTo(
+                "infra-dm");
+        assertThat(worker.getTopAgents().getTopAgents().get(0).getCount())
+                .isEqualTo(10L);
+        assertThat(registry.getCounters().keySet()).doesNotContain(
+                MetricRegistry.name(IdWorker.class, "ids_generated_infra-dm"));
+    }
+
+    @Test
+    public void testSharedTopAgents() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final TopAgentTracker topAgents = new TopAgentTracker();
+        final IdWorker worker1 = IdWorker.builder(1, 1).registry(registry)
+                .topAgents(topAgents).build();
+        final IdWorker worker2 = IdWorker.builder(2, 1).registry(registry)
+                .topAgents(topAgents).build();
+        worker1.getId("infra-dm");
+        worker2.getId("infra-dm");
+
+        assertThat(topAgents.getTopAgents().get(0).getCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testGetIdsInvalidUserAgent() throws Exception {
+        final IdWorker worker = new IdWorker(1, 1);
+        try {
+            worker.getIds("1", 10);
+            failBecauseExceptionWasNotThrown(InvalidUserAgentError.class);
+        } catch (InvalidUserAgentError e) {
+        }
+    }
+
+    @Test
+    public void testLostLeaseStopsGeneration() throws Exception {
+        final AtomicBoolean held = new AtomicBoolean(true);
+        final WorkerIdLease lease = new WorkerIdLease() {
+            @Override
+            public boolean isValid() {
+                return held.get();
+            }
+        };
+        final IdWorker worker = IdWorker.builder(1, 1).lease(lease).build();
+        final IdWorker lockFree = IdWorker.builder(2, 1).lease(lease)
+                .lockFree(true).build();
+        assertThat(worker.nextId()).isGreaterThan(0L);
+        assertThat(lockFree.nextId()).isGreaterThan(0L);
+
+        held.set(false);
+        for (final IdWorker w : Lists.newArrayList(worker, lockFree)) {
+            try {
+                w.nextId();
+                failBecauseExceptionWasNotThrown(WorkerIdUnavailable.class);
+            } catch (WorkerIdUnavailable e) {
+            }
+            try {
+                w.nextIds(10);
+                failBecauseExceptionWasNotThrown(WorkerIdUnavailable.class);
+            } catch (WorkerIdUnavailable e) {
+            }
+        }
+
+        held.set(true);
+        assertThat(worker.nextIds(10)).hasSize(10);
+    }
+
     @Test
     public void testValidUserAgent() throws Exception {
         final IdWorker worker = new IdWorker(1, 1);
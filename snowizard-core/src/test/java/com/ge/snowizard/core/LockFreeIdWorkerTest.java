@@ -0,0 +1,286 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class LockFreeIdWorkerTest {
+    private static final long WORKER_MASK = 0x000000000001F000L;
+    private static final long DATACENTER_MASK = 0x00000000003E0000L;
+    private static final long TIMESTAMP_MASK = 0xFFFFFFFFFFC00000L;
+    private static final long SEQUENCE_MASK = -1L ^ (-1L << 12);
+
+    class EasyTimeWorker extends LockFreeIdWorker {
+        public List<Long> queue = Lists.newArrayList();
+        public int slept = 0;
+
+        public EasyTimeWorker(final Integer workerId, final Integer datacenterId) {
+            super(workerId, datacenterId);
+        }
+
+        public void addTimestamp(final Long timestamp) {
+            queue.add(timestamp);
+        }
+
+        @Override
+        protected long timeGen() {
+            return queue.remove(0);
+        }
+
+        @Override
+        protected long tilNextMillis(final long lastTimestamp) {
+            slept += 1;
+            return super.tilNextMillis(lastTimestamp);
+        }
+    }
+
+    class StaticTimeWorker extends LockFreeIdWorker {
+        public long time = 1L;
+
+        public StaticTimeWorker(final Integer workerId,
+                final Integer datacenterId) {
+            super(workerId, datacenterId);
+        }
+
+        @Override
+        protected long timeGen() {
+            return time + TWEPOCH;
+        }
+    }
+
+    @Test
+    public void testMaskWorkerAndDatacenterId() throws Exception {
+        final IdWorker worker = new LockFreeIdWorker(0x1F, 0x0A);
+        for (int i = 0; i < 1000; i++) {
+            final long id = worker.nextId();
+            assertThat((id & WORKER_MASK) >> 12).isEqualTo(0x1FL);
+            assertThat((id & DATACENTER_MASK) >> 17).isEqualTo(0x0AL);
+        }
+    }
+
+    @Test
+    public void testMaskTimestamp() throws Exception {
+        final EasyTimeWorker worker = new EasyTimeWorker(31, 31);
+        for (int i = 0; i < 100; i++) {
+            final long timestamp = System.currentTimeMillis();
+            worker.addTimestamp(timestamp);
+            final long id = worker.nextId();
+            assertThat((id & TIMESTAMP_MASK) >> 22).isEqualTo(
+                    timestamp - IdWorker.TWEPOCH);
+        }
+    }
+
+    @Test
+    public void testMatchesSynchronizedLayout() throws Exception {
+        final StaticTimeWorker lockFree = new StaticTimeWorker(3, 7);
+        final IdWorker locked = new IdWorker(3, 7) {
+            @Override
+            protected long timeGen() {
+                return 1L + TWEPOCH;
+            }
+        };
+        for (int i = 0; i < 100; i++) {
+            assertThat(lockFree.nextId()).isEqualTo(locked.nextId());
+        }
+    }
+
+    @Test
+    public void testSleep() throws Exception {
+        final EasyTimeWorker worker = new EasyTimeWorker(1, 1);
+        worker.addTimestamp(2L);
+        worker.addTimestamp(2L);
+        worker.addTimestamp(3L);
+
+        worker.setSequence(4095L);
+        worker.nextId();
+        worker.setSequence(4095L);
+        final long id = worker.nextId();
+
+        assertThat(worker.slept).isEqualTo(1);
+        assertThat(id & SEQUENCE_MASK).isEqualTo(0L);
+        assertThat(id >> 22).isEqualTo(3L - IdWorker.TWEPOCH);
+    }
+
+    @Test
+    public void testUniqueIdsBackwardsTime() throws Exception {
+        final StaticTimeWorker worker = new StaticTimeWorker(0, 0);
+
+        final long id1 = worker.nextId();
+        assertThat(id1 >> 22).isEqualTo(1L);
+        assertThat(id1 & SEQUENCE_MASK).isEqualTo(0L);
+
+        final long id2 = worker.nextId();
+        assertThat(id2 >> 22).isEqualTo(1L);
+        assertThat(id2 & SEQUENCE_MASK).isEqualTo(1L);
+
+        worker.time = 0L;
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock ex) {
+            assertThat(worker.getSequence()).isEqualTo(1L);
+        }
+
+        worker.time = 1L;
+        final long id3 = worker.nextId();
+        assertThat(id3 >> 22).isEqualTo(1L);
+        assertThat(id3 & SEQUENCE_MASK).isEqualTo(2L);
+    }
+
+    @Test
+    public void testAbsorbsSmallRollback() throws Exception {
+        final List<Long> times = Lists.newArrayList(10L, 8L, 10L);
+        final IdWorker worker = new LockFreeIdWorker(IdWorker.builder(1, 1)
+                .maxRollbackWait(100, TimeUnit.MILLISECONDS)) {
+            @Override
+            protected long timeGen() {
+                return times.remove(0);
+            }
+        };
+
+        final long id1 = worker.nextId();
+        final long id2 = worker.nextId();
+        assertThat(times).isEmpty();
+        assertThat(id2).isEqualTo(id1 + 1);
+    }
+
+    @Test
+    public void testSequenceUtilization() throws Exception {
+        final MetricRegistry registry = new MetricRegistry();
+        final ManualTimeSource source = new ManualTimeSource(
+                IdWorker.TWEPOCH + 1L);
+        final IdWorker worker = new LockFreeIdWorker(IdWorker.builder(1, 1)
+                .registry(registry).timeSource(source));
+
+        worker.nextIds(2048);
+        source.advance(1L);
+        worker.nextId();
+
+        final Snapshot snapshot = registry.histogram(
+                MetricRegistry.name(IdWorker.class,
+                        "sequence_utilization_percent")).getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.getMax()).isEqualTo(50L);
+    }
+
+    @Test
+    public void testCustomLayout() throws Exception {
+        final IdLayout layout = IdLayout.builder().datacenterIdBits(1)
+                .workerIdBits(4).sequenceBits(17).build();
+        final IdWorker worker = new LockFreeIdWorker(IdWorker.builder(9, 1)
+                .layout(layout).timeSource(
+                        new ManualTimeSource(IdWorker.TWEPOCH + 5L)));
+
+        final long[] ids = worker.nextIds(100000);
+        for (int i = 0; i < ids.length; i++) {
+            assertThat(ids[i] >> 22).isEqualTo(5L);
+            assertThat((ids[i] >> 17) & 0xFL).isEqualTo(9L);
+            assertThat(ids[i] & 0x1FFFFL).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testTooManySequenceBits() {
+        final IdLayout layout = IdLayout.builder()
+                .epoch(System.currentTimeMillis()).datacenterIdBits(0)
+                .workerIdBits(1).sequenceBits(23).build();
+        try {
+            new LockFreeIdWorker(IdWorker.builder(1, 0).layout(layout));
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testGenerateUniqueIds() throws Exception {
+        final IdWorker worker = new LockFreeIdWorker(31, 31);
+        final Set<Long> ids = Sets.newHashSet();
+        final int count = 2000000;
+        long lastId = 0L;
+        for (int i = 0; i < count; i++) {
+            final long id = worker.nextId();
+            assertThat(id).isGreaterThan(lastId);
+            ids.add(id);
+            lastId = id;
+        }
+        assertThat(ids.size()).isEqualTo(count);
+    }
+
+    @Test
+    public void testNextIdsSpansMilliseconds() throws Exception {
+        final EasyTimeWorker worker = new EasyTimeWorker(1, 1);
+        worker.addTimestamp(10L);
+        worker.addTimestamp(11L);
+        worker.addTimestamp(12L);
+
+        final long[] ids = worker.nextIds(10000);
+        assertThat(worker.queue).isEmpty();
+        for (int i = 0; i < ids.length; i++) {
+            assertThat(ids[i] >> 22).isEqualTo(
+                    10L + (i / 4096) - IdWorker.TWEPOCH);
+            assertThat(ids[i] & SEQUENCE_MASK).isEqualTo(i % 4096L);
+        }
+        assertThat(worker.getSequence()).isEqualTo((10000 - 1) % 4096L);
+    }
+
+    @Test
+    public void testNextIdsContinuesSequence() throws Exception {
+        final StaticTimeWorker worker = new StaticTimeWorker(1, 1);
+        final long first = worker.nextId();
+        final long[] ids = worker.nextIds(5);
+        final long next = worker.nextId();
+
+        long lastId = first;
+        for (final long id : ids) {
+            assertThat(id).isEqualTo(lastId + 1);
+            lastId = id;
+        }
+        assertThat(next).isEqualTo(lastId + 1);
+    }
+
+    @Test
+    public void testGenerateUniqueIdsConcurrently() throws Exception {
+        final IdWorker worker = new LockFreeIdWorker(1, 1);
+        final int threads = 8;
+        final int perThread = 100000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<long[]>> futures = Lists.newArrayList();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws Exception {
+                        final long[] ids = new long[perThread];
+                        for (int i = 0; i < perThread; i += 100) {
+                            ids[i] = worker.nextId();
+                            worker.getIds("infra-dm", ids, i + 1, 99);
+                        }
+                        return ids;
+                    }
+                }));
+            }
+
+            final Set<Long> ids = Sets.newHashSet();
+            for (final Future<long[]> future : futures) {
+                for (final long id : future.get()) {
+                    ids.add(id);
+                }
+            }
+            assertThat(ids.size()).isEqualTo(threads * perThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
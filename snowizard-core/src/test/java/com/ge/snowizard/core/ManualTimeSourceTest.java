@@ -0,0 +1,46 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import org.junit.Test;
+import com.ge.snowizard.exceptions.InvalidSystemClock;
+
+public class ManualTimeSourceTest {
+
+    private final ManualTimeSource source = new ManualTimeSource(
+            IdWorker.TWEPOCH + 1L);
+
+    @Test
+    public void testSetAndAdvance() {
+        assertThat(source.currentTimeMillis()).isEqualTo(IdWorker.TWEPOCH + 1L);
+        source.set(5L);
+        assertThat(source.currentTimeMillis()).isEqualTo(5L);
+        assertThat(source.advance(3L)).isEqualTo(8L);
+        assertThat(source.currentTimeMillis()).isEqualTo(8L);
+    }
+
+    @Test
+    public void testDrivesWorker() throws Exception {
+        final IdWorker worker = new IdWorker(0, 0, source);
+        assertThat(worker.getTimestamp()).isEqualTo(IdWorker.TWEPOCH + 1L);
+
+        final long id1 = worker.nextId();
+        assertThat(id1 >> 22).isEqualTo(1L);
+        assertThat(id1 & 0xFFFL).isEqualTo(0L);
+
+        final long id2 = worker.nextId();
+        assertThat(id2).isEqualTo(id1 + 1);
+
+        source.advance(1L);
+        final long id3 = worker.nextId();
+        assertThat(id3 >> 22).isEqualTo(2L);
+        assertThat(id3 & 0xFFFL).isEqualTo(0L);
+
+        source.advance(-1L);
+        try {
+            worker.nextId();
+            failBecauseExceptionWasNotThrown(InvalidSystemClock.class);
+        } catch (InvalidSystemClock e) {
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import com.codahale.metrics.MetricRegistry;
+
+public class MonotonicTimeSourceTest {
+
+    class FakeClockTimeSource extends MonotonicTimeSource {
+        public long wall = 0L;
+        public long nanos = 0L;
+
+        public FakeClockTimeSource(final MetricRegistry registry) {
+            super(100L, TimeUnit.MILLISECONDS, 1L, registry);
+        }
+
+        public void elapse(final long millis) {
+            wall += millis;
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        protected long wallClockMillis() {
+            return wall;
+        }
+
+        @Override
+        protected long nanoTime() {
+            return nanos;
+        }
+    }
+
+    private MetricRegistry registry;
+    private FakeClockTimeSource source;
+
+    @Before
+    public void setUp() {
+        registry = new MetricRegistry();
+        source = new FakeClockTimeSource(registry);
+    }
+
+    @Test
+    public void testFollowsMonotonicClock() {
+        assertThat(source.currentTimeMillis()).isEqualTo(0L);
+        source.elapse(42L);
+        assertThat(source.currentTimeMillis()).isEqualTo(42L);
+    }
+
+    @Test
+    public void testJumpsForwardOnResync() {
+        source.wall += 500L;
+        assertThat(source.getWallClockOffset()).isEqualTo(500L);
+
+        // not due for a resync yet
+        source.elapse(10L);
+        assertThat(source.currentTimeMillis()).isEqualTo(10L);
+
+        source.elapse(100L);
+        assertThat(source.currentTimeMillis()).isEqualTo(610L);
+        assertThat(source.getWallClockOffset()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testNeverMovesBackwards() {
+        source.elapse(50L);
+        final long before = source.currentTimeMillis();
+
+        // NTP steps the wall clock back
+        source.wall -= 5L;
+        long last = before;
+        for (int i = 0; i < 1000; i++) {
+            source.elapse(1L);
+            final long now = source.currentTimeMillis();
+            assertThat(now).isGreaterThanOrEqualTo(last);
+            last = now;
+        }
+        assertThat(source.getWallClockOffset()).isEqualTo(0L);
+        assertThat(
+                registry.counter(
+                        MetricRegistry.name(MonotonicTimeSource.class,
+                                "skew_absorbed_ms")).getCount()).isEqualTo(5L);
+    }
+
+    @Test
+    public void testSlewsGradually() {
+        source.wall -= 5L;
+        source.elapse(100L);
+        assertThat(source.currentTimeMillis()).isEqualTo(99L);
+        assertThat(source.getWallClockOffset()).isEqualTo(-4L);
+    }
+
+    @Test
+    public void testWallClockOffsetGauge() {
+        source.wall += 7L;
+        assertThat(
+                registry.getGauges()
+                        .get(MetricRegistry.name(MonotonicTimeSource.class,
+                                "wall_clock_offset_ms")).getValue())
+                .isEqualTo(7L);
+    }
+}
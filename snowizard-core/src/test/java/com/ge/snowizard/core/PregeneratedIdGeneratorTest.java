@@ -0,0 +1,168 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.ge.snowizard.exceptions.InvalidUserAgentError;
+import com.google.common.collect.Sets;
+
+public class PregeneratedIdGeneratorTest {
+    private static final String AGENT = "infra-dm";
+    private static final String PREFIX = MetricRegistry.name(
+            PregeneratedIdGenerator.class, "1");
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private final ManualTimeSource source = new ManualTimeSource(
+            IdWorker.TWEPOCH + 1000L);
+    private final IdWorker worker = IdWorker.builder(1, 1)
+            .timeSource(source).build();
+    private final IdDecoder decoder = new IdDecoder(IdLayout.DEFAULT);
+    private PregeneratedIdGenerator generator;
+
+    @After
+    public void tearDown() {
+        if (generator != null) {
+            generator.close();
+        }
+    }
+
+    @Test
+    public void testFillsRing() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        awaitFill(16);
+
+        assertThat(registry.meter(MetricRegistry.name(PREFIX, "refills"))
+                .getCount()).isEqualTo(16L);
+        assertThat(generator.getWorker()).isSameAs(worker);
+        assertThat(generator.getWorkerId()).isEqualTo(1);
+        assertThat(generator.getDatacenterId()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIdsAreUnique() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        awaitFill(16);
+
+        final Set<Long> ids = Sets.newHashSet();
+        for (int i = 0; i < 10; i++) {
+            assertThat(ids.add(generator.getId(AGENT))).isTrue();
+        }
+        for (final long id : generator.getIds(AGENT, 100)) {
+            assertThat(ids.add(id)).isTrue();
+        }
+        assertThat(ids).hasSize(110);
+    }
+
+    @Test
+    public void testDiscardsStaleIds() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        awaitFill(16);
+
+        final long now = source.advance(10L);
+        final long id = generator.getId(AGENT);
+
+        assertThat(decoder.getTimestamp(id)).isEqualTo(now);
+        assertThat(registry.counter(MetricRegistry.name(PREFIX,
+                "stale_discards")).getCount()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testRefillsWhatWasTaken() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        awaitFill(16);
+
+        generator.getIds(AGENT, 4);
+        awaitFill(16);
+        assertThat(registry.meter(MetricRegistry.name(PREFIX, "refills"))
+                .getCount()).isEqualTo(20L);
+    }
+
+    @Test
+    public void testStopsRefillingWhenIdle() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        awaitFill(16);
+
+        source.advance(10L);
+        awaitFill(0);
+        Thread.sleep(20L);
+        assertThat(fill()).isEqualTo(0);
+        assertThat(registry.meter(MetricRegistry.name(PREFIX, "refills"))
+                .getCount()).isEqualTo(16L);
+        assertThat(registry.counter(MetricRegistry.name(PREFIX,
+                "stale_discards")).getCount()).isEqualTo(16L);
+
+        // demand resumes the refills
+        generator.getIds(AGENT, 4);
+        awaitFill(4);
+    }
+
+    @Test
+    public void testLeavesSequenceSpaceToRequests() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 4096, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        awaitFill(2048);
+        Thread.sleep(20L);
+        assertThat(fill()).isEqualTo(2048);
+
+        // the rest of the millisecond is still available to the worker
+        assertThat(decoder.getTimestamp(worker.nextIds(2048)[2047]))
+                .isEqualTo(source.currentTimeMillis());
+
+        source.advance(1L);
+        awaitFill(4096);
+    }
+
+    @Test
+    public void testFallsBackToWorker() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        generator.close();
+        while (fill() > 0) {
+            generator.getId(AGENT);
+        }
+
+        final long id = generator.getId(AGENT);
+        assertThat(decoder.getWorkerId(id)).isEqualTo(1);
+        assertThat(registry.counter(MetricRegistry.name(PREFIX, "misses"))
+                .getCount()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testInvalidUserAgent() throws Exception {
+        generator = new PregeneratedIdGenerator(worker, 16, 5L,
+                TimeUnit.MILLISECONDS, registry);
+        try {
+            generator.getId("1");
+            failBecauseExceptionWasNotThrown(InvalidUserAgentError.class);
+        } catch (InvalidUserAgentError e) {
+        }
+        try {
+            generator.getIds("1", 2);
+            failBecauseExceptionWasNotThrown(InvalidUserAgentError.class);
+        } catch (InvalidUserAgentError e) {
+        }
+    }
+
+    private int fill() {
+        return (Integer) ((Gauge<?>) registry.getGauges().get(
+                MetricRegistry.name(PREFIX, "fill"))).getValue();
+    }
+
+    private void awaitFill(final int expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (fill() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertThat(fill()).isEqualTo(expected);
+    }
+}
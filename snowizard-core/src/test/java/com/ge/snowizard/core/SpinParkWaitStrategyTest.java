@@ -0,0 +1,44 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class SpinParkWaitStrategyTest {
+
+    class SteppingTimeSource implements TimeSource {
+        public int reads = 0;
+
+        @Override
+        public long currentTimeMillis() {
+            reads++;
+            return reads < 500 ? 10L : 11L;
+        }
+    }
+
+    private final WaitStrategy strategy = new SpinParkWaitStrategy(10, 10, TimeUnit.MICROSECONDS);
+
+    @Test
+    public void testWaitsForNextMillisecond() {
+        final SteppingTimeSource clock = new SteppingTimeSource();
+        assertThat(strategy.waitUntilAfter(10L, clock)).isEqualTo(11L);
+        assertThat(clock.reads).isEqualTo(500);
+    }
+
+    @Test
+    public void testReturnsImmediatelyWhenClockHasMoved() {
+        final SteppingTimeSource clock = new SteppingTimeSource();
+        assertThat(strategy.waitUntilAfter(9L, clock)).isEqualTo(10L);
+        assertThat(clock.reads).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidParkInterval() {
+        try {
+            new SpinParkWaitStrategy(10, 1, TimeUnit.MILLISECONDS);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
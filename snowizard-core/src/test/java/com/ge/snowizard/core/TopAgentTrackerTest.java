@@ -0,0 +1,136 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import java.util.List;
+import org.junit.Test;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+
+public class TopAgentTrackerTest {
+
+    @Test
+    public void testCountsAgents() {
+        final TopAgentTracker tracker = new TopAgentTracker(4);
+        tracker.add("infra-dm", 5L);
+        tracker.add("infra-other", 1L);
+        tracker.add("infra-dm", 2L);
+
+        final List<TopAgentTracker.Entry> top = tracker.getTopAgents();
+        assertThat(top).hasSize(2);
+        assertThat(top.get(0).getAgent()).isEqualTo("infra-dm");
+        assertThat(top.get(0).getCount()).isEqualTo(7L);
+        assertThat(top.get(0).getError()).isEqualTo(0L);
+        assertThat(top.get(1).getAgent()).isEqualTo("infra-other");
+        assertThat(top.get(1).getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testKeepsHeavyHittersUnderRandomAgents() {
+        final TopAgentTracker tracker = new TopAgentTracker(8);
+        for (int i = 0; i < 100000; i++) {
+            tracker.add("random-" + i, 1L);
+            if (i % 4 == 0) {
+                tracker.add("heavy", 1L);
+            }
+        }
+
+        final List<TopAgentTracker.Entry> top = tracker.getTopAgents();
+        assertThat(top).hasSize(8);
+        assertThat(top.get(0).getAgent()).isEqualTo("heavy");
+        assertThat(top.get(0).getCount()).isGreaterThanOrEqualTo(25000L);
+        assertThat(top.get(0).getCount() - top.get(0).getError())
+                .isLessThanOrEqualTo(25000L);
+    }
+
+    @Test
+    public void testRegistersFixedNumberOfGauges() {
+        final MetricRegistry registry = new MetricRegistry();
+        final TopAgentTracker tracker = new TopAgentTracker(3);
+        registry.register("top", tracker);
+        for (int i = 0; i < 1000; i++) {
+            tracker.add("agent-" + i, i);
+        }
+
+        assertThat(registry.getNames()).hasSize(6);
+        final Gauge<?> name = registry.getGauges().get("top.1.name");
+        final Gauge<?> count = registry.getGauges().get("top.1.count");
+        assertThat(name.getValue()).isEqualTo("agent-999");
+        assertThat(count.getValue()).isEqualTo(
+                tracker.getTopAgents().get(0).getCount());
+    }
+
+    @Test
+    public void testMergesTrackers() {
+        final TopAgentTracker lane1 = new TopAgentTracker(4);
+        final TopAgentTracker lane2 = new TopAgentTracker(4);
+        lane1.add("infra-dm", 5L);
+        lane1.add("infra-other", 1L);
+        lane2.add("infra-dm", 2L);
+        lane2.add("infra-third", 3L);
+
+        final List<TopAgentTracker.Entry> top = TopAgentTracker.merge(
+                ImmutableList.of(lane1, lane2), 4);
+        assertThat(top).hasSize(3);
+        assertThat(top.get(0).getAgent()).isEqualTo("infra-dm");
+        assertThat(top.get(0).getCount()).isEqualTo(7L);
+        assertThat(top.get(0).getError()).isEqualTo(0L);
+        assertThat(top.get(1).getAgent()).isEqualTo("infra-third");
+        assertThat(top.get(1).getCount()).isEqualTo(3L);
+        assertThat(top.get(2).getAgent()).isEqualTo("infra-other");
+    }
+
+    @Test
+    public void testMergeBoundsAgentsMissingFromFullTracker() {
+        final TopAgentTracker lane1 = new TopAgentTracker(2);
+        final TopAgentTracker lane2 = new TopAgentTracker(2);
+        lane1.add("heavy", 10L);
+        lane1.add("light", 2L);
+        lane2.add("other", 4L);
+
+        final List<TopAgentTracker.Entry> top = TopAgentTracker.merge(
+                ImmutableList.of(lane1, lane2), 2);
+        assertThat(top).hasSize(2);
+        assertThat(top.get(0).getAgent()).isEqualTo("heavy");
+        assertThat(top.get(0).getCount()).isEqualTo(10L);
+        // lane1 may have evicted "other" with a count of up to 2
+        assertThat(top.get(1).getAgent()).isEqualTo("other");
+        assertThat(top.get(1).getCount()).isEqualTo(6L);
+        assertThat(top.get(1).getError()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testMergedGauges() {
+        final MetricRegistry registry = new MetricRegistry();
+        final TopAgentTracker lane1 = new TopAgentTracker(3);
+        final TopAgentTracker lane2 = new TopAgentTracker(3);
+        registry.register("top",
+                TopAgentTracker.merged(ImmutableList.of(lane1, lane2)));
+        lane1.add("infra-dm", 1L);
+        lane2.add("infra-dm", 1L);
+
+        assertThat(registry.getNames()).hasSize(6);
+        assertThat(registry.getGauges().get("top.1.name").getValue())
+                .isEqualTo("infra-dm");
+        assertThat(registry.getGauges().get("top.1.count").getValue())
+                .isEqualTo(2L);
+    }
+
+    @Test
+    public void testEmptyRanks() {
+        final MetricRegistry registry = new MetricRegistry();
+        registry.register("top", new TopAgentTracker(2));
+        assertThat(registry.getGauges().get("top.2.name").getValue())
+                .isNull();
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        try {
+            new TopAgentTracker(0);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ge.snowizard.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class UserAgentValidatorTest {
+
+    private static final Pattern AGENT_PATTERN = Pattern
+            .compile("([a-zA-Z][a-zA-Z0-9\\-]*)");
+
+    private final UserAgentValidator validator = new UserAgentValidator();
+
+    @Test
+    public void testValidAgents() {
+        assertThat(validator.isValid("infra-dm")).isTrue();
+        assertThat(validator.isValid("a")).isTrue();
+        assertThat(validator.isValid("Snowizard-Client-1")).isTrue();
+        // served from the cache the second time
+        assertThat(validator.isValid("infra-dm")).isTrue();
+    }
+
+    @Test
+    public void testInvalidAgents() {
+        assertThat(validator.isValid("")).isFalse();
+        assertThat(validator.isValid("1")).isFalse();
+        assertThat(validator.isValid("1asdf")).isFalse();
+        assertThat(validator.isValid("-asdf")).isFalse();
+        assertThat(validator.isValid("infra dm")).isFalse();
+        assertThat(validator.isValid("infra_dm")).isFalse();
+        assertThat(validator.isValid("café")).isFalse();
+        assertThat(validator.isValid(null)).isFalse();
+        // served from the cache the second time
+        assertThat(validator.isValid("1asdf")).isFalse();
+    }
+
+    @Test
+    public void testScannerMatchesPattern() {
+        final Random random = new Random(42L);
+        final char[] alphabet = "aZz09-_ .é".toCharArray();
+        for (int i = 0; i < 100000; i++) {
+            final char[] chars = new char[random.nextInt(6)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            final String agent = new String(chars);
+            assertThat(UserAgentValidator.scan(agent)).as(agent).isEqualTo(
+                    AGENT_PATTERN.matcher(agent).matches());
+        }
+    }
+
+    @Test
+    public void testWithoutCache() {
+        final UserAgentValidator uncached = new UserAgentValidator(0L);
+        assertThat(uncached.isValid("infra-dm")).isTrue();
+        assertThat(uncached.isValid("1asdf")).isFalse();
+    }
+}